@@ -37,11 +37,9 @@ class SoundParcelTest {
 
         val sound = Sound(
                 id = 123L,
-                url = "url",
                 name = "name",
                 tags = listOf("abc", "123"),
                 description = "desc",
-                geotag = GeoLocation(1.0, 2.0),
                 username = "username",
                 images = images,
                 previews = preview,
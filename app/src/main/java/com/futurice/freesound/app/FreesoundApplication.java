@@ -18,8 +18,11 @@ package com.futurice.freesound.app;
 
 import com.facebook.stetho.Stetho;
 import com.futurice.freesound.arch.core.BaseApplication;
+import com.futurice.freesound.feature.audio.ExoPlayerPool;
 import com.futurice.freesound.inject.app.BaseApplicationModule;
 
+import android.os.Looper;
+
 import androidx.annotation.NonNull;
 
 import javax.inject.Inject;
@@ -31,6 +34,9 @@ public class FreesoundApplication extends BaseApplication<FreesoundApplicationCo
     @Inject
     Timber.Tree loggingTree;
 
+    @Inject
+    ExoPlayerPool exoPlayerPool;
+
     @Override
     public void onCreate() {
         super.onCreate();
@@ -54,6 +60,7 @@ public class FreesoundApplication extends BaseApplication<FreesoundApplicationCo
     private void initialize() {
         initLogging();
         initStetho();
+        warmUpAudioPlayer();
     }
 
     private void initLogging() {
@@ -69,4 +76,14 @@ public class FreesoundApplication extends BaseApplication<FreesoundApplicationCo
                       .build());
     }
 
+    /*
+     * Deferred until the main thread is idle, so as not to delay the launch of the first screen.
+     */
+    private void warmUpAudioPlayer() {
+        Looper.myQueue().addIdleHandler(() -> {
+            exoPlayerPool.warmUp();
+            return false;
+        });
+    }
+
 }
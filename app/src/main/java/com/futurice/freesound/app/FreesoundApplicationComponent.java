@@ -17,14 +17,20 @@
 package com.futurice.freesound.app;
 
 import com.futurice.freesound.feature.analytics.Analytics;
+import com.futurice.freesound.feature.audio.AudioCacheStats;
+import com.futurice.freesound.feature.audio.AudioStartStats;
 import com.futurice.freesound.feature.common.scheduling.SchedulerProvider;
+import com.futurice.freesound.feature.details.DetailsActivityComponent;
+import com.futurice.freesound.feature.details.DetailsActivityModule;
 import com.futurice.freesound.feature.home.HomeActivityComponent;
 import com.futurice.freesound.feature.search.SearchActivityComponent;
+import com.futurice.freesound.feature.search.SearchLatencyStats;
 import com.futurice.freesound.feature.user.UserRepository;
 import com.futurice.freesound.inject.activity.BaseActivityModule;
 import com.futurice.freesound.inject.app.BaseApplicationComponent;
 import com.futurice.freesound.inject.app.ForApplication;
 import com.futurice.freesound.network.api.FreeSoundApiClient;
+import com.futurice.freesound.network.api.HttpCacheStats;
 import com.squareup.picasso.Picasso;
 
 import android.content.Context;
@@ -44,6 +50,14 @@ public interface FreesoundApplicationComponent extends BaseApplicationComponent
 
     FreeSoundApiClient getFreeSoundApiService();
 
+    HttpCacheStats getHttpCacheStats();
+
+    AudioCacheStats getAudioCacheStats();
+
+    AudioStartStats getAudioStartStats();
+
+    SearchLatencyStats getSearchLatencyStats();
+
     UserRepository getUserRepository();
 
     Picasso getPicasso();
@@ -58,4 +72,7 @@ public interface FreesoundApplicationComponent extends BaseApplicationComponent
 
     SearchActivityComponent plusSearchActivityComponent(BaseActivityModule baseActivityModule);
 
+    DetailsActivityComponent plusDetailsActivityComponent(BaseActivityModule baseActivityModule,
+                                                          DetailsActivityModule detailsActivityModule);
+
 }
@@ -17,9 +17,12 @@
 package com.futurice.freesound.app;
 
 import com.futurice.freesound.feature.analytics.AnalyticsModule;
+import com.futurice.freesound.feature.audio.AudioCacheModule;
+import com.futurice.freesound.feature.audio.AudioPlayerPoolModule;
 import com.futurice.freesound.feature.common.scheduling.SchedulingModule;
 import com.futurice.freesound.feature.images.ImagesModule;
 import com.futurice.freesound.feature.logging.LoggingModule;
+import com.futurice.freesound.feature.search.SearchModule;
 import com.futurice.freesound.feature.user.UserModule;
 import com.futurice.freesound.inject.app.BaseApplicationModule;
 import com.futurice.freesound.network.api.ApiModule;
@@ -31,7 +34,10 @@ import dagger.Module;
                     ImagesModule.class,
                     SchedulingModule.class,
                     AnalyticsModule.class,
+                    AudioCacheModule.class,
+                    AudioPlayerPoolModule.class,
                     LoggingModule.class,
+                    SearchModule.class,
                     UserModule.class})
 final class FreesoundApplicationModule {
 }
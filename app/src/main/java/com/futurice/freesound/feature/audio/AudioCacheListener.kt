@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.futurice.freesound.feature.audio
+
+import com.futurice.freesound.network.api.NetworkBandwidthMeter
+import com.google.android.exoplayer2.upstream.DataSource
+import com.google.android.exoplayer2.upstream.DataSpec
+import com.google.android.exoplayer2.upstream.TransferListener
+import com.google.android.exoplayer2.upstream.cache.CacheDataSource
+import java.util.*
+
+/**
+ * Records the reads of the audio cache and of the network beneath it to [AudioCacheStats].
+ *
+ * Each completed network transfer is also recorded to the [bandwidthMeter], timed by
+ * [elapsedRealtimeMs]. Transfers are made on the loading threads of several players and
+ * prefetches at once.
+ */
+internal class AudioCacheListener(private val stats: AudioCacheStats,
+                                  private val bandwidthMeter: NetworkBandwidthMeter,
+                                  private val elapsedRealtimeMs: () -> Long)
+    : CacheDataSource.EventListener, TransferListener {
+
+    private class Transfer(val startMs: Long) {
+        var bytes: Long = 0
+    }
+
+    private val transfers = IdentityHashMap<DataSource, Transfer>()
+
+    override fun onCachedBytesRead(cacheSizeBytes: Long, cachedBytesRead: Long) {
+        stats.recordCachedRead(cachedBytesRead, cacheSizeBytes)
+    }
+
+    override fun onCacheIgnored(reason: Int) {
+        stats.recordCacheIgnored()
+    }
+
+    override fun onTransferInitializing(source: DataSource, dataSpec: DataSpec, isNetwork: Boolean) {}
+
+    override fun onTransferStart(source: DataSource, dataSpec: DataSpec, isNetwork: Boolean) {
+        if (!isNetwork) return
+        stats.recordNetworkRead()
+        synchronized(transfers) { transfers[source] = Transfer(elapsedRealtimeMs()) }
+    }
+
+    override fun onBytesTransferred(source: DataSource,
+                                    dataSpec: DataSpec,
+                                    isNetwork: Boolean,
+                                    bytesTransferred: Int) {
+        if (!isNetwork) return
+        stats.recordNetworkBytes(bytesTransferred.toLong())
+        synchronized(transfers) { transfers[source]?.let { it.bytes += bytesTransferred } }
+    }
+
+    override fun onTransferEnd(source: DataSource, dataSpec: DataSpec, isNetwork: Boolean) {
+        if (!isNetwork) return
+        val transfer = synchronized(transfers) { transfers.remove(source) } ?: return
+        bandwidthMeter.recordTransfer(transfer.bytes, elapsedRealtimeMs() - transfer.startMs)
+    }
+}
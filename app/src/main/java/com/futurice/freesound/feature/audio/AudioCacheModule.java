@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.futurice.freesound.feature.audio;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import com.futurice.freesound.BuildConfig;
+import com.futurice.freesound.feature.common.scheduling.SchedulerProvider;
+import com.futurice.freesound.inject.app.ForApplication;
+import com.futurice.freesound.network.api.NetworkBandwidthMeter;
+import com.google.android.exoplayer2.upstream.DefaultDataSourceFactory;
+import com.google.android.exoplayer2.upstream.FileDataSourceFactory;
+import com.google.android.exoplayer2.upstream.cache.Cache;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSinkFactory;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSource;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSourceFactory;
+import com.google.android.exoplayer2.upstream.cache.LeastRecentlyUsedCacheEvictor;
+import com.google.android.exoplayer2.upstream.cache.SimpleCache;
+import com.google.android.exoplayer2.util.Util;
+
+import java.io.File;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import dagger.Module;
+import dagger.Provides;
+
+/**
+ * The application scoped parts of audio playback, which outlive any one player.
+ */
+@Module
+public class AudioCacheModule {
+
+    static final String AUDIO_CACHE_MAX_BYTES_CONFIG = "AudioCacheModule.AUDIO_CACHE_MAX_BYTES_CONFIG";
+
+    private static final String AUDIO_CACHE_DIRECTORY = "audio";
+
+    // Enough for the first seconds of a low quality preview.
+    private static final long PREVIEW_PREFETCH_BYTES = 64 * 1024;
+
+    /*
+     * Set with the audio.cache.maxBytes Gradle property.
+     */
+    @Provides
+    @Named(AUDIO_CACHE_MAX_BYTES_CONFIG)
+    static long provideAudioCacheMaxBytesConfig() {
+        return BuildConfig.AUDIO_CACHE_MAX_BYTES;
+    }
+
+    /*
+     * A SimpleCache locks its directory, so there must only ever be one instance.
+     */
+    @Provides
+    @Singleton
+    static Cache provideAudioCache(@ForApplication Context context,
+                                   @Named(AUDIO_CACHE_MAX_BYTES_CONFIG) long maxBytes) {
+        return new SimpleCache(new File(context.getCacheDir(), AUDIO_CACHE_DIRECTORY),
+                               new LeastRecentlyUsedCacheEvictor(maxBytes));
+    }
+
+    @Provides
+    @Singleton
+    static AudioCacheStats provideAudioCacheStats() {
+        return new AudioCacheStats();
+    }
+
+    @Provides
+    @Singleton
+    static AudioCacheListener provideAudioCacheListener(AudioCacheStats audioCacheStats,
+                                                        NetworkBandwidthMeter bandwidthMeter) {
+        return new AudioCacheListener(audioCacheStats,
+                                      bandwidthMeter,
+                                      SystemClock::elapsedRealtime);
+    }
+
+    /*
+     * The network, beneath the cache.
+     */
+    @Provides
+    @Singleton
+    static DefaultDataSourceFactory provideUpstreamDataSourceFactory(@ForApplication Context context,
+                                                                     AudioCacheListener listener) {
+        return new DefaultDataSourceFactory(context,
+                                            Util.getUserAgent(context, BuildConfig.APPLICATION_ID),
+                                            listener);
+    }
+
+    @Provides
+    @Singleton
+    static CacheDataSourceFactory provideCacheDataSourceFactory(Cache audioCache,
+                                                                DefaultDataSourceFactory upstreamFactory,
+                                                                AudioCacheListener listener) {
+        return new CacheDataSourceFactory(audioCache,
+                                          upstreamFactory,
+                                          new FileDataSourceFactory(),
+                                          new CacheDataSinkFactory(audioCache,
+                                                                   CacheDataSource.DEFAULT_MAX_CACHE_FILE_SIZE),
+                                          CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR,
+                                          listener);
+    }
+
+    @Provides
+    static PreviewQualitySelector providePreviewQualitySelector(NetworkBandwidthMeter bandwidthMeter) {
+        return new PreviewQualitySelector(bandwidthMeter);
+    }
+
+    @Provides
+    @Singleton
+    static PreviewPrefetcher providePreviewPrefetcher(Cache audioCache,
+                                                      DefaultDataSourceFactory upstreamFactory,
+                                                      SchedulerProvider schedulerProvider) {
+        return new PreviewPrefetcher(new CachePreviewLoader(audioCache,
+                                                            upstreamFactory,
+                                                            PREVIEW_PREFETCH_BYTES),
+                                     schedulerProvider.io());
+    }
+
+}
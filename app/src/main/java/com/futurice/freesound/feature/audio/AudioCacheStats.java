@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.futurice.freesound.feature.audio;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for the audio preview cache, used to tune its size.
+ *
+ * Network bytes include those prefetched, so that the cost of prefetching is visible too.
+ */
+public final class AudioCacheStats {
+
+    @NonNull
+    private final AtomicLong cachedReadCount = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong cachedBytes = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong networkReadCount = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong networkBytes = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong cacheIgnoredCount = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong cacheSizeBytes = new AtomicLong();
+
+    void recordCachedRead(long bytes, long cacheSizeBytes) {
+        cachedReadCount.incrementAndGet();
+        cachedBytes.addAndGet(bytes);
+        this.cacheSizeBytes.set(cacheSizeBytes);
+    }
+
+    void recordNetworkRead() {
+        networkReadCount.incrementAndGet();
+    }
+
+    void recordNetworkBytes(long bytes) {
+        networkBytes.addAndGet(bytes);
+    }
+
+    void recordCacheIgnored() {
+        cacheIgnoredCount.incrementAndGet();
+    }
+
+    /**
+     * @return the number of reads which were at least partly served from the cache.
+     */
+    public long cachedReadCount() {
+        return cachedReadCount.get();
+    }
+
+    /**
+     * @return the number of bytes served from the cache, rather than downloaded.
+     */
+    public long cachedBytes() {
+        return cachedBytes.get();
+    }
+
+    /**
+     * @return the number of requests made to the network.
+     */
+    public long networkReadCount() {
+        return networkReadCount.get();
+    }
+
+    /**
+     * @return the number of bytes downloaded.
+     */
+    public long networkBytes() {
+        return networkBytes.get();
+    }
+
+    /**
+     * @return the number of reads which bypassed the cache, such as after a cache error.
+     */
+    public long cacheIgnoredCount() {
+        return cacheIgnoredCount.get();
+    }
+
+    /**
+     * @return the size of the cache as of the last read from it.
+     */
+    public long cacheSizeBytes() {
+        return cacheSizeBytes.get();
+    }
+
+    /**
+     * @return the fraction of the bytes read which came from the cache, or 0 if none were read.
+     */
+    public double byteHitRate() {
+        long cached = cachedBytes.get();
+        long total = cached + networkBytes.get();
+        return total == 0 ? 0 : (double) cached / total;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "AudioCacheStats{"
+               + "cachedReadCount=" + cachedReadCount
+               + ", cachedBytes=" + cachedBytes
+               + ", networkReadCount=" + networkReadCount
+               + ", networkBytes=" + networkBytes
+               + ", cacheIgnoredCount=" + cacheIgnoredCount
+               + ", cacheSizeBytes=" + cacheSizeBytes
+               + '}';
+    }
+}
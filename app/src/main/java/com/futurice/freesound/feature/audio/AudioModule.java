@@ -16,28 +16,13 @@
 
 package com.futurice.freesound.feature.audio;
 
-import android.content.Context;
 import android.net.Uri;
 
-import com.futurice.freesound.BuildConfig;
 import com.futurice.freesound.feature.common.scheduling.SchedulerProvider;
 import com.futurice.freesound.inject.activity.ActivityScope;
-import com.futurice.freesound.inject.app.ForApplication;
-import com.google.android.exoplayer2.DefaultLoadControl;
-import com.google.android.exoplayer2.DefaultRenderersFactory;
-import com.google.android.exoplayer2.ExoPlayer;
-import com.google.android.exoplayer2.ExoPlayerFactory;
-import com.google.android.exoplayer2.LoadControl;
-import com.google.android.exoplayer2.RenderersFactory;
-import com.google.android.exoplayer2.SimpleExoPlayer;
 import com.google.android.exoplayer2.source.ExtractorMediaSource;
-import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
-import com.google.android.exoplayer2.trackselection.FixedTrackSelection;
-import com.google.android.exoplayer2.trackselection.TrackSelection;
-import com.google.android.exoplayer2.trackselection.TrackSelector;
 import com.google.android.exoplayer2.upstream.DataSource;
-import com.google.android.exoplayer2.upstream.DefaultDataSourceFactory;
-import com.google.android.exoplayer2.util.Util;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSourceFactory;
 
 import java.util.concurrent.TimeUnit;
 
@@ -67,71 +52,54 @@ public class AudioModule {
     @Provides
     @ActivityScope
     ExoPlayerAudioPlayer provideExoPlayerAudioPlayer(ObservableExoPlayer observableExoPlayer,
+                                                     ExoPlayerLease exoPlayerLease,
+                                                     AudioStartStats audioStartStats,
                                                      SchedulerProvider schedulerProvider) {
 
-        final int DEFAULT_UPDATE_PERIOD_MILLIS = 50;
+        // About one frame, shorter periods would not be seen.
+        final int MIN_UPDATE_PERIOD_MILLIS = 16;
 
         return new ExoPlayerAudioPlayer(
                 observableExoPlayer,
-                DEFAULT_UPDATE_PERIOD_MILLIS,
+                audioStartStats,
+                exoPlayerLease.isFirstLease(),
+                MIN_UPDATE_PERIOD_MILLIS,
                 TimeUnit.MILLISECONDS,
                 schedulerProvider);
     }
 
     @Provides
-    static ObservableExoPlayer provideObservableExoPlayer(ExoPlayer exoPlayer,
+    static ObservableExoPlayer provideObservableExoPlayer(ExoPlayerPool exoPlayerPool,
+                                                          ExoPlayerLease exoPlayerLease,
                                                           MediaSourceFactory mediaSourceFactory) {
-        return new DefaultObservableExoPlayer(exoPlayer, mediaSourceFactory);
+        return new DefaultObservableExoPlayer(exoPlayerPool, exoPlayerLease, mediaSourceFactory);
     }
 
+    /*
+     * A factory only creates a single source once given a cache key, so each source needs its own.
+     */
     @Provides
-    static MediaSourceFactory provideMediaSourceFactory(final ExtractorMediaSource.Factory extractorMediaSourceFactory) {
-        return uri -> extractorMediaSourceFactory.createMediaSource(Uri.parse(uri));
+    static MediaSourceFactory provideMediaSourceFactory(final DataSource.Factory dataSourceFactory) {
+        return uri -> new ExtractorMediaSource.Factory(dataSourceFactory)
+                .setCustomCacheKey(PreviewCacheKeyKt.previewCacheKey(uri))
+                .createMediaSource(Uri.parse(uri));
     }
 
+    /*
+     * Given back to the pool when the AudioPlayer is released.
+     */
     @Provides
     @ActivityScope
-    static ExoPlayer provideExoPlayer(SimpleExoPlayer simpleExoPlayer) {
-        return simpleExoPlayer;
-    }
-
-    @Provides
-    static DataSource.Factory provideDataSourceFactory(@ForApplication Context context) {
-        return new DefaultDataSourceFactory(context,
-                Util.getUserAgent(context, BuildConfig.APPLICATION_ID));
-    }
-
-    @Provides
-    static ExtractorMediaSource.Factory provideExtractorMediaSourceFactory(final DataSource.Factory dataSourceFactory) {
-        return new ExtractorMediaSource.Factory(dataSourceFactory);
-    }
-
-    @Provides
-    static TrackSelection.Factory provideTrackSelectionFactory() {
-        return new FixedTrackSelection.Factory();
-    }
-
-    @Provides
-    static RenderersFactory provideRenderersFactory(@ForApplication Context context) {
-        return new DefaultRenderersFactory(context);
-    }
-
-    @Provides
-    static TrackSelector provideTrackSelector(TrackSelection.Factory trackSelectionFactory) {
-        return new DefaultTrackSelector(trackSelectionFactory);
-    }
-
-    @Provides
-    static LoadControl provideLoadControl() {
-        return new DefaultLoadControl();
+    static ExoPlayerLease provideExoPlayerLease(ExoPlayerPool exoPlayerPool) {
+        return exoPlayerPool.acquire();
     }
 
+    /*
+     * Reads through the application's audio cache, so that prefetched previews start from local bytes.
+     */
     @Provides
-    static SimpleExoPlayer provideSimpleExoPlayer(@ForApplication Context context,
-                                                  RenderersFactory renderersFactory,
-                                                  TrackSelector trackSelector,
-                                                  LoadControl loadControl) {
-        return ExoPlayerFactory.newSimpleInstance(context, renderersFactory, trackSelector, loadControl);
+    static DataSource.Factory provideDataSourceFactory(CacheDataSourceFactory cacheDataSourceFactory) {
+        return cacheDataSourceFactory;
     }
 
 }
@@ -28,10 +28,32 @@ interface AudioPlayer : Releasable {
     /**
      * Reports the initial player status and subsequent changes.
      *
+     * All subscribers share the same stream, new subscribers receiving the latest state.
+     *
      * @return A stream of the [PlayerState].
      */
     val playerStateOnceAndStream: Observable<out PlayerState>
 
+    /**
+     * Reports the player status as seen by a single source: assigned while the source with the
+     * [id] is current, otherwise idle. Only changes are reported, so the state of other sources
+     * is not seen.
+     *
+     * @param id the [PlaybackSource.id] of the source.
+     * @return A stream of the [PlayerState] of the source.
+     */
+    fun playerStateOnceAndStream(id: Id): Observable<PlayerState>
+
+    /**
+     * Reports the playback position of the current source, updating it periodically while the
+     * source plays and otherwise upon player events. Each value differs from the previous.
+     *
+     * @param updatePeriodMs the period of the updates while playing, which may be lengthened
+     * to the minimum the player supports.
+     * @return A stream of the playback position in milliseconds.
+     */
+    fun timePositionMsOnceAndStream(updatePeriodMs: Long): Observable<Long>
+
     /**
      * Initialize the player.
      */
@@ -46,6 +68,17 @@ interface AudioPlayer : Releasable {
      */
     fun togglePlayback(playbackSource: PlaybackSource)
 
+    /**
+     * Plays the sources one after another without gaps, replacing any current playback.
+     *
+     * Toggling the playback of the current source of the queue pauses or resumes the queue,
+     * whereas toggling any other source plays that source alone.
+     *
+     * @param playbackSources the queue of audio sources, must not be empty.
+     * @param startIndex the position in the queue to start from.
+     */
+    fun playQueue(playbackSources: List<PlaybackSource>, startIndex: Int = 0)
+
     /**
      * Stops the current playback and reset state.
      */
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.audio;
+
+import android.content.Context;
+
+import com.futurice.freesound.inject.app.ForApplication;
+import com.google.android.exoplayer2.DefaultLoadControl;
+import com.google.android.exoplayer2.DefaultRenderersFactory;
+import com.google.android.exoplayer2.ExoPlayerFactory;
+import com.google.android.exoplayer2.LoadControl;
+import com.google.android.exoplayer2.RenderersFactory;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
+import com.google.android.exoplayer2.trackselection.FixedTrackSelection;
+import com.google.android.exoplayer2.trackselection.TrackSelection;
+import com.google.android.exoplayer2.trackselection.TrackSelector;
+
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import dagger.Module;
+import dagger.Provides;
+
+/**
+ * The application scoped ExoPlayer pool, from which each screen leases its player.
+ */
+@Module
+public class AudioPlayerPoolModule {
+
+    @Provides
+    @Singleton
+    static ExoPlayerPool provideExoPlayerPool(final Provider<SimpleExoPlayer> simpleExoPlayerProvider) {
+        return new ExoPlayerPool(simpleExoPlayerProvider::get);
+    }
+
+    @Provides
+    @Singleton
+    static AudioStartStats provideAudioStartStats() {
+        return new AudioStartStats();
+    }
+
+    //
+    // Internal
+    //
+
+    /*
+     * Unscoped: a TrackSelector can only be used by a single player.
+     */
+    @Provides
+    static SimpleExoPlayer provideSimpleExoPlayer(@ForApplication Context context,
+                                                  RenderersFactory renderersFactory,
+                                                  TrackSelector trackSelector,
+                                                  LoadControl loadControl) {
+        return ExoPlayerFactory.newSimpleInstance(context, renderersFactory, trackSelector, loadControl);
+    }
+
+    @Provides
+    static TrackSelection.Factory provideTrackSelectionFactory() {
+        return new FixedTrackSelection.Factory();
+    }
+
+    @Provides
+    static RenderersFactory provideRenderersFactory(@ForApplication Context context) {
+        return new DefaultRenderersFactory(context);
+    }
+
+    @Provides
+    static TrackSelector provideTrackSelector(TrackSelection.Factory trackSelectionFactory) {
+        return new DefaultTrackSelector(trackSelectionFactory);
+    }
+
+    @Provides
+    static LoadControl provideLoadControl() {
+        return new DefaultLoadControl();
+    }
+
+}
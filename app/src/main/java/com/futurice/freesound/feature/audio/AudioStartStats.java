@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.audio;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for the time to first audio: from a screen's first playback request until its audio
+ * starts playing.
+ *
+ * The first screen of the process is counted apart from those that follow, which are expected to
+ * start faster as they lease the already warm player of the {@link ExoPlayerPool}.
+ */
+public final class AudioStartStats {
+
+    private static final long NOT_MEASURED = -1;
+
+    @NonNull
+    private final AtomicLong firstLaunchMs = new AtomicLong(NOT_MEASURED);
+
+    @NonNull
+    private final AtomicLong subsequentLaunchCount = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong subsequentTotalMs = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong subsequentMaxMs = new AtomicLong();
+
+    void recordTimeToFirstAudio(final boolean isFirstLaunch, final long timeMs) {
+        if (isFirstLaunch) {
+            firstLaunchMs.set(timeMs);
+            return;
+        }
+        subsequentLaunchCount.incrementAndGet();
+        subsequentTotalMs.addAndGet(timeMs);
+        long max;
+        do {
+            max = subsequentMaxMs.get();
+        } while (timeMs > max && !subsequentMaxMs.compareAndSet(max, timeMs));
+    }
+
+    /**
+     * @return the time to first audio of the first launch in milliseconds, or -1 if it has not
+     * played audio.
+     */
+    public long firstLaunchMs() {
+        return firstLaunchMs.get();
+    }
+
+    /**
+     * @return the number of subsequent launches which played audio.
+     */
+    public long subsequentLaunchCount() {
+        return subsequentLaunchCount.get();
+    }
+
+    /**
+     * @return the mean time to first audio of subsequent launches in milliseconds, or 0 if there
+     * have been none.
+     */
+    public long subsequentMeanMs() {
+        long count = subsequentLaunchCount.get();
+        return count == 0 ? 0 : subsequentTotalMs.get() / count;
+    }
+
+    /**
+     * @return the longest time to first audio of subsequent launches in milliseconds.
+     */
+    public long subsequentMaxMs() {
+        return subsequentMaxMs.get();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "AudioStartStats{"
+               + "firstLaunchMs=" + firstLaunchMs
+               + ", subsequentLaunchCount=" + subsequentLaunchCount
+               + ", subsequentMeanMs=" + subsequentMeanMs()
+               + ", subsequentMaxMs=" + subsequentMaxMs
+               + '}';
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.futurice.freesound.feature.audio
+
+import android.net.Uri
+import com.google.android.exoplayer2.C
+import com.google.android.exoplayer2.upstream.DataSource
+import com.google.android.exoplayer2.upstream.DataSpec
+import com.google.android.exoplayer2.upstream.cache.Cache
+import com.google.android.exoplayer2.upstream.cache.CacheUtil
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * Loads the first [prefetchBytes] of a preview into the player's [Cache].
+ *
+ * The network reads are recorded by the [upstreamFactory]'s listener, in [AudioCacheStats].
+ */
+internal class CachePreviewLoader(private val cache: Cache,
+                                  private val upstreamFactory: DataSource.Factory,
+                                  private val prefetchBytes: Long) : PreviewLoader {
+
+    override fun isLoaded(url: String): Boolean {
+        val key = previewCacheKey(url)
+        // A preview may be shorter than the prefetch.
+        val contentLength = cache.getContentLength(key)
+        val length = if (contentLength == C.LENGTH_UNSET.toLong()) prefetchBytes
+        else Math.min(prefetchBytes, contentLength)
+        return cache.isCached(key, 0, length)
+    }
+
+    override fun load(url: String, isCanceled: AtomicBoolean) {
+        // Keyed as the player keys it, so that it reads what was loaded.
+        val dataSpec = DataSpec(Uri.parse(url), 0, prefetchBytes, previewCacheKey(url))
+        CacheUtil.cache(dataSpec, cache, upstreamFactory.createDataSource(), null, isCanceled)
+    }
+}
@@ -1,22 +1,42 @@
 package com.futurice.freesound.feature.audio
 
 import com.google.android.exoplayer2.ExoPlayer
+import com.google.android.exoplayer2.source.ConcatenatingMediaSource
 import io.reactivex.Observable
 
-internal class DefaultObservableExoPlayer(private val exoPlayer: ExoPlayer,
+/**
+ * Plays through the player of a [lease] from the [pool], which is given back on [release].
+ */
+internal class DefaultObservableExoPlayer(private val pool: ExoPlayerPool,
+                                          private val lease: ExoPlayerLease,
                                           private val mediaSourceFactory: MediaSourceFactory) : ObservableExoPlayer {
 
+    private val exoPlayer: ExoPlayer = lease.exoPlayer
+
     override val stateOnceAndStream: Observable<ExoPlayerState>
         get() = ExoPlayerStateObservable(exoPlayer);
 
     override val timePositionMsOnceAndStream: Observable<Long>
         get() = ExoPlayerProgressObservable(exoPlayer)
 
+    override val windowIndexOnceAndStream: Observable<Int>
+        get() = ExoPlayerWindowIndexObservable(exoPlayer).distinctUntilChanged()
+
     override fun play(url: String) {
         exoPlayer.prepare(mediaSourceFactory.create(url))
         exoPlayer.playWhenReady = true
     }
 
+    /*
+     * ExoPlayer loads the next source of the concatenation once the current one is buffered, so
+     * that it is ready to play as soon as the current one ends.
+     */
+    override fun playAll(urls: List<String>, startIndex: Int) {
+        exoPlayer.prepare(ConcatenatingMediaSource(*urls.map { mediaSourceFactory.create(it) }.toTypedArray()))
+        exoPlayer.seekToDefaultPosition(startIndex)
+        exoPlayer.playWhenReady = true
+    }
+
     override fun pause() {
         exoPlayer.playWhenReady = false
     }
@@ -30,7 +50,7 @@ internal class DefaultObservableExoPlayer(private val exoPlayer: ExoPlayer,
     }
 
     override fun release() {
-        exoPlayer.release()
+        pool.giveBack(lease)
     }
 
 }
@@ -20,6 +20,7 @@ import com.futurice.freesound.feature.common.scheduling.SchedulerProvider
 import com.google.android.exoplayer2.Player
 import io.reactivex.Observable
 import io.reactivex.disposables.SerialDisposable
+import io.reactivex.functions.BiFunction
 import io.reactivex.subjects.PublishSubject
 import timber.log.Timber
 import java.util.concurrent.TimeUnit
@@ -34,15 +35,25 @@ import java.util.concurrent.TimeUnit
  * instance.
  *
  * NOTE: I haven't yet found a way to determine the current playing source in ExoPlayer, so this
- * class needs to retain the URL itself. As a consequence, keep this instance with the same scope
- * as the underlying ExoPlayer instance. Otherwise you could arrive at a situation where ExoPlayer
- * is playing a source and this instance has no current URL defined.
+ * class needs to retain the URLs itself, finding the current one by the ExoPlayer window index.
+ * The ExoPlayer is leased from the shared [ExoPlayerPool] and outlives this instance, so it is
+ * given back stopped on [release], leaving no source for the next lease to inherit. Should the
+ * window index still not match a retained source, the player is reported as [PlayerState.Idle].
  *
  * From what I can still see, this explanation to keep your own URI is still recommended:
  *  https://github.com/google/ExoPlayer/issues/2328
+ *
+ * The time from the first playback request until its audio starts is recorded in
+ * [audioStartStats], as that of the first launch when [isFirstLaunch].
+ *
+ * The player state is only updated by ExoPlayer events. The playback position is polled while
+ * playing, but only for subscribers to [timePositionMsOnceAndStream], never more often than every
+ * [minUpdatePeriod].
  */
 internal class ExoPlayerAudioPlayer(private val exoPlayer: ObservableExoPlayer,
-                                    private val updatePeriod: Long,
+                                    private val audioStartStats: AudioStartStats,
+                                    private val isFirstLaunch: Boolean,
+                                    private val minUpdatePeriod: Long,
                                     private val timeUnit: TimeUnit,
                                     private val schedulerProvider: SchedulerProvider) : AudioPlayer {
 
@@ -51,42 +62,77 @@ internal class ExoPlayerAudioPlayer(private val exoPlayer: ObservableExoPlayer,
     }
 
     private val playbackSourceRequestDisposable = SerialDisposable()
+    private val firstAudioDisposable = SerialDisposable()
+    private var isFirstAudioRequested = false
     private val playbackSourceRequestStream = PublishSubject.create<PlaybackSource>()
-    private var currentPlaybackSource: PlaybackSource? = null
+    private var currentQueue: List<PlaybackSource> = emptyList()
+
+    // Not distinct, as each player event is also when the position is read while not playing.
+    private val isTimelineChangingOnceAndStream: Observable<Boolean> =
+            exoPlayer.stateOnceAndStream
+                    .map { it.playbackState == Player.STATE_READY && it.playWhenReady }
+                    .replay(1)
+                    .refCount()
 
-    override val playerStateOnceAndStream: Observable<PlayerState>
-        get() = definePlayerStateObservable()
+    override val playerStateOnceAndStream: Observable<PlayerState> =
+            definePlayerStateObservable()
+                    .replay(1)
+                    .refCount()
+
+    override fun playerStateOnceAndStream(id: Id): Observable<PlayerState> =
+            playerStateOnceAndStream
+                    .map { it.ofSource(id) }
+                    .distinctUntilChanged()
 
     private fun definePlayerStateObservable(): Observable<PlayerState> {
-        return exoPlayer.stateOnceAndStream
-                .doOnNext { Timber.v("ExoPlayer State changed: $it") }
-                .switchMap { exoPlayerState ->
+        return Observable.combineLatest(
+                exoPlayer.stateOnceAndStream
+                        .doOnNext { Timber.v("ExoPlayer State changed: $it") },
+                exoPlayer.windowIndexOnceAndStream,
+                BiFunction { exoPlayerState: ExoPlayerState, queueIndex: Int -> Pair(exoPlayerState, queueIndex) })
+                .switchMap { (exoPlayerState, queueIndex) ->
                     if (exoPlayerState.playbackState == Player.STATE_IDLE)
                         Observable.just(PlayerState.Idle)
                     else
-                        definePlayerTimePositionStream()
+                        exoPlayer.timePositionMsOnceAndStream
                                 .map { positionMs ->
-                                    toPlayerState(currentPlaybackSource, exoPlayerState.toPlaybackStatus(), positionMs)
+                                    toPlayerState(currentQueue, queueIndex, exoPlayerState.toPlaybackStatus(), positionMs)
                                 }
                 }
+                .distinctUntilChanged()
     }
 
-    private fun toPlayerState(source: PlaybackSource?,
+    // The window index can briefly lag a replaced queue, so it is not an error to be out of it.
+    private fun toPlayerState(queue: List<PlaybackSource>,
+                              queueIndex: Int,
                               status: PlaybackStatus,
                               positionMs: Long
     ): PlayerState {
-        requireNotNull(source, { "Cannot created an Assigned state without a playback source" })
-        return PlayerState.Assigned(source, status, positionMs)
+        val source = queue.getOrNull(queueIndex)
+        if (source == null) {
+            Timber.w("No playback source at index: $queueIndex of queue: ${queue.size}")
+            return PlayerState.Idle
+        }
+        return PlayerState.Assigned(source, status, positionMs, queueIndex, queue.size)
     }
 
+    /*
+     * Each subscriber polls at its own period, as periods are rarely shared; a row's period
+     * depends on its sound's duration. Only the player events driving the polling are shared.
+     */
+    override fun timePositionMsOnceAndStream(updatePeriodMs: Long): Observable<Long> =
+            definePlayerTimePositionStream(Math.max(updatePeriodMs, timeUnit.toMillis(minUpdatePeriod)))
+
     override fun init() {
         playbackSourceRequestDisposable
                 .set(playbackSourceRequestStream
                         .doOnNext { Timber.v("New PlaybackSource Request: $it") }
                         .switchMap { newPlaybackSource ->
-                            exoPlayer.stateOnceAndStream
-                                    .take(1)
-                                    .map { exoPlayerState -> toPlaybackRequest(currentPlaybackSource, newPlaybackSource, exoPlayerState) }
+                            Observable.zip(exoPlayer.stateOnceAndStream.take(1),
+                                    exoPlayer.windowIndexOnceAndStream.take(1),
+                                    BiFunction { exoPlayerState: ExoPlayerState, queueIndex: Int ->
+                                        toPlaybackRequest(currentQueue.getOrNull(queueIndex), newPlaybackSource, exoPlayerState)
+                                    })
                                     .map { request -> Pair(request, newPlaybackSource) }
                         }
                         .subscribe({ pair -> handlePlaybackRequest(pair.first, pair.second) },
@@ -97,13 +143,25 @@ internal class ExoPlayerAudioPlayer(private val exoPlayer: ObservableExoPlayer,
         playbackSourceRequestStream.onNext(playbackSource)
     }
 
+    override fun playQueue(playbackSources: List<PlaybackSource>, startIndex: Int) {
+        require(playbackSources.isNotEmpty()) { "Cannot play an empty queue" }
+        require(startIndex in playbackSources.indices) { "Start index out of bounds: $startIndex" }
+        Timber.v("Playing queue of ${playbackSources.size} sources from: $startIndex")
+
+        measureTimeToFirstAudioOnce()
+        currentQueue = playbackSources
+        exoPlayer.playAll(playbackSources.map { it.url }, startIndex)
+    }
+
     override fun stopPlayback() {
+        firstAudioDisposable.set(null) // Only audio following a playback request is measured
         exoPlayer.stop()
-        currentPlaybackSource = null // Stop makes ExoPlayer Idle, so we need to unset the source
+        currentQueue = emptyList() // Stop makes ExoPlayer Idle, so we need to unset the sources
     }
 
     override fun release() {
         playbackSourceRequestDisposable.dispose()
+        firstAudioDisposable.dispose()
         exoPlayer.release()
     }
 
@@ -115,7 +173,8 @@ internal class ExoPlayerAudioPlayer(private val exoPlayer: ObservableExoPlayer,
             PlaybackRequest.PLAY
         } else {
             val playbackStatus: PlaybackStatus = exoPlayerState.toPlaybackStatus();
-            if ((requested.equals(current).not())
+            // By id, as the preview chosen for the same sound may differ between requests
+            if ((requested.id != current?.id)
                             .or(playbackStatus == PlaybackStatus.ENDED)
                             .or(playbackStatus == PlaybackStatus.ERROR)) {
                 PlaybackRequest.PLAY
@@ -130,17 +189,33 @@ internal class ExoPlayerAudioPlayer(private val exoPlayer: ObservableExoPlayer,
                                       playbackSource: PlaybackSource) {
         Timber.v("Applying playback change: $request for source: $playbackSource")
 
-        // Apply the change to the source
-        currentPlaybackSource = playbackSource
-
-        // Apply the change to ExoPlayer
+        // Apply the change to ExoPlayer, a new source replacing any queue
         when (request) {
-            PlaybackRequest.PLAY -> exoPlayer.play(playbackSource.url)
+            PlaybackRequest.PLAY -> {
+                measureTimeToFirstAudioOnce()
+                currentQueue = listOf(playbackSource)
+                exoPlayer.play(playbackSource.url)
+            }
             PlaybackRequest.PAUSE -> exoPlayer.pause()
             PlaybackRequest.RESUME -> exoPlayer.resume()
         }
     }
 
+    private fun measureTimeToFirstAudioOnce() {
+        if (isFirstAudioRequested) return
+        isFirstAudioRequested = true
+
+        val requestedAtMs = now()
+        firstAudioDisposable.set(exoPlayer.stateOnceAndStream
+                .filter { it.playbackState == Player.STATE_READY && it.playWhenReady }
+                .take(1)
+                .subscribe({ audioStartStats.recordTimeToFirstAudio(isFirstLaunch, now() - requestedAtMs) },
+                        { e -> Timber.e(e, "Error when measuring the time to first audio") }))
+    }
+
+    private fun now(): Long =
+            schedulerProvider.time(PLAYER_PROGRESS_SCHEDULER_TAG).now(TimeUnit.MILLISECONDS)
+
     private fun ExoPlayerState.toPlaybackStatus(): PlaybackStatus {
         return when (playbackState) {
             Player.STATE_BUFFERING -> PlaybackStatus.BUFFERING
@@ -157,28 +232,24 @@ internal class ExoPlayerAudioPlayer(private val exoPlayer: ObservableExoPlayer,
         PLAY
     }
 
-    private fun definePlayerTimePositionStream(): Observable<Long> {
+    private fun definePlayerTimePositionStream(updatePeriodMs: Long): Observable<Long> {
 
-        fun asUpdatingProgressOnceAndStream(updatePeriod: Long,
-                                            timeUnit: TimeUnit) =
-                Observable.timer(updatePeriod, timeUnit,
+        fun asUpdatingProgressOnceAndStream(updatePeriodMs: Long) =
+                Observable.timer(updatePeriodMs, TimeUnit.MILLISECONDS,
                                 schedulerProvider.time(PLAYER_PROGRESS_SCHEDULER_TAG))
                         .observeOn(schedulerProvider.ui())
                         .repeat()
                         .startWith(0L)
                         .switchMap { exoPlayer.timePositionMsOnceAndStream }
 
-        fun ExoPlayerState.isTimelineChanging() =
-                playbackState == Player.STATE_READY && playWhenReady
-
-        return exoPlayer.stateOnceAndStream
-                .take(1) // when the state changes, the top-level Observable will re-evaluate
-                .switchMap { state ->
-                    if (state.isTimelineChanging())
-                        asUpdatingProgressOnceAndStream(updatePeriod, timeUnit)
+        return isTimelineChangingOnceAndStream
+                .switchMap { isTimelineChanging ->
+                    if (isTimelineChanging)
+                        asUpdatingProgressOnceAndStream(updatePeriodMs)
                     else
                         exoPlayer.timePositionMsOnceAndStream
                 }
+                .distinctUntilChanged()
     }
 }
 
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.audio
+
+import com.google.android.exoplayer2.ExoPlayer
+
+/**
+ * Keeps a single ExoPlayer warm for the lifetime of the application, so that each screen which
+ * plays audio does not pay again for the creation of the player, its renderers and its playback
+ * thread.
+ *
+ * The pooled player is leased to one screen at a time and reset when given back, rather than
+ * released. Should a second screen acquire a player while it is leased, such as during an
+ * Activity transition, it is given a player of its own which is released on return.
+ *
+ * ExoPlayer must be accessed from the thread which created it, so this should only be used from
+ * the main thread.
+ */
+internal class ExoPlayerPool(private val createPlayer: () -> ExoPlayer) {
+
+    private var pooledPlayer: ExoPlayer? = null
+    private var isLeased = false
+    private var leaseCount = 0
+
+    /**
+     * Creates the pooled player ahead of its first lease, if not already created.
+     */
+    fun warmUp() {
+        if (pooledPlayer == null) {
+            pooledPlayer = createPlayer()
+        }
+    }
+
+    fun acquire(): ExoPlayerLease {
+        val isFirstLease = leaseCount++ == 0
+        if (isLeased) {
+            return ExoPlayerLease(createPlayer(), isFirstLease, isPooled = false)
+        }
+        warmUp()
+        isLeased = true
+        return ExoPlayerLease(pooledPlayer!!, isFirstLease, isPooled = true)
+    }
+
+    /**
+     * Gives back the [lease]; its player must not be used afterwards.
+     */
+    fun giveBack(lease: ExoPlayerLease) {
+        if (lease.isPooled) {
+            lease.exoPlayer.playWhenReady = false
+            lease.exoPlayer.stop(true)
+            isLeased = false
+        } else {
+            lease.exoPlayer.release()
+        }
+    }
+
+}
+
+/**
+ * A player acquired from the [ExoPlayerPool].
+ *
+ * @param isFirstLease whether this is the first lease made by the pool.
+ */
+internal class ExoPlayerLease(val exoPlayer: ExoPlayer,
+                              val isFirstLease: Boolean,
+                              val isPooled: Boolean)
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.audio
+
+import com.google.android.exoplayer2.ExoPlayer
+import com.google.android.exoplayer2.Timeline
+
+import io.reactivex.Observable
+import io.reactivex.Observer
+
+/**
+ * Make an Observable from the index of the ExoPlayer window being played; its position in a
+ * queue of concatenated sources.
+ *
+ * Based upon techniques used in the RxBinding library.
+ *
+ * Note: The index is emitted upon each event which could change it, so it may repeat.
+ */
+internal class ExoPlayerWindowIndexObservable(private val exoPlayer: ExoPlayer,
+                                              private val emitInitial: Boolean = true) : Observable<Int>() {
+
+    override fun subscribeActual(observer: Observer<in Int>) {
+        val listener = Listener(exoPlayer, { observer.emitCurrentWindowIndex() })
+        observer.onSubscribe(listener)
+        exoPlayer.addListener(listener)
+        if (emitInitial) {
+            observer.emitCurrentWindowIndex()
+        }
+    }
+
+    private class Listener(exoPlayer: ExoPlayer,
+                           val handleWindowChange: () -> Unit)
+        : BaseExoPlayerDisposable(exoPlayer) {
+
+        override fun onTimelineChanged(timeline: Timeline?, manifest: Any?, reason: Int) {
+            onWindowChanged()
+        }
+
+        override fun onPositionDiscontinuity(reason: Int) {
+            onWindowChanged()
+        }
+
+        private fun onWindowChanged() {
+            if (!isDisposed) {
+                handleWindowChange()
+            }
+        }
+    }
+
+    private fun Observer<in Int>.emitCurrentWindowIndex() = onNext(exoPlayer.currentWindowIndex)
+
+}
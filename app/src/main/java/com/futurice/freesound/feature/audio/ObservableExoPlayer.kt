@@ -36,10 +36,27 @@ internal interface ObservableExoPlayer {
      */
     val timePositionMsOnceAndStream: Observable<Long>
 
+    /**
+     * The index of the source being played with initial value, changing as [playAll] advances
+     * through its sources.
+     *
+     * @return the Observable index of the current source.
+     */
+    val windowIndexOnceAndStream: Observable<Int>
+
     // Player controls
     fun play(url: String)
+
+    /**
+     * Plays the [urls] one after another without gaps, starting from [startIndex].
+     */
+    fun playAll(urls: List<String>, startIndex: Int)
     fun stop()
     fun pause()
     fun resume()
+
+    /**
+     * Relinquishes the underlying ExoPlayer, which may be reset and reused elsewhere.
+     */
     fun release()
 }
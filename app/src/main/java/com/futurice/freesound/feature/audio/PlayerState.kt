@@ -27,8 +27,24 @@ enum class PlaybackStatus {
 // TODO Could we just make a nullable val "assignment" and null is equivalent to Idle?
 sealed class PlayerState {
     object Idle : PlayerState()
+
+    /**
+     * @param queueIndex the position of [source] in the queue being played.
+     * @param queueSize the number of sources in the queue; 1 when playing a single source.
+     */
     data class Assigned(
             val source: PlaybackSource,
             val status: PlaybackStatus,
-            val timePositionMs: Long) : PlayerState()
+            val timePositionMs: Long,
+            val queueIndex: Int = 0,
+            val queueSize: Int = 1) : PlayerState()
 }
+
+/**
+ * This state as seen by the source with the [id]; idle unless that source is assigned.
+ */
+fun PlayerState.ofSource(id: Id): PlayerState =
+        when (this) {
+            PlayerState.Idle -> this
+            is PlayerState.Assigned -> if (source.id == id) this else PlayerState.Idle
+        }
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.futurice.freesound.feature.audio
+
+import com.futurice.freesound.network.api.ApiConstants.TOKEN_QUERY_PARAM
+import okhttp3.HttpUrl
+
+/**
+ * The key of a preview in the audio cache: its URL without the API token, which identifies the
+ * app rather than the preview, so that a change of token doesn't orphan cached previews.
+ */
+internal fun previewCacheKey(url: String): String {
+    val httpUrl = HttpUrl.parse(url) ?: return url
+    if (httpUrl.queryParameter(TOKEN_QUERY_PARAM) == null) return url
+    return httpUrl.newBuilder()
+            .removeAllQueryParameters(TOKEN_QUERY_PARAM)
+            .build()
+            .toString()
+}
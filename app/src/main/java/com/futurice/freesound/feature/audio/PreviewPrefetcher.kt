@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.futurice.freesound.feature.audio
+
+import io.reactivex.Completable
+import io.reactivex.Scheduler
+import timber.log.Timber
+import java.util.*
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * Loads the start of audio previews ahead of playback, so that playing one of them starts from
+ * local bytes rather than waiting for the network.
+ *
+ * Each call to [prefetch] replaces the previews wanted, in priority order. Those no longer wanted
+ * are cancelled, such as those of rows scrolled out of view. At most [maxConcurrent] previews are
+ * loaded at once, the rest waiting in a queue.
+ */
+internal class PreviewPrefetcher(private val loader: PreviewLoader,
+                                 private val scheduler: Scheduler,
+                                 private val maxConcurrent: Int = DEFAULT_MAX_CONCURRENT) {
+
+    private val pending = ArrayDeque<String>()
+    private val inFlight = HashMap<String, Load>()
+
+    init {
+        require(maxConcurrent > 0) { "maxConcurrent must be positive: $maxConcurrent" }
+    }
+
+    @Synchronized
+    fun prefetch(urls: List<String>) {
+        val wanted = LinkedHashSet(urls)
+        val loads = inFlight.values.iterator()
+        while (loads.hasNext()) {
+            val load = loads.next()
+            if (load.url !in wanted) {
+                load.cancel()
+                loads.remove()
+            }
+        }
+        pending.clear()
+        wanted.filterTo(pending) { it !in inFlight && !loader.isLoaded(it) }
+        startPending()
+    }
+
+    @Synchronized
+    fun cancelAll() {
+        inFlight.values.forEach { it.cancel() }
+        inFlight.clear()
+        pending.clear()
+    }
+
+    @Synchronized
+    fun inFlightCount(): Int = inFlight.size
+
+    private fun startPending() {
+        while (inFlight.size < maxConcurrent && pending.isNotEmpty()) {
+            val load = Load(pending.removeFirst())
+            inFlight[load.url] = load
+            // Not disposed when cancelled, as interrupting the load would only surface as an
+            // undeliverable error. The loader stops on its own once it sees the flag.
+            Completable.fromAction { loader.load(load.url, load.isCanceled) }
+                    .subscribeOn(scheduler)
+                    .subscribe({ onFinished(load) })
+                    {
+                        if (!load.isCanceled.get()) {
+                            Timber.w(it, "Unable to prefetch preview: %s", load.url)
+                        }
+                        onFinished(load)
+                    }
+        }
+    }
+
+    @Synchronized
+    private fun onFinished(load: Load) {
+        // A cancelled load may have been replaced by a new one of the same preview.
+        if (inFlight[load.url] === load) {
+            inFlight.remove(load.url)
+            startPending()
+        }
+    }
+
+    private class Load(val url: String) {
+        val isCanceled = AtomicBoolean(false)
+
+        fun cancel() = isCanceled.set(true)
+    }
+
+    companion object {
+        const val DEFAULT_MAX_CONCURRENT = 2
+    }
+}
+
+/**
+ * Loads the start of a preview, wherever the player will read it from.
+ */
+internal interface PreviewLoader {
+
+    fun isLoaded(url: String): Boolean
+
+    /**
+     * Blocks until loaded, or until [isCanceled] is set.
+     */
+    fun load(url: String, isCanceled: AtomicBoolean)
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.audio
+
+import com.futurice.freesound.network.api.NetworkBandwidthMeter
+import com.futurice.freesound.network.api.model.Preview
+import com.futurice.freesound.network.api.model.Sound
+import com.google.android.exoplayer2.DefaultLoadControl
+
+/**
+ * The preview variants of a sound, with the nominal bitrates Freesound encodes them at.
+ */
+internal enum class PreviewQuality(val bitrateKbps: Long, val isHigh: Boolean) {
+    LOW_MP3(64, false),
+    LOW_OGG(80, false),
+    HIGH_MP3(128, true),
+    HIGH_OGG(192, true);
+
+    fun url(preview: Preview): String =
+            when (this) {
+                LOW_MP3 -> preview.lowQualityMp3Url
+                LOW_OGG -> preview.lowQualityOggUrl
+                HIGH_MP3 -> preview.highQualityMp3Url
+                HIGH_OGG -> preview.highQualityOggUrl
+            }
+}
+
+/**
+ * The preview chosen for a sound, with what the choice is expected to cost.
+ *
+ * @param bitrateEstimate the estimated bandwidth in bits per second when chosen.
+ * @param expectedBytes the size of the whole preview.
+ * @param expectedStartupMs the time to buffer enough of the preview to start playing, or -1
+ * without a bandwidth estimate.
+ */
+internal data class PreviewChoice(val quality: PreviewQuality,
+                                  val url: String,
+                                  val bitrateEstimate: Long,
+                                  val expectedBytes: Long,
+                                  val expectedStartupMs: Long)
+
+/**
+ * Chooses the preview variant for a sound from the estimated network bandwidth.
+ *
+ * The high quality previews are chosen only when the bandwidth could sustain them
+ * [HIGH_QUALITY_HEADROOM] times over, as the estimate is noisy and the bandwidth shared. Of the
+ * variants of the chosen quality, the one of the lowest bitrate is preferred; that is MP3 at
+ * Freesound's nominal bitrates.
+ */
+internal class PreviewQualitySelector(private val bandwidthMeter: NetworkBandwidthMeter) {
+
+    companion object {
+        const val HIGH_QUALITY_HEADROOM = 2
+    }
+
+    fun select(sound: Sound): PreviewChoice {
+        val bitrateEstimate = bandwidthMeter.bitrateEstimate()
+        val high = smallest(isHigh = true)
+        val quality =
+                if (bitrateEstimate != NetworkBandwidthMeter.NO_ESTIMATE
+                        && bitrateEstimate >= high.bitrateKbps * 1000 * HIGH_QUALITY_HEADROOM) high
+                else smallest(isHigh = false)
+
+        return PreviewChoice(quality,
+                quality.url(sound.previews),
+                bitrateEstimate,
+                expectedBytes(quality, sound.duration),
+                expectedStartupMs(quality, bitrateEstimate))
+    }
+
+    private fun smallest(isHigh: Boolean): PreviewQuality =
+            PreviewQuality.values()
+                    .filter { it.isHigh == isHigh }
+                    .minBy { it.bitrateKbps }!!
+
+    private fun expectedBytes(quality: PreviewQuality, durationSec: Float): Long =
+            (quality.bitrateKbps * 1000 / 8 * durationSec).toLong()
+
+    private fun expectedStartupMs(quality: PreviewQuality, bitrateEstimate: Long): Long =
+            if (bitrateEstimate == NetworkBandwidthMeter.NO_ESTIMATE || bitrateEstimate == 0L) -1
+            else quality.bitrateKbps * 1000 * DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_MS / bitrateEstimate
+}
@@ -17,6 +17,7 @@
 package com.futurice.freesound.feature.common;
 
 import com.futurice.freesound.common.utils.AndroidPreconditions;
+import com.futurice.freesound.feature.details.DetailsActivity;
 import com.futurice.freesound.feature.search.SearchActivity;
 import com.futurice.freesound.network.api.model.Sound;
 
@@ -43,7 +44,9 @@ public final class DefaultNavigator implements Navigator {
 
     @Override
     public void openSoundDetails(@NonNull final Sound sound) {
-        // TODO Via the DetailsActivity.open
+        AndroidPreconditions.assertUiThread();
+
+        DetailsActivity.open(activity, sound);
     }
 
 }
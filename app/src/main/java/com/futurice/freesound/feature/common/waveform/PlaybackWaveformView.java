@@ -34,6 +34,9 @@ import static com.futurice.freesound.common.utils.Preconditions.get;
 
 public class PlaybackWaveformView extends FrameLayout implements WaveformRender {
 
+    // As set in the layout, used until the progress bar has been laid out.
+    private static final int DEFAULT_PROGRESS_RESOLUTION = 100;
+
     @BindView(R.id.waveformView_soundItem)
     WaveformView waveformView;
 
@@ -69,6 +72,12 @@ public class PlaybackWaveformView extends FrameLayout implements WaveformRender
     private void init() {
         inflate(getContext(), R.layout.view_playbackwaveform, this);
         ButterKnife.bind(this);
+        playbackProgressBar.addOnLayoutChangeListener(
+                (v, left, top, right, bottom, oldLeft, oldTop, oldRight, oldBottom) -> {
+                    if (right - left != oldRight - oldLeft) {
+                        playbackProgressBar.setMax(progressResolution());
+                    }
+                });
     }
 
     @Override
@@ -85,12 +94,26 @@ public class PlaybackWaveformView extends FrameLayout implements WaveformRender
         durationTextView.setText(DateUtils.formatElapsedTime(duration));
     }
 
-    public void setProgress(@NonNull final Option<Integer> progressPercentage) {
-        get(progressPercentage)
+    /**
+     * @return the number of steps of the progress, one per pixel of the progress bar's drawable.
+     */
+    public int progressResolution() {
+        int width = playbackProgressBar.getWidth()
+                    - playbackProgressBar.getPaddingLeft()
+                    - playbackProgressBar.getPaddingRight();
+        return width > 0 ? width : DEFAULT_PROGRESS_RESOLUTION;
+    }
+
+    /**
+     * @param progress the progress in steps up to the {@link #progressResolution()}. When none,
+     *                 the bar is hidden but still laid out, so that its width stays known.
+     */
+    public void setProgress(@NonNull final Option<Integer> progress) {
+        get(progress)
                 .matchAction(p -> {
                                  playbackProgressBar.setVisibility(VISIBLE);
                                  playbackProgressBar.setProgress(p);
                              },
-                             () -> playbackProgressBar.setVisibility(GONE));
+                             () -> playbackProgressBar.setVisibility(INVISIBLE));
     }
 }
@@ -18,18 +18,126 @@ package com.futurice.freesound.feature.details
 
 import android.content.Context
 import android.content.Intent
-import androidx.appcompat.app.AppCompatActivity
+import android.os.Bundle
+import android.text.format.Formatter
+import android.view.View
+import com.futurice.freesound.R
+import com.futurice.freesound.app.FreesoundApplication
+import com.futurice.freesound.arch.mvvm.DataBinder
+import com.futurice.freesound.arch.mvvm.SimpleDataBinder
+import com.futurice.freesound.arch.mvvm.ViewModel
+import com.futurice.freesound.arch.mvvm.view.MvvmBaseActivity
+import com.futurice.freesound.common.rx.plusAssign
+import com.futurice.freesound.feature.common.scheduling.SchedulerProvider
+import com.futurice.freesound.inject.activity.BaseActivityModule
 import com.futurice.freesound.inject.activity.ForActivity
 import com.futurice.freesound.network.api.model.Sound
+import com.futurice.freesound.network.api.model.SoundDetails
+import com.squareup.picasso.Picasso
+import io.reactivex.disposables.CompositeDisposable
+import kotlinx.android.synthetic.main.activity_details.*
+import timber.log.Timber.e
+import java.text.DateFormat
+import javax.inject.Inject
+
+class DetailsActivity : MvvmBaseActivity<DetailsActivityComponent>() {
+
+    @Inject
+    internal lateinit var detailsViewModel: DetailsViewModel
+
+    @Inject
+    internal lateinit var picasso: Picasso
+
+    @Inject
+    internal lateinit var schedulerProvider: SchedulerProvider
+
+    private val dataBinder = object : SimpleDataBinder() {
+
+        override fun bind(d: CompositeDisposable) {
+            d += detailsViewModel.detailsStateOnceAndStream
+                    .observeOn(schedulerProvider.ui())
+                    .subscribe({ render(it) })
+                    { e(it, "Error receiving sound details") }
+        }
+    }
+
+    override fun onCreate(savedInstanceState: Bundle?) {
+        super.onCreate(savedInstanceState)
+        setContentView(R.layout.activity_details)
+        setSupportActionBar(toolbar_details)
+        title = intent.getStringExtra(SOUND_NAME_PARAM)
+    }
+
+    override fun onDestroy() {
+        picasso.cancelRequest(details_waveform_imageView)
+        super.onDestroy()
+    }
+
+    override fun viewModel(): ViewModel = detailsViewModel
+
+    override fun dataBinder(): DataBinder = dataBinder
+
+    override fun inject() {
+        component().inject(this)
+    }
+
+    override fun createComponent(): DetailsActivityComponent =
+            (application as FreesoundApplication).component()
+                    .plusDetailsActivityComponent(BaseActivityModule(this),
+                            DetailsActivityModule(intent.getLongExtra(SOUND_ID_PARAM, NO_SOUND_ID)))
+
+    private fun render(state: DetailsState) {
+        details_loading_progressBar.visibility =
+                if (state is DetailsState.Loading) View.VISIBLE else View.GONE
+        details_error_textView.visibility =
+                if (state is DetailsState.Error) View.VISIBLE else View.GONE
+        details_container.visibility =
+                if (state is DetailsState.Loaded) View.VISIBLE else View.GONE
+        if (state is DetailsState.Loaded) {
+            showDetails(state.details)
+        }
+    }
+
+    private fun showDetails(details: SoundDetails) {
+        title = details.name
+        picasso.load(details.images.largeSizeWaveformUrl)
+                .into(details_waveform_imageView)
+
+        details_name_textView.text = details.name
+        details_username_textView.text = details.username
+        details_date_textView.text = DateFormat.getDateInstance().format(details.created)
+        details_description_textView.text = details.description
+        details_tags_textView.text = details.tags.joinToString(separator = ", ")
+        val durationSeconds = Math.max(1, Math.ceil(details.duration.toDouble()).toInt())
+        details_duration_textView.text = getString(R.string.details_duration, durationSeconds)
+        details_file_textView.text = getString(R.string.details_file,
+                details.type,
+                details.channels,
+                details.samplerate.toInt(),
+                details.bitdepth,
+                Formatter.formatShortFileSize(this, details.filesize))
+        details_license_textView.text = details.license
+        details_url_textView.text = details.url
+
+        val geotag = details.geotag
+        details_geotag_textView.visibility = if (geotag == null) View.GONE else View.VISIBLE
+        if (geotag != null) {
+            details_geotag_textView.text =
+                    getString(R.string.details_geotag, geotag.latitude, geotag.longitude)
+        }
+    }
 
-class DetailsActivity : AppCompatActivity() {
     companion object {
 
-        private val SOUND_PARAM = "sound"
+        private const val SOUND_ID_PARAM = "sound_id"
+        private const val SOUND_NAME_PARAM = "sound_name"
+        private const val NO_SOUND_ID = -1L
 
+        @JvmStatic
         fun open(@ForActivity context: Context, sound: Sound) {
             val intent = Intent(context, DetailsActivity::class.java).apply {
-                putExtra(SOUND_PARAM, sound)
+                putExtra(SOUND_ID_PARAM, sound.id)
+                putExtra(SOUND_NAME_PARAM, sound.name)
             }
             context.startActivity(intent)
         }
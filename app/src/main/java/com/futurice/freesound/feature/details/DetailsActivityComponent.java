@@ -0,0 +1,30 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.details;
+
+import com.futurice.freesound.inject.activity.ActivityScope;
+import com.futurice.freesound.inject.activity.BaseActivityComponent;
+
+import dagger.Subcomponent;
+
+@ActivityScope
+@Subcomponent(modules = DetailsActivityModule.class)
+public interface DetailsActivityComponent extends BaseActivityComponent {
+
+    void inject(final DetailsActivity activity);
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.details;
+
+import com.futurice.freesound.feature.common.scheduling.SchedulerProvider;
+import com.futurice.freesound.inject.activity.ActivityScope;
+import com.futurice.freesound.inject.activity.BaseActivityModule;
+import com.futurice.freesound.network.api.FreeSoundApiClient;
+
+import dagger.Module;
+import dagger.Provides;
+
+@Module(includes = BaseActivityModule.class)
+public class DetailsActivityModule {
+
+    private final long soundId;
+
+    DetailsActivityModule(final long soundId) {
+        this.soundId = soundId;
+    }
+
+    @Provides
+    @ActivityScope
+    DetailsViewModel provideDetailsViewModel(FreeSoundApiClient freeSoundApiClient,
+                                             SchedulerProvider schedulerProvider) {
+        return new DetailsViewModel(soundId, freeSoundApiClient, schedulerProvider);
+    }
+
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.details
+
+import com.futurice.freesound.network.api.model.SoundDetails
+
+sealed class DetailsState {
+    object Loading : DetailsState()
+    data class Loaded(val details: SoundDetails) : DetailsState()
+    data class Error(val throwable: Throwable) : DetailsState()
+}
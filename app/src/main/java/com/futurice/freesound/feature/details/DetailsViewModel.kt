@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.details
+
+import com.futurice.freesound.arch.mvvm.BaseViewModel
+import com.futurice.freesound.common.rx.plusAssign
+import com.futurice.freesound.feature.common.scheduling.SchedulerProvider
+import com.futurice.freesound.network.api.FreeSoundApiClient
+import io.reactivex.Observable
+import io.reactivex.disposables.CompositeDisposable
+import io.reactivex.subjects.BehaviorSubject
+import timber.log.Timber.e
+
+/**
+ * Fetches the [DetailsState] of a single sound.
+ *
+ * Lists only hold the compact [com.futurice.freesound.network.api.model.Sound], so the full
+ * details are fetched by id once the screen is created.
+ */
+internal class DetailsViewModel(private val soundId: Long,
+                                private val freeSoundApiClient: FreeSoundApiClient,
+                                private val schedulerProvider: SchedulerProvider) : BaseViewModel() {
+
+    private val detailsStateStream = BehaviorSubject.createDefault<DetailsState>(DetailsState.Loading)
+
+    override fun bind(d: CompositeDisposable) {
+        d += freeSoundApiClient.getSound(soundId)
+                .map<DetailsState> { DetailsState.Loaded(it) }
+                .onErrorReturn { DetailsState.Error(it) }
+                .subscribeOn(schedulerProvider.computation())
+                .subscribe({ detailsStateStream.onNext(it) })
+                { e(it, "Fatal error when fetching sound details") }
+    }
+
+    override fun unbind() {
+        // Nothing to release, the fetch is disposed with the bindings.
+    }
+
+    val detailsStateOnceAndStream: Observable<DetailsState>
+        get() = detailsStateStream.observeOn(schedulerProvider.computation())
+
+}
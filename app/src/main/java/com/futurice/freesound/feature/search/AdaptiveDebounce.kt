@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.search
+
+// The weight of each new sample in the moving averages.
+private const val SMOOTHING = 0.3
+
+// Waiting somewhat longer than a typical keystroke interval means most keystrokes of a word
+// arrive before its query is sent.
+private const val KEYSTROKE_INTERVAL_MARGIN = 1.5
+
+// A slow API makes a wasted query more costly, so wait a little longer before sending one.
+private const val LATENCY_WEIGHT = 0.25
+
+private const val NO_KEYSTROKE = Long.MIN_VALUE
+
+/**
+ * Picks the delay before searching for the text being typed, learning from the user's typing
+ * speed and the observed search latency.
+ *
+ * A fast typist waits little longer than their keystroke interval; a slow one waits longer,
+ * rather than sending a query between each keystroke. Longer pauses are taken to be the end of
+ * a query, rather than slow typing, so they are not learnt from.
+ *
+ * All times are in milliseconds, and the delay is always within [minDelayMs] and [maxDelayMs].
+ */
+internal class AdaptiveDebounce(private val minDelayMs: Long,
+                                private val maxDelayMs: Long,
+                                initialKeystrokeIntervalMs: Long = maxDelayMs / 3) {
+
+    private var keystrokeIntervalMs: Double = initialKeystrokeIntervalMs.toDouble()
+    private var latencyMs: Double = 0.0
+    private var lastKeystrokeMs: Long = NO_KEYSTROKE
+
+    init {
+        require(minDelayMs in 0..maxDelayMs) { "Invalid delay range: $minDelayMs to $maxDelayMs" }
+    }
+
+    @Synchronized
+    fun onKeystroke(timeMs: Long) {
+        if (lastKeystrokeMs != NO_KEYSTROKE) {
+            val intervalMs = timeMs - lastKeystrokeMs
+            if (intervalMs in 0..maxDelayMs) {
+                keystrokeIntervalMs = smooth(keystrokeIntervalMs, intervalMs)
+            }
+        }
+        lastKeystrokeMs = timeMs
+    }
+
+    @Synchronized
+    fun onSearchCompleted(latencyMs: Long) {
+        this.latencyMs = smooth(this.latencyMs, latencyMs)
+    }
+
+    @Synchronized
+    fun delayMs(): Long {
+        val delayMs = keystrokeIntervalMs * KEYSTROKE_INTERVAL_MARGIN + latencyMs * LATENCY_WEIGHT
+        return delayMs.toLong().coerceIn(minDelayMs, maxDelayMs)
+    }
+
+    private fun smooth(average: Double, sample: Long): Double =
+            average + SMOOTHING * (sample - average)
+
+}
@@ -15,18 +15,45 @@
  */
 package com.futurice.freesound.feature.search
 
+import androidx.paging.DataSource
 import com.futurice.freesound.feature.common.scheduling.SchedulerProvider
+import com.futurice.freesound.feature.user.UserRepository
 import com.futurice.freesound.network.api.FreeSoundApiClient
+import com.futurice.freesound.network.api.model.SearchQuery
 import com.futurice.freesound.network.api.model.Sound
+import com.futurice.freesound.network.api.model.SoundFields
+import com.futurice.freesound.network.api.model.SoundSearchResult
+import com.futurice.freesound.store.CacheStats
 import io.reactivex.Completable
 import io.reactivex.Observable
+import io.reactivex.Single
+import io.reactivex.functions.BiFunction
 import io.reactivex.functions.Function3
 import io.reactivex.subjects.BehaviorSubject
 import io.reactivex.subjects.Subject
 import polanski.option.Option
 import polanski.option.OptionUnsafe
+import timber.log.Timber
+import java.io.IOException
 
+/**
+ * Searches the Freesound API, reusing the results of recent searches from a [SearchResultCache].
+ *
+ * A cached result is reported immediately, without waiting for the preliminary task. If it
+ * needs a refresh, that then happens in the background, only reporting the results if they
+ * differ.
+ *
+ * Otherwise, the sounds already fetched which match are reported from [LocalSoundSearch] while
+ * the search is in progress. Once the remote results are exhausted, local matches missing from
+ * them are appended. If the network is unreachable, the local matches are reported instead.
+ *
+ * The tags of fetched results are recorded as [SearchSuggestions].
+ */
 internal class DefaultSearchRepository(private val freeSoundApiClient: FreeSoundApiClient,
+                                       private val userRepository: UserRepository,
+                                       private val resultCache: SearchResultCache,
+                                       private val searchSuggestions: SearchSuggestions,
+                                       private val localSoundSearch: LocalSoundSearch,
                                        private val schedulerProvider: SchedulerProvider) : SearchRepository {
 
     private val inProgressOnceAndStream: Subject<Boolean> =
@@ -35,19 +62,86 @@ internal class DefaultSearchRepository(private val freeSoundApiClient: FreeSound
             BehaviorSubject.createDefault(Option.none())
     private val errorOnceAndStream: Subject<Option<Throwable>> =
             BehaviorSubject.createDefault(Option.none())
+    private val pagedResultsOnceAndStream: Subject<DataSource.Factory<String, Sound>> =
+            BehaviorSubject.create()
+
+    @Volatile
+    private var latestPagedResults: SoundSearchDataSource.Factory? = null
 
-    override fun querySearch(query: String,
+    override fun querySearch(query: SearchQuery,
                              preliminaryTask: Completable): Completable {
+        return resultCache.get(query)
+                .doOnSuccess { reportResults(it.result) }
+                .map { if (it.needsRefresh) refresh(query, it.result, preliminaryTask) else Completable.complete() }
+                .toSingle(search(query, preliminaryTask))
+                .flatMapCompletable { it }
+    }
+
+    override fun getResultCacheStats(): CacheStats = resultCache.stats()
+
+    private fun search(query: SearchQuery, preliminaryTask: Completable): Completable {
+        val localMatches = localSoundSearch.search(query)
+                .doOnError { Timber.w(it, "Unable to search local sounds") }
+                .onErrorReturnItem(emptyList())
+                .cache()
         // FIXME Not sure about this doFinally or why it is commented out.
-        return preliminaryTask.doOnSubscribe { reportInProgress() } //   .doFinally(this::reportNotInProgress)
-                .andThen(freeSoundApiClient.search(query)
-                        .map { it.results }
+        return Completable.mergeArray(
+                preliminaryTask.doOnSubscribe { reportInProgress() }, //   .doFinally(this::reportNotInProgress)
+                localMatches.doOnSuccess { if (it.isNotEmpty()) reportLocalResults(it) }.ignoreElement())
+                .andThen(fetch(query)
+                        .zipWith(localMatches,
+                                BiFunction { remote: SoundSearchResult, local: List<Sound> -> merge(remote, local) })
+                        // If the network is unreachable, answer from the local sounds instead.
+                        .onErrorResumeNext { error: Throwable ->
+                            localMatches.flatMap { local ->
+                                if (error is IOException && local.isNotEmpty()) Single.just(localResult(local))
+                                else Single.error<SoundSearchResult>(error)
+                            }
+                        }
                         .doOnSuccess { reportResults(it) }
                         .doOnError { reportError(it) }
-                        .ignoreElement()
+                        // Warm the user store while the results are bound, rather than each row
+                        // fetching its own user.
+                        .flatMapCompletable { userRepository.prefetchUsers(it.usernames()) }
+                        .onErrorComplete())
+    }
+
+    // Keeps the cached results on screen while refreshing; a failure leaves them there.
+    // The refresh bypasses the HTTP cache, which would otherwise answer with the same stale body.
+    private fun refresh(query: SearchQuery,
+                        cached: SoundSearchResult,
+                        preliminaryTask: Completable): Completable {
+        return preliminaryTask
+                .andThen(store(query, freeSoundApiClient.refreshSearch(query, SoundFields.LIST))
+                        .filter { it != cached }
+                        .doOnSuccess { reportResults(it) }
+                        .flatMapCompletable { userRepository.prefetchUsers(it.usernames()) }
+                        .doOnError { Timber.w(it, "Unable to refresh search results") }
                         .onErrorComplete())
     }
 
+    private fun fetch(query: SearchQuery): Single<SoundSearchResult> =
+            store(query, freeSoundApiClient.search(query, SoundFields.LIST))
+
+    private fun store(query: SearchQuery, search: Single<SoundSearchResult>): Single<SoundSearchResult> =
+            search.flatMap { resultCache.put(query, it).toSingleDefault(it) }
+                    // Not waited for, as the results shouldn't be held back by the suggestions.
+                    .doOnSuccess { result ->
+                        searchSuggestions.recordResults(result.results)
+                                .subscribe({}) { Timber.w(it, "Unable to record search suggestions") }
+                        localSoundSearch.record(result.results)
+                                .subscribe({}) { Timber.w(it, "Unable to record local sounds") }
+                    }
+
+    // Local matches are only appended to the last remote page, so as not to disturb paging.
+    private fun merge(remote: SoundSearchResult, local: List<Sound>): SoundSearchResult {
+        if (remote.next != null || local.isEmpty()) return remote
+        val remoteIds = remote.results.mapTo(HashSet()) { it.id }
+        val localOnly = local.filter { it.id !in remoteIds }
+        return if (localOnly.isEmpty()) remote
+        else remote.copy(count = remote.count + localOnly.size, results = remote.results + localOnly)
+    }
+
     override fun getSearchStateOnceAndStream(): Observable<SearchState> =
             Observable.combineLatest(resultsOnceAndStream,
                     errorOnceAndStream,
@@ -60,6 +154,11 @@ internal class DefaultSearchRepository(private val freeSoundApiClient: FreeSound
                     .observeOn(schedulerProvider.computation())
                     .distinctUntilChanged()
 
+    override fun getPagedResultsOnceAndStream(): Observable<DataSource.Factory<String, Sound>> =
+            pagedResultsOnceAndStream.observeOn(schedulerProvider.computation())
+
+    override fun retryFailedPage(): Completable = Completable.fromAction { latestPagedResults?.retry() }
+
     override fun clear(): Completable = Completable.fromAction { reportClear() }
 
     private fun reportClear() {
@@ -71,18 +170,33 @@ internal class DefaultSearchRepository(private val freeSoundApiClient: FreeSound
     private fun reportInProgress() =
             inProgressOnceAndStream.onNext(true)
 
-    private fun reportResults(results: List<Sound>) {
-        resultsOnceAndStream.onNext(Option.ofObj(results))
+    private fun reportResults(firstPage: SoundSearchResult) {
+        pagedResultsOnceAndStream.onNext(pagedResults(firstPage))
+        resultsOnceAndStream.onNext(Option.ofObj(firstPage.results))
         errorOnceAndStream.onNext(Option.none())
         inProgressOnceAndStream.onNext(false)
     }
 
+    // Reported as results of the search still in progress.
+    private fun reportLocalResults(sounds: List<Sound>) {
+        pagedResultsOnceAndStream.onNext(pagedResults(localResult(sounds)))
+        resultsOnceAndStream.onNext(Option.ofObj(sounds))
+        errorOnceAndStream.onNext(Option.none())
+    }
+
+    private fun pagedResults(firstPage: SoundSearchResult): DataSource.Factory<String, Sound> =
+            SoundSearchDataSource.Factory(firstPage, freeSoundApiClient, userRepository, localSoundSearch)
+                    .also { latestPagedResults = it }
+
     private fun reportError(e: Throwable) {
         errorOnceAndStream.onNext(Option.ofObj(e))
         inProgressOnceAndStream.onNext(false)
     }
 
     companion object {
+        private fun localResult(sounds: List<Sound>): SoundSearchResult =
+                SoundSearchResult(count = sounds.size, next = null, results = sounds, previous = null)
+
         private fun combine(results: Option<List<Sound>>,
                             error: Option<Throwable>,
                             inProgress: Boolean): SearchState {
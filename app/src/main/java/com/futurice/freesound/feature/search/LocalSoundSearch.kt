@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.search
+
+import com.futurice.freesound.network.api.model.SearchQuery
+import com.futurice.freesound.network.api.model.Sound
+import com.squareup.moshi.JsonAdapter
+import com.squareup.moshi.JsonDataException
+import io.reactivex.Completable
+import io.reactivex.Scheduler
+import io.reactivex.Single
+import okio.Okio
+import timber.log.Timber
+import java.io.File
+import java.io.IOException
+
+private const val TEMP_SUFFIX = ".tmp"
+
+/**
+ * Searches the sounds the app has already fetched, without the network, from a [SoundIndex].
+ *
+ * The sounds are persisted to [file] as a journal of one JSON sound per line, so that recording
+ * a page of results only appends that page. The index is loaded from the journal on first use,
+ * and the journal rewritten once it is mostly superseded or evicted sounds.
+ */
+internal class LocalSoundSearch(private val file: File,
+                                private val adapter: JsonAdapter<Sound>,
+                                private val index: SoundIndex,
+                                private val scheduler: Scheduler) {
+
+    // Only accessed while holding the index's lock.
+    private var journalLength = 0
+
+    private val load: Completable = Completable.fromAction { synchronized(index) { load() } }
+            .doOnError { Timber.w(it, "Unable to load local sounds") }
+            .onErrorComplete()
+            .subscribeOn(scheduler)
+            .cache()
+
+    /**
+     * Emits the sounds matching the query, or none if the query can't be answered locally.
+     */
+    fun search(query: SearchQuery): Single<List<Sound>> =
+            load.andThen(Single.fromCallable { index.search(query) })
+
+    /**
+     * Indexes the sounds and appends them to the journal.
+     */
+    fun record(sounds: List<Sound>): Completable =
+            load.andThen(Completable.fromAction {
+                synchronized(index) {
+                    sounds.forEach { index.add(it) }
+                    append(sounds)
+                }
+            }).subscribeOn(scheduler)
+
+    private fun load() {
+        if (!file.exists()) return
+        var isMalformed = false
+        Okio.buffer(Okio.source(file)).use { source ->
+            while (true) {
+                val line = source.readUtf8Line() ?: break
+                journalLength++
+                try {
+                    adapter.fromJson(line)?.let { index.add(it) }
+                } catch (e: JsonDataException) {
+                    isMalformed = true
+                } catch (e: IOException) {
+                    isMalformed = true
+                }
+            }
+        }
+        // Such as the last line, if the app died while appending it. As later sounds would be
+        // appended to that line, the journal is rewritten without it.
+        if (isMalformed) {
+            Timber.w("Ignoring malformed local sounds in: %s", file)
+            compact()
+        } else {
+            compactIfSuperseded()
+        }
+    }
+
+    private fun append(sounds: List<Sound>) {
+        Okio.buffer(Okio.appendingSink(file)).use { sink ->
+            sounds.forEach { sink.writeUtf8(adapter.toJson(it)).writeByte('\n'.toInt()) }
+        }
+        journalLength += sounds.size
+        compactIfSuperseded()
+    }
+
+    private fun compactIfSuperseded() {
+        if (journalLength > 2 * index.size()) compact()
+    }
+
+    private fun compact() {
+        val sounds = index.sounds()
+        val temp = File(file.path + TEMP_SUFFIX)
+        Okio.buffer(Okio.sink(temp)).use { sink ->
+            sounds.forEach { sink.writeUtf8(adapter.toJson(it)).writeByte('\n'.toInt()) }
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete()
+            throw IOException("Unable to replace: $file")
+        }
+        journalLength = sounds.size
+    }
+
+}
@@ -18,10 +18,14 @@ package com.futurice.freesound.feature.search
 
 import android.content.Context
 import android.content.Intent
+import android.database.Cursor
+import android.database.MatrixCursor
 import android.os.Bundle
+import android.provider.BaseColumns
 import android.view.View
 import androidx.appcompat.widget.SearchView
 import androidx.appcompat.widget.SearchView.OnQueryTextListener
+import androidx.cursoradapter.widget.SimpleCursorAdapter
 import com.futurice.freesound.R
 import com.futurice.freesound.app.FreesoundApplication
 import com.futurice.freesound.arch.mvvm.DataBinder
@@ -72,6 +76,11 @@ class SearchActivity : MvvmBaseActivity<SearchActivityComponent>() {
                     .observeOn(schedulerProvider.ui())
                     .subscribe({ handleErrorState(it) })
                     { e(it, "Error receiving Errors") }
+
+            d += searchViewModel.suggestionsOnceAndStream
+                    .observeOn(schedulerProvider.ui())
+                    .subscribe({ showSuggestions(it) })
+                    { e(it, "Error receiving suggestions") }
         }
 
         private fun SearchView.subscribeToSearchView(emitter: ObservableEmitter<String>) {
@@ -100,9 +109,29 @@ class SearchActivity : MvvmBaseActivity<SearchActivityComponent>() {
                 setQuery(NO_SEARCH, true)
                 true
             }
+            suggestionsAdapter = SimpleCursorAdapter(context,
+                    android.R.layout.simple_list_item_1,
+                    null,
+                    arrayOf(SUGGESTION_COLUMN),
+                    intArrayOf(android.R.id.text1),
+                    0)
+            setOnSuggestionListener(object : SearchView.OnSuggestionListener {
+                override fun onSuggestionSelect(position: Int): Boolean = false
+
+                override fun onSuggestionClick(position: Int): Boolean {
+                    val cursor = suggestionsAdapter.getItem(position) as Cursor
+                    setQuery(cursor.getString(cursor.getColumnIndex(SUGGESTION_COLUMN)), false)
+                    return true
+                }
+            })
         }
     }
 
+    override fun onDestroy() {
+        search_view.suggestionsAdapter.changeCursor(null)
+        super.onDestroy()
+    }
+
     override fun viewModel(): ViewModel = searchViewModel
 
     override fun dataBinder(): DataBinder = dataBinder
@@ -134,6 +163,13 @@ class SearchActivity : MvvmBaseActivity<SearchActivityComponent>() {
         }
     }
 
+    private fun showSuggestions(suggestions: List<String>) {
+        val cursor = MatrixCursor(arrayOf(BaseColumns._ID, SUGGESTION_COLUMN), suggestions.size)
+        suggestions.forEachIndexed { id, suggestion -> cursor.addRow(arrayOf<Any>(id, suggestion)) }
+        // Closes the previous cursor.
+        search_view.suggestionsAdapter.changeCursor(cursor)
+    }
+
     private fun setClearSearchVisible(isClearButtonVisible: Boolean) {
         val closeButton: View = search_view.findViewById(R.id.search_close_btn)
         closeButton.visibility = if (isClearButtonVisible) View.VISIBLE else View.GONE
@@ -149,6 +185,8 @@ class SearchActivity : MvvmBaseActivity<SearchActivityComponent>() {
 
     companion object {
 
+        private const val SUGGESTION_COLUMN = "suggestion"
+
         @JvmStatic
         fun open(context: Context) {
             Intent(context, SearchActivity::class.java)
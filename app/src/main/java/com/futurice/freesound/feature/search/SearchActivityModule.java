@@ -21,6 +21,7 @@ import com.futurice.freesound.feature.analytics.Analytics;
 import com.futurice.freesound.feature.audio.AudioModule;
 import com.futurice.freesound.feature.audio.AudioPlayer;
 import com.futurice.freesound.feature.common.scheduling.SchedulerProvider;
+import com.futurice.freesound.feature.user.UserRepository;
 import com.futurice.freesound.inject.activity.ActivityScope;
 import com.futurice.freesound.inject.activity.BaseActivityModule;
 import com.futurice.freesound.network.api.FreeSoundApiClient;
@@ -36,18 +37,31 @@ public class SearchActivityModule {
     static SearchActivityViewModel provideSearchViewModel(SearchRepository searchRepository,
                                                           AudioPlayer audioPlayer,
                                                           Analytics analytics,
-                                                          SchedulerProvider schedulerProvider) {
+                                                          SchedulerProvider schedulerProvider,
+                                                          SearchLatencyStats searchLatencyStats,
+                                                          SearchSuggestions searchSuggestions) {
         return new SearchActivityViewModel(searchRepository,
                                            audioPlayer,
                                            analytics,
-                                           schedulerProvider);
+                                           schedulerProvider,
+                                           searchLatencyStats,
+                                           searchSuggestions);
     }
 
     @Provides
     @ActivityScope
     static SearchRepository provideSearchRepository(FreeSoundApiClient freeSoundApiClient,
+                                                   UserRepository userRepository,
+                                                   SearchResultCache searchResultCache,
+                                                   SearchSuggestions searchSuggestions,
+                                                   LocalSoundSearch localSoundSearch,
                                                    SchedulerProvider schedulerProvider) {
-        return new DefaultSearchRepository(freeSoundApiClient, schedulerProvider);
+        return new DefaultSearchRepository(freeSoundApiClient,
+                                           userRepository,
+                                           searchResultCache,
+                                           searchSuggestions,
+                                           localSoundSearch,
+                                           schedulerProvider);
     }
 
     @Provides
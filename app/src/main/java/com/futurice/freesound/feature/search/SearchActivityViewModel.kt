@@ -23,7 +23,9 @@ import com.futurice.freesound.common.rx.plusAssign
 import com.futurice.freesound.feature.analytics.Analytics
 import com.futurice.freesound.feature.audio.AudioPlayer
 import com.futurice.freesound.feature.common.scheduling.SchedulerProvider
+import com.futurice.freesound.network.api.model.SearchQuery
 import io.reactivex.Completable
+import io.reactivex.Maybe
 import io.reactivex.Observable
 import io.reactivex.disposables.CompositeDisposable
 import io.reactivex.subjects.BehaviorSubject
@@ -31,27 +33,41 @@ import timber.log.Timber.e
 import java.util.concurrent.TimeUnit
 
 @VisibleForTesting
-const val SEARCH_DEBOUNCE_TIME_SECONDS = 1
+const val MIN_SEARCH_DEBOUNCE_MS = 150L
+
+@VisibleForTesting
+const val MAX_SEARCH_DEBOUNCE_MS = 1000L
+
+// Shorter queries match too much of the catalogue to be useful.
+@VisibleForTesting
+const val MIN_QUERY_LENGTH = 2
 
 @VisibleForTesting
 const val SEARCH_DEBOUNCE_TAG = "SEARCH DEBOUNCE"
 
 const val NO_SEARCH = Text.EMPTY
 
+private const val NOT_DEBOUNCED = -1L
+
 internal class SearchActivityViewModel(private val searchRepository: SearchRepository,
                                        private val audioPlayer: AudioPlayer,
                                        private val analytics: Analytics,
-                                       private val schedulerProvider: SchedulerProvider) : BaseViewModel() {
+                                       private val schedulerProvider: SchedulerProvider,
+                                       private val searchLatencyStats: SearchLatencyStats,
+                                       private val searchSuggestions: SearchSuggestions) : BaseViewModel() {
 
     private val searchTermOnceAndStream = BehaviorSubject.createDefault(NO_SEARCH)
 
+    private val debounce = AdaptiveDebounce(MIN_SEARCH_DEBOUNCE_MS, MAX_SEARCH_DEBOUNCE_MS)
+
     override fun bind(d: CompositeDisposable) {
         audioPlayer.init()
 
         d += searchTermOnceAndStream.observeOn(schedulerProvider.computation())
                 .distinctUntilChanged()
+                // Disposing a superseded search also cancels its request.
                 .switchMap { query ->
-                    if (query.isNotEmpty())
+                    if (query.length >= MIN_QUERY_LENGTH)
                         querySearch(query).toObservable<Any>()
                     else
                         clearResults().toObservable<Any>()
@@ -65,6 +81,7 @@ internal class SearchActivityViewModel(private val searchRepository: SearchRepos
     }
 
     fun search(query: String) {
+        debounce.onKeystroke(now())
         searchTermOnceAndStream.onNext(query.trim())
     }
 
@@ -72,18 +89,66 @@ internal class SearchActivityViewModel(private val searchRepository: SearchRepos
         get() = searchTermOnceAndStream.observeOn(schedulerProvider.computation())
                 .map { isCloseEnabled(it) }
 
+    // Suggested as the user types, without waiting for the debounced search.
+    val suggestionsOnceAndStream: Observable<List<String>>
+        get() = searchTermOnceAndStream.observeOn(schedulerProvider.computation())
+                .distinctUntilChanged()
+                .switchMapSingle { searchSuggestions.suggestionsFor(it) }
+
     val searchStateOnceAndStream: Observable<SearchState>
         get() = searchRepository.searchStateOnceAndStream
 
-    private fun querySearch(query: String): Completable =
-            searchRepository.querySearch(query, debounceQuery())
+    private fun querySearch(query: String): Completable {
+        return Completable.defer {
+            val typedAtMs = now()
+            var debouncedAtMs = NOT_DEBOUNCED
+            // Merged ahead of the search, so the state it skips is the one preceding the search.
+            val firstResults = firstResultsOfSearch()
+                    .doOnSuccess { recordLatency(typedAtMs, debouncedAtMs) }
+                    .flatMapCompletable { recordSuggestion(query, it) }
+            Completable.mergeArray(firstResults,
+                    searchRepository.querySearch(SearchQuery(query),
+                            debounceQuery().doOnComplete { debouncedAtMs = now() }))
+        }
+    }
+
+    // Only a query which found sounds is worth suggesting again.
+    private fun recordSuggestion(query: String, results: SearchState): Completable =
+            if (results is SearchState.Success && results.sounds.isNotEmpty())
+                searchSuggestions.recordQuery(query)
+                        .doOnError { e(it, "Unable to record search suggestion") }
+                        .onErrorComplete()
+            else
+                Completable.complete()
+
+    // The search completes only once it has also prefetched users or refreshed a cached result,
+    // so the latency is measured up to when its results are first shown. A failure shows none.
+    private fun firstResultsOfSearch(): Maybe<SearchState> =
+            searchRepository.searchStateOnceAndStream
+                    .skip(1)
+                    .filter { it is SearchState.Success || it is SearchState.Error }
+                    .firstElement()
+                    .filter { it is SearchState.Success }
+
+    // A cached result isn't debounced, so only tells the end-to-end latency.
+    private fun recordLatency(typedAtMs: Long, debouncedAtMs: Long) {
+        val shownAtMs = now()
+        searchLatencyStats.recordKeystrokeToResults(shownAtMs - typedAtMs)
+        if (debouncedAtMs != NOT_DEBOUNCED) {
+            debounce.onSearchCompleted(shownAtMs - debouncedAtMs)
+        }
+    }
 
     private fun clearResults() = searchRepository.clear()
 
     private fun debounceQuery(): Completable =
-            Completable.timer(SEARCH_DEBOUNCE_TIME_SECONDS.toLong(),
-                    TimeUnit.SECONDS,
-                    schedulerProvider.time(SEARCH_DEBOUNCE_TAG))
+            Completable.defer {
+                Completable.timer(debounce.delayMs(),
+                        TimeUnit.MILLISECONDS,
+                        schedulerProvider.time(SEARCH_DEBOUNCE_TAG))
+            }
+
+    private fun now(): Long = schedulerProvider.time(SEARCH_DEBOUNCE_TAG).now(TimeUnit.MILLISECONDS)
 
     private fun isCloseEnabled(query: String): Boolean = query.isNotEmpty()
 }
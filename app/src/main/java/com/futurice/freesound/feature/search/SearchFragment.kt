@@ -23,6 +23,7 @@ import android.view.View.GONE
 import android.view.View.VISIBLE
 import android.view.ViewGroup
 import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
 import com.futurice.freesound.R
 import com.futurice.freesound.arch.mvvm.DataBinder
 import com.futurice.freesound.arch.mvvm.ViewModel
@@ -30,9 +31,10 @@ import com.futurice.freesound.arch.mvvm.view.MvvmBaseFragment
 import com.futurice.freesound.common.rx.plusAssign
 import com.futurice.freesound.feature.common.DisplayableItem
 import com.futurice.freesound.feature.common.scheduling.SchedulerProvider
-import com.futurice.freesound.feature.common.ui.adapter.MultiItemListAdapter
+import com.futurice.freesound.feature.common.ui.adapter.MultiItemPagedListAdapter
 import com.futurice.freesound.inject.fragment.BaseFragmentModule
 import com.futurice.freesound.network.api.model.Sound
+import io.reactivex.Observable
 import io.reactivex.disposables.CompositeDisposable
 import kotlinx.android.synthetic.main.fragment_search.*
 import polanski.option.Option
@@ -45,7 +47,7 @@ class SearchFragment : MvvmBaseFragment<SearchFragmentComponent>() {
     internal lateinit var searchFragmentViewModel: SearchFragmentViewModel
 
     @Inject
-    internal lateinit var searchResultAdapter: MultiItemListAdapter<Sound>
+    internal lateinit var searchResultAdapter: MultiItemPagedListAdapter<Sound>
 
     @Inject
     internal lateinit var schedulerProvider: SchedulerProvider
@@ -58,16 +60,47 @@ class SearchFragment : MvvmBaseFragment<SearchFragmentComponent>() {
                     .observeOn(schedulerProvider.ui())
                     .subscribe({ handleResults(it) })
                     { Timber.e(it, "Error setting Sound items") }
+            disposables += searchFragmentViewModel.pagedSoundsOnceAndStream
+                    .subscribeOn(schedulerProvider.computation())
+                    .observeOn(schedulerProvider.ui())
+                    .subscribe({ searchResultAdapter.submitList(it) })
+                    { Timber.e(it, "Error setting paged Sound items") }
             disposables += searchFragmentViewModel.searchStateOnceAndStream
                     .subscribeOn(schedulerProvider.computation())
                     .observeOn(schedulerProvider.ui())
                     .subscribe({ showProgress(it) })
                     { Timber.e(it, "Error receiving search triggered Events") }
+            disposables += recyclerView_searchResults.scrollStream()
+                    .subscribeOn(schedulerProvider.ui())
+                    .map { visibleSounds() }
+                    .distinctUntilChanged()
+                    .observeOn(schedulerProvider.computation())
+                    .subscribe({ searchFragmentViewModel.prefetchPreviews(it) })
+                    { Timber.e(it, "Error prefetching previews") }
+            disposables += recyclerView_searchResults.scrollStream()
+                    .subscribeOn(schedulerProvider.ui())
+                    .filter { !recyclerView_searchResults.canScrollVertically(1) }
+                    .observeOn(schedulerProvider.io())
+                    .flatMapCompletable { searchFragmentViewModel.retryFailedPage() }
+                    .subscribe({}) { Timber.e(it, "Error retrying search results page") }
         }
 
         override fun unbind() {
             searchFragmentViewModel.stopPlayback()
+            searchFragmentViewModel.cancelPrefetch()
         }
+
+        // Also emits after each layout which changes the visible items, such as new results.
+        private fun RecyclerView.scrollStream(): Observable<Unit> =
+                Observable.create<Unit> { emitter ->
+                    val listener = object : RecyclerView.OnScrollListener() {
+                        override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
+                            emitter.onNext(Unit)
+                        }
+                    }
+                    addOnScrollListener(listener)
+                    emitter.setCancellable { removeOnScrollListener(listener) }
+                }
     }
 
     override fun onCreateView(inflater: LayoutInflater,
@@ -97,6 +130,15 @@ class SearchFragment : MvvmBaseFragment<SearchFragmentComponent>() {
 
     override fun dataBinder(): DataBinder = dataBinder
 
+    private fun visibleSounds(): List<Sound> {
+        val layoutManager = recyclerView_searchResults.layoutManager as LinearLayoutManager
+        val first = layoutManager.findFirstVisibleItemPosition()
+        val items = searchResultAdapter.currentList
+        if (first == RecyclerView.NO_POSITION || items == null) return emptyList()
+        return (first..layoutManager.findLastVisibleItemPosition())
+                .mapNotNull { items.getOrNull(it)?.model }
+    }
+
     private fun handleResults(results: Option<List<DisplayableItem<Sound>>>) {
         results.ifSome { showResults(it) }
                 .ifNone { showNothing() }
@@ -114,7 +156,6 @@ class SearchFragment : MvvmBaseFragment<SearchFragmentComponent>() {
         } else {
             textView_searchNoResults.visibility = GONE
             recyclerView_searchResults.visibility = VISIBLE
-            searchResultAdapter.submitList(sounds)
         }
     }
 
@@ -22,16 +22,18 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.DiffUtil;
 
 import com.futurice.freesound.feature.audio.AudioPlayer;
+import com.futurice.freesound.feature.audio.PreviewPrefetcher;
+import com.futurice.freesound.feature.audio.PreviewQualitySelector;
 import com.futurice.freesound.feature.common.DisplayableItem;
 import com.futurice.freesound.feature.common.Navigator;
 import com.futurice.freesound.feature.common.scheduling.SchedulerProvider;
-import com.futurice.freesound.feature.common.ui.adapter.MultiItemListAdapter;
+import com.futurice.freesound.feature.common.ui.adapter.MultiItemPagedListAdapter;
 import com.futurice.freesound.feature.common.ui.adapter.ViewHolderBinder;
 import com.futurice.freesound.feature.common.ui.adapter.ViewHolderFactory;
+import com.futurice.freesound.feature.user.UserRepository;
 import com.futurice.freesound.inject.activity.ForActivity;
 import com.futurice.freesound.inject.fragment.BaseFragmentModule;
 import com.futurice.freesound.inject.fragment.FragmentScope;
-import com.futurice.freesound.network.api.FreeSoundApiClient;
 import com.futurice.freesound.network.api.model.Sound;
 import com.squareup.picasso.Picasso;
 
@@ -52,16 +54,23 @@ public class SearchFragmentModule {
     static SearchFragmentViewModel provideSearchFragmentViewModel(SearchRepository searchRepository,
                                                                   Navigator navigator,
                                                                   AudioPlayer audioPlayer,
+                                                                  PreviewPrefetcher previewPrefetcher,
+                                                                  PreviewQualitySelector previewQualitySelector,
                                                                   SchedulerProvider schedulerProvider) {
-        return new SearchFragmentViewModel(searchRepository, navigator, audioPlayer, schedulerProvider);
+        return new SearchFragmentViewModel(searchRepository,
+                                           navigator,
+                                           audioPlayer,
+                                           previewPrefetcher,
+                                           previewQualitySelector,
+                                           schedulerProvider);
     }
 
     @Provides
     @FragmentScope
-    MultiItemListAdapter<Sound> provideRecyclerAdapter(DiffUtil.ItemCallback<DisplayableItem<Sound>> diffItemCallback,
-                                                       Map<Integer, ViewHolderFactory> factoryMap,
-                                                       Map<Integer, ViewHolderBinder<Sound>> binderMap) {
-        return new MultiItemListAdapter<>(diffItemCallback, factoryMap, binderMap);
+    MultiItemPagedListAdapter<Sound> provideRecyclerAdapter(DiffUtil.ItemCallback<DisplayableItem<Sound>> diffItemCallback,
+                                                            Map<Integer, ViewHolderFactory> factoryMap,
+                                                            Map<Integer, ViewHolderBinder<Sound>> binderMap) {
+        return new MultiItemPagedListAdapter<>(diffItemCallback, factoryMap, binderMap);
     }
 
     @Provides
@@ -96,8 +105,9 @@ public class SearchFragmentModule {
     @Provides
     SoundItemViewModelFactory provideSoundViewModelFactory(Navigator navigator,
                                                            AudioPlayer audioPlayer,
-                                                           FreeSoundApiClient freeSoundApiClient) {
-        return new SoundItemViewModelFactory(navigator, audioPlayer, freeSoundApiClient);
+                                                           PreviewQualitySelector previewQualitySelector,
+                                                           UserRepository userRepository) {
+        return new SoundItemViewModelFactory(navigator, audioPlayer, previewQualitySelector, userRepository);
     }
 
     @IntoMap
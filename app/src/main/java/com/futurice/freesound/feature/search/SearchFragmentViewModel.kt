@@ -15,19 +15,37 @@
  */
 package com.futurice.freesound.feature.search
 
+import androidx.annotation.VisibleForTesting
+import androidx.paging.PagedList
+import androidx.paging.RxPagedListBuilder
 import com.futurice.freesound.arch.mvvm.SimpleViewModel
 import com.futurice.freesound.feature.audio.AudioPlayer
+import com.futurice.freesound.feature.audio.PreviewPrefetcher
+import com.futurice.freesound.feature.audio.PreviewQualitySelector
 import com.futurice.freesound.feature.common.DisplayableItem
 import com.futurice.freesound.feature.common.Navigator
 import com.futurice.freesound.feature.common.scheduling.SchedulerProvider
 import com.futurice.freesound.feature.search.SearchResultListItems.SOUND
 import com.futurice.freesound.network.api.model.Sound
+import io.reactivex.Completable
 import io.reactivex.Observable
 import polanski.option.Option
 
+// Matches the Freesound API default page size.
+private const val SEARCH_PAGE_SIZE = 15
+
+// Request the next page when within this many items of the end of the loaded results.
+private const val SEARCH_PREFETCH_DISTANCE = 10
+
+// The topmost visible sounds are the most likely to be played next.
+@VisibleForTesting
+const val PREFETCHED_PREVIEWS = 3
+
 internal class SearchFragmentViewModel(private val searchRepository: SearchRepository,
                                        private val navigator: Navigator,
                                        private val audioPlayer: AudioPlayer,
+                                       private val previewPrefetcher: PreviewPrefetcher,
+                                       private val previewQualitySelector: PreviewQualitySelector,
                                        private val schedulerProvider: SchedulerProvider) : SimpleViewModel() {
 
     // When there are none results (result == null), this won't do anything.
@@ -38,11 +56,35 @@ internal class SearchFragmentViewModel(private val searchRepository: SearchRepos
                 .map { it.map { sounds -> sounds.wrapInDisplayableItem() } }
                 .doOnNext { audioPlayer.stopPlayback() }
 
+    // Emits a new PagedList for each new search, which then loads further pages as it is scrolled.
+    val pagedSoundsOnceAndStream: Observable<PagedList<DisplayableItem<Sound>>>
+        get() = searchRepository.pagedResultsOnceAndStream
+                .switchMap { factory ->
+                    RxPagedListBuilder(factory.map { DisplayableItem(it, SOUND) }, PAGED_LIST_CONFIG)
+                            .setFetchScheduler(schedulerProvider.io())
+                            .setNotifyScheduler(schedulerProvider.ui())
+                            .buildObservable()
+                }
+
     val searchStateOnceAndStream: Observable<SearchState>
         get() = searchRepository.searchStateOnceAndStream
 
     fun stopPlayback() = audioPlayer.stopPlayback()
 
+    /**
+     * Prefetches the previews of the topmost of the visible sounds, cancelling any others.
+     *
+     * These are the preview variants which would be chosen to play them now.
+     */
+    fun prefetchPreviews(visibleSounds: List<Sound>) =
+            previewPrefetcher.prefetch(visibleSounds.take(PREFETCHED_PREVIEWS)
+                    .map { previewQualitySelector.select(it).url })
+
+    fun cancelPrefetch() = previewPrefetcher.cancelAll()
+
+    // Called once the end of the results is reached, where a page which failed would have been.
+    fun retryFailedPage(): Completable = searchRepository.retryFailedPage()
+
     fun openSoundDetails(sound: Sound) {
         navigator.openSoundDetails(sound)
     }
@@ -59,4 +101,13 @@ internal class SearchFragmentViewModel(private val searchRepository: SearchRepos
 
     private fun List<Sound>.wrapInDisplayableItem() = map { DisplayableItem(it, SOUND) }
 
+    companion object {
+        private val PAGED_LIST_CONFIG: PagedList.Config = PagedList.Config.Builder()
+                .setPageSize(SEARCH_PAGE_SIZE)
+                .setInitialLoadSizeHint(SEARCH_PAGE_SIZE)
+                .setPrefetchDistance(SEARCH_PREFETCH_DISTANCE)
+                .setEnablePlaceholders(false)
+                .build()
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.search;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for the end-to-end latency of search-as-you-type: from the keystroke which completed
+ * a query until its search finished, including loading the users shown with the results.
+ */
+public final class SearchLatencyStats {
+
+    @NonNull
+    private final AtomicLong searchCount = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong totalLatencyMs = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong maxLatencyMs = new AtomicLong();
+
+    void recordKeystrokeToResults(final long latencyMs) {
+        searchCount.incrementAndGet();
+        totalLatencyMs.addAndGet(latencyMs);
+        long max;
+        do {
+            max = maxLatencyMs.get();
+        } while (latencyMs > max && !maxLatencyMs.compareAndSet(max, latencyMs));
+    }
+
+    /**
+     * @return the number of searches which finished.
+     */
+    public long searchCount() {
+        return searchCount.get();
+    }
+
+    /**
+     * @return the mean keystroke to results latency in milliseconds, or 0 if there have been no
+     * searches.
+     */
+    public long meanLatencyMs() {
+        long count = searchCount.get();
+        return count == 0 ? 0 : totalLatencyMs.get() / count;
+    }
+
+    /**
+     * @return the longest keystroke to results latency in milliseconds.
+     */
+    public long maxLatencyMs() {
+        return maxLatencyMs.get();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "SearchLatencyStats{"
+               + "searchCount=" + searchCount
+               + ", meanLatencyMs=" + meanLatencyMs()
+               + ", maxLatencyMs=" + maxLatencyMs
+               + '}';
+    }
+}
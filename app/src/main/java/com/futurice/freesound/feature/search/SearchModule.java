@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.search;
+
+import android.content.Context;
+
+import com.futurice.freesound.feature.common.scheduling.SchedulerProvider;
+import com.futurice.freesound.inject.app.ForApplication;
+import com.futurice.freesound.network.api.ApiNetworkModule.ForFreeSoundApi;
+import com.futurice.freesound.network.api.model.Sound;
+import com.squareup.moshi.Moshi;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Singleton;
+
+import dagger.Module;
+import dagger.Provides;
+
+@Module
+public class SearchModule {
+
+    private static final int SEARCH_RESULT_CACHE_MAX_SOUNDS = 1000;
+    private static final long SEARCH_RESULT_MAX_AGE_MS = TimeUnit.MINUTES.toMillis(30);
+    // Refreshes bypass the HTTP cache, so this only bounds how often a repeated search hits the network.
+    private static final long SEARCH_RESULT_REFRESH_AFTER_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final String SEARCH_SUGGESTIONS_FILE = "search_suggestions";
+    private static final String LOCAL_SOUNDS_FILE = "local_sounds";
+
+    // Application scoped, so that recent results outlive the search screen.
+    @Provides
+    @Singleton
+    static SearchResultCache provideSearchResultCache(SchedulerProvider schedulerProvider) {
+        return new SearchResultCache(SEARCH_RESULT_CACHE_MAX_SOUNDS,
+                                     SEARCH_RESULT_MAX_AGE_MS,
+                                     SEARCH_RESULT_REFRESH_AFTER_MS,
+                                     schedulerProvider.computation());
+    }
+
+    @Provides
+    @Singleton
+    static SearchSuggestions provideSearchSuggestions(@ForApplication Context context,
+                                                      SchedulerProvider schedulerProvider) {
+        return new SearchSuggestions(new File(context.getFilesDir(), SEARCH_SUGGESTIONS_FILE),
+                                     new SuggestionIndex(),
+                                     schedulerProvider.io());
+    }
+
+    @Provides
+    @Singleton
+    static LocalSoundSearch provideLocalSoundSearch(@ForApplication Context context,
+                                                    @ForFreeSoundApi Moshi moshi,
+                                                    SchedulerProvider schedulerProvider) {
+        return new LocalSoundSearch(new File(context.getFilesDir(), LOCAL_SOUNDS_FILE),
+                                    moshi.adapter(Sound.class),
+                                    new SoundIndex(),
+                                    schedulerProvider.io());
+    }
+
+    @Provides
+    @Singleton
+    static SearchLatencyStats provideSearchLatencyStats() {
+        return new SearchLatencyStats();
+    }
+}
@@ -17,18 +17,46 @@
 package com.futurice.freesound.feature.search;
 
 import androidx.annotation.NonNull;
+import androidx.paging.DataSource;
+
+import com.futurice.freesound.network.api.model.SearchQuery;
+import com.futurice.freesound.network.api.model.Sound;
+import com.futurice.freesound.store.CacheStats;
 
 import io.reactivex.Completable;
 import io.reactivex.Observable;
 
 public interface SearchRepository {
 
+    /**
+     * Searches once the preliminary task completes, reporting the progress and outcome to
+     * {@link #getSearchStateOnceAndStream()}.
+     */
     @NonNull
-    Completable querySearch(@NonNull String query, @NonNull final Completable preliminaryTask);
+    Completable querySearch(@NonNull SearchQuery query, @NonNull final Completable preliminaryTask);
 
     @NonNull
     Observable<SearchState> getSearchStateOnceAndStream();
 
+    /**
+     * Emits a {@link DataSource.Factory} for each successful search, from which further pages of
+     * that search's results can be loaded on demand.
+     */
+    @NonNull
+    Observable<DataSource.Factory<String, Sound>> getPagedResultsOnceAndStream();
+
+    /**
+     * Loads again the page of the latest search results which last failed to load, if any.
+     */
+    @NonNull
+    Completable retryFailedPage();
+
     @NonNull
     Completable clear();
+
+    /**
+     * @return the statistics of the cache of recent search results.
+     */
+    @NonNull
+    CacheStats getResultCacheStats();
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.search
+
+import com.futurice.freesound.network.api.model.SearchQuery
+import com.futurice.freesound.network.api.model.SoundSearchResult
+import com.futurice.freesound.store.Cache
+import com.futurice.freesound.store.CacheStats
+import com.futurice.freesound.store.NO_EXPIRY
+import io.reactivex.Completable
+import io.reactivex.Maybe
+import io.reactivex.Scheduler
+import io.reactivex.schedulers.Timed
+import java.util.concurrent.TimeUnit
+
+/**
+ * An in-memory LRU of the first page of results of recent searches, so that repeating a search
+ * doesn't wait for the network.
+ *
+ * Results are forgotten [expireAfterMs] after they were fetched. From [refreshAfterMs] they are
+ * still served, but marked as needing a refresh.
+ *
+ * Each entry weighs its number of sounds, so the cache holds at most [maxSounds] sounds.
+ */
+internal class SearchResultCache(maxSounds: Int,
+                                 private val expireAfterMs: Long,
+                                 private val refreshAfterMs: Long,
+                                 private val scheduler: Scheduler) {
+
+    private val cache = Cache<SearchQuery, Timed<SoundSearchResult>>(
+            maxSounds,
+            { _, timed -> 1 + timed.value().results.size },
+            expireAfterMs,
+            NO_EXPIRY,
+            scheduler,
+            // Entries are heavy and few, so a single segment is needed to hold any of them.
+            concurrencyLevel = 1)
+
+    init {
+        require(refreshAfterMs <= expireAfterMs) {
+            "refreshAfterMs must not exceed expireAfterMs: $refreshAfterMs > $expireAfterMs"
+        }
+    }
+
+    fun get(query: SearchQuery): Maybe<CachedSearchResult> =
+            cache.get(query)
+                    .map { CachedSearchResult(it.value(), needsRefresh = ageMs(it) >= refreshAfterMs) }
+
+    fun put(query: SearchQuery, result: SoundSearchResult): Completable =
+            Completable.defer { cache.put(query, Timed(result, now(), TimeUnit.MILLISECONDS)) }
+
+    fun stats(): CacheStats = cache.stats()
+
+    private fun ageMs(timed: Timed<SoundSearchResult>): Long = now() - timed.time()
+
+    private fun now(): Long = scheduler.now(TimeUnit.MILLISECONDS)
+
+}
+
+internal data class CachedSearchResult(val result: SoundSearchResult, val needsRefresh: Boolean)
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.search
+
+import com.futurice.freesound.network.api.model.Sound
+import io.reactivex.Completable
+import io.reactivex.Scheduler
+import io.reactivex.Single
+import okio.ByteString
+import okio.Okio
+import timber.log.Timber
+import java.io.File
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+// A query the user ran says more about what they'll search for than the tags of its results.
+private const val QUERY_WEIGHT = 3.0
+private const val TAG_WEIGHT = 1.0
+
+private const val MAX_SUGGESTIONS = 5
+private const val SAVE_DELAY_MS = 5000L
+
+private const val FORMAT_VERSION = 1
+private const val TEMP_SUFFIX = ".tmp"
+
+/**
+ * Typeahead suggestions from the user's past queries and the tags of their results, served from
+ * a [SuggestionIndex] without waiting for the network.
+ *
+ * The index is loaded from [file] on first use, and saved back a few seconds after it changes.
+ * The file is compact: a header, then for each term its UTF-8 bytes and its score when saved.
+ */
+internal class SearchSuggestions(private val file: File,
+                                 private val index: SuggestionIndex,
+                                 private val scheduler: Scheduler) {
+
+    private val isSaveScheduled = AtomicBoolean(false)
+
+    private val load: Completable = Completable.fromAction { load() }
+            .doOnError { Timber.w(it, "Unable to load search suggestions") }
+            .onErrorComplete()
+            .subscribeOn(scheduler)
+            .cache()
+
+    fun suggestionsFor(prefix: String): Single<List<String>> =
+            load.andThen(Single.fromCallable { index.suggest(prefix, MAX_SUGGESTIONS, now()) })
+
+    // Only to be recorded once the query has found results, so as not to suggest a dead end.
+    fun recordQuery(query: String): Completable =
+            record { index.record(query, QUERY_WEIGHT, now()) }
+
+    fun recordResults(sounds: List<Sound>): Completable =
+            record {
+                val nowMs = now()
+                sounds.forEach { sound -> sound.tags.forEach { index.record(it, TAG_WEIGHT, nowMs) } }
+            }
+
+    private fun record(action: () -> Unit): Completable =
+            load.andThen(Completable.fromAction {
+                action()
+                scheduleSave()
+            })
+
+    private fun scheduleSave() {
+        if (isSaveScheduled.compareAndSet(false, true)) {
+            scheduler.scheduleDirect({
+                // Cleared first, so that a change made while saving schedules another save.
+                isSaveScheduled.set(false)
+                try {
+                    save()
+                } catch (e: IOException) {
+                    Timber.w(e, "Unable to save search suggestions")
+                }
+            }, SAVE_DELAY_MS, TimeUnit.MILLISECONDS)
+        }
+    }
+
+    private fun load() {
+        if (!file.exists()) return
+        Okio.buffer(Okio.source(file)).use { source ->
+            if (source.readInt() != FORMAT_VERSION) return
+            val savedAtMs = source.readLong()
+            repeat(source.readInt()) {
+                val term = source.readUtf8(source.readShort().toLong())
+                val score = java.lang.Float.intBitsToFloat(source.readInt())
+                index.record(term, score.toDouble(), savedAtMs)
+            }
+        }
+    }
+
+    private fun save() {
+        val savedAtMs = now()
+        val entries = index.entries(savedAtMs)
+        val temp = File(file.path + TEMP_SUFFIX)
+        Okio.buffer(Okio.sink(temp)).use { sink ->
+            sink.writeInt(FORMAT_VERSION)
+            sink.writeLong(savedAtMs)
+            sink.writeInt(entries.size)
+            entries.forEach {
+                val term = ByteString.encodeUtf8(it.term)
+                sink.writeShort(term.size())
+                sink.write(term)
+                sink.writeInt(java.lang.Float.floatToIntBits(it.score.toFloat()))
+            }
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete()
+            throw IOException("Unable to replace: $file")
+        }
+    }
+
+    private fun now(): Long = scheduler.now(TimeUnit.MILLISECONDS)
+
+}
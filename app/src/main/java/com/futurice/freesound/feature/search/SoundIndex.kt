@@ -0,0 +1,186 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.search
+
+import com.futurice.freesound.network.api.model.SearchFilter
+import com.futurice.freesound.network.api.model.SearchQuery
+import com.futurice.freesound.network.api.model.Sound
+import com.futurice.freesound.network.api.model.SortOrder
+import java.util.*
+
+// A match in the name says the most about a sound, one in its description the least.
+private const val NAME_WEIGHT = 3f
+private const val TAG_WEIGHT = 2f
+private const val USERNAME_WEIGHT = 2f
+private const val DESCRIPTION_WEIGHT = 1f
+
+/**
+ * An in-memory inverted index of sounds, searching their name, tags, username and description.
+ *
+ * Every word of a query must match, the last one as a prefix so that partially typed queries
+ * match too. Sounds are ranked by the weights of the fields their matching words are in.
+ *
+ * Only the [maxSounds] most recently added sounds are kept.
+ */
+internal class SoundIndex(private val maxSounds: Int = DEFAULT_MAX_SOUNDS) {
+
+    // In the order they were last added, so the first is evicted first.
+    private val sounds = LinkedHashMap<Long, Sound>()
+
+    // Sorted, so that the terms with a prefix are contiguous.
+    private val postings = TreeMap<String, MutableMap<Long, Float>>()
+
+    init {
+        require(maxSounds > 0) { "maxSounds must be positive: $maxSounds" }
+    }
+
+    /**
+     * Adds the sound, replacing any with the same id.
+     */
+    @Synchronized
+    fun add(sound: Sound) {
+        sounds.remove(sound.id)?.let { removePostings(it) }
+        sounds[sound.id] = sound
+        addPostings(sound)
+        if (sounds.size > maxSounds) {
+            val eldest = sounds.values.iterator()
+            removePostings(eldest.next())
+            eldest.remove()
+        }
+    }
+
+    /**
+     * Returns whether the index can tell which sounds match the query. Only the filters on the
+     * fields of [Sound] can be applied.
+     */
+    fun canAnswer(query: SearchQuery): Boolean =
+            tokenize(query.text).isNotEmpty() && query.filters.all { it.canApply() }
+
+    /**
+     * Returns up to [SearchQuery.pageSize] sounds matching the query. Sort orders other than by
+     * duration or creation fall back to relevance, as the index doesn't know the others.
+     */
+    @Synchronized
+    fun search(query: SearchQuery): List<Sound> {
+        if (!canAnswer(query)) return emptyList()
+        val scores = score(tokenize(query.text))
+        return scores.keys
+                .map { sounds.getValue(it) }
+                .filter { sound -> query.filters.all { it.matches(sound) } }
+                .sortedWith(comparatorOf(query.sort, scores))
+                .take(query.pageSize)
+    }
+
+    /**
+     * Returns every sound, the least recently added first.
+     */
+    @Synchronized
+    fun sounds(): List<Sound> = ArrayList(sounds.values)
+
+    @Synchronized
+    fun size(): Int = sounds.size
+
+    // Returns the score of each sound matching all tokens.
+    private fun score(tokens: List<String>): Map<Long, Float> {
+        var scores: MutableMap<Long, Float>? = null
+        tokens.forEachIndexed { index, token ->
+            val terms = if (index == tokens.lastIndex) {
+                postings.subMap(token, token + Char.MAX_VALUE).values
+            } else {
+                listOfNotNull(postings[token])
+            }
+            val matches = HashMap<Long, Float>()
+            terms.forEach { posting ->
+                posting.forEach { (id, weight) -> matches[id] = (matches[id] ?: 0f) + weight }
+            }
+            scores = scores?.let { previous ->
+                matches.keys.retainAll(previous.keys)
+                for (entry in matches.entries) entry.setValue(entry.value + previous.getValue(entry.key))
+                matches
+            } ?: matches
+            if (matches.isEmpty()) return emptyMap()
+        }
+        return scores ?: emptyMap()
+    }
+
+    private fun addPostings(sound: Sound) {
+        forEachTerm(sound) { term, weight ->
+            val posting = postings.getOrPut(term) { HashMap() }
+            posting[sound.id] = (posting[sound.id] ?: 0f) + weight
+        }
+    }
+
+    private fun removePostings(sound: Sound) {
+        forEachTerm(sound) { term, _ ->
+            val posting = postings[term] ?: return@forEachTerm
+            posting.remove(sound.id)
+            if (posting.isEmpty()) postings.remove(term)
+        }
+    }
+
+    companion object {
+        const val DEFAULT_MAX_SOUNDS = 5000
+    }
+}
+
+private inline fun forEachTerm(sound: Sound, action: (String, Float) -> Unit) {
+    tokenize(sound.name).forEach { action(it, NAME_WEIGHT) }
+    sound.tags.forEach { tag -> tokenize(tag).forEach { action(it, TAG_WEIGHT) } }
+    tokenize(sound.username).forEach { action(it, USERNAME_WEIGHT) }
+    tokenize(sound.description).forEach { action(it, DESCRIPTION_WEIGHT) }
+}
+
+// Lower cased runs of letters and digits.
+private fun tokenize(text: String): List<String> {
+    val tokens = ArrayList<String>()
+    var start = -1
+    for (i in 0..text.length) {
+        val isWordChar = i < text.length && Character.isLetterOrDigit(text[i])
+        if (isWordChar && start < 0) {
+            start = i
+        } else if (!isWordChar && start >= 0) {
+            tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT))
+            start = -1
+        }
+    }
+    return tokens
+}
+
+private fun SearchFilter.canApply(): Boolean =
+        when (this) {
+            is SearchFilter.Duration, is SearchFilter.Tag, is SearchFilter.Username -> true
+            is SearchFilter.License, SearchFilter.Geotagged -> false
+        }
+
+private fun SearchFilter.matches(sound: Sound): Boolean =
+        when (this) {
+            is SearchFilter.Duration -> (minSeconds == null || sound.duration >= minSeconds)
+                    && (maxSeconds == null || sound.duration <= maxSeconds)
+            is SearchFilter.Tag -> sound.tags.any { it.equals(tag, ignoreCase = true) }
+            is SearchFilter.Username -> sound.username.equals(username, ignoreCase = true)
+            is SearchFilter.License, SearchFilter.Geotagged -> false
+        }
+
+private fun comparatorOf(sort: SortOrder, scores: Map<Long, Float>): Comparator<Sound> =
+        when (sort) {
+            SortOrder.DURATION_DESCENDING -> compareByDescending<Sound> { it.duration }
+            SortOrder.DURATION_ASCENDING -> compareBy<Sound> { it.duration }
+            SortOrder.CREATED_DESCENDING -> compareByDescending<Sound> { it.created }
+            SortOrder.CREATED_ASCENDING -> compareBy<Sound> { it.created }
+            // Ties are broken by id, so that the order is stable between searches.
+            else -> compareByDescending<Sound> { scores.getValue(it.id) }.thenBy { it.id }
+        }
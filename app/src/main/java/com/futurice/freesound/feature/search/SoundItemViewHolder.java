@@ -124,7 +124,7 @@ final class SoundItemViewHolder extends BaseBindingViewHolder<SoundItemViewModel
                                                        .into(playbackWaveformViewTarget),
                                          e -> Timber.e(e, "Unable to set SoundItem thumbnail")));
 
-            disposables.add(vm.progressPercentage()
+            disposables.add(vm.progress(playbackWaveformView::progressResolution)
                               .observeOn(schedulerProvider.ui())
                               .subscribe(playbackWaveformView::setProgress,
                                          e -> Timber.e(e, "Unable to set SoundItem progress")));
@@ -20,35 +20,33 @@ import com.futurice.freesound.arch.mvvm.SimpleViewModel
 import com.futurice.freesound.feature.audio.AudioPlayer
 import com.futurice.freesound.feature.audio.PlaybackSource
 import com.futurice.freesound.feature.audio.PlayerState
+import com.futurice.freesound.feature.audio.PreviewQualitySelector
 import com.futurice.freesound.feature.audio.from
 import com.futurice.freesound.feature.common.Navigator
-import com.futurice.freesound.network.api.FreeSoundApiClient
+import com.futurice.freesound.feature.user.UserRepository
 import com.futurice.freesound.network.api.model.Sound
 import io.reactivex.Observable
 import io.reactivex.Single
 import polanski.option.Option
+import timber.log.Timber
 import java.text.DateFormat
 
 internal class SoundItemViewModel(private val sound: Sound,
                                   private val navigator: Navigator,
                                   private val audioPlayer: AudioPlayer,
-                                  private val freeSoundApiClient: FreeSoundApiClient) : SimpleViewModel() {
+                                  private val previewQualitySelector: PreviewQualitySelector,
+                                  private val userRepository: UserRepository) : SimpleViewModel() {
 
     private val thumbnail: String = sound.images.medSizeWaveformUrl
 
-    private val currentPercentage: Observable<Option<Int>>
-        get() = audioPlayer.playerStateOnceAndStream
-                .filter { it is PlayerState.Assigned }
-                .map { it as PlayerState.Assigned }
-                .map { state -> toPercentage(state.timePositionMs, sound.duration) }
-                .map { Option.ofObj(it) }
+    private val durationMs: Long = Math.max(1L, (sound.duration * 1000.0f).toLong())
 
     fun thumbnailImageUrl(): Single<String> = Single.just(thumbnail)
 
     fun name(): Single<String> = Single.just(sound.name)
 
     fun userAvatar(): Single<String> =
-            freeSoundApiClient.getUser(sound.username)
+            userRepository.user(sound.username)
                     .map { user -> user.avatar.medium }
                     .cache()
 
@@ -66,30 +64,43 @@ internal class SoundItemViewModel(private val sound: Sound,
                     .map { duration -> Math.ceil(duration.toDouble()).toInt() }
                     .map { duration -> Math.max(duration, 1) }
 
-    fun progressPercentage(): Observable<Option<Int>> =
-            audioPlayer.playerStateOnceAndStream
-                    .switchMap(this::progressOrNothing)
+    /**
+     * The playback progress of this sound, in steps from 0 to [resolution], none when the sound
+     * is not being played.
+     *
+     * The position is only requested as often as it could change the step, so a resolution of a
+     * step per pixel only updates when the progress would move by a pixel.
+     *
+     * @param resolution the number of steps, read when this sound starts playing.
+     */
+    fun progress(resolution: () -> Int): Observable<Option<Int>> =
+            audioPlayer.playerStateOnceAndStream(from(sound.id))
+                    .map { it is PlayerState.Assigned }
+                    .distinctUntilChanged()
+                    .switchMap { isThisSound ->
+                        if (isThisSound) currentProgress(resolution) else Observable.just(Option.none())
+                    }
 
     fun openDetails() {
         navigator.openSoundDetails(sound)
     }
 
     fun toggleSoundPlayback() {
-        audioPlayer.togglePlayback(
-                PlaybackSource(from(sound.id), sound.previews.lowQualityMp3Url))
+        val choice = previewQualitySelector.select(sound)
+        Timber.d("Preview of sound ${sound.id}: $choice")
+        audioPlayer.togglePlayback(PlaybackSource(from(sound.id), choice.url))
     }
 
-    private fun progressOrNothing(playerState: PlayerState): Observable<Option<Int>> {
-        return if (isThisSound(playerState)) currentPercentage else Observable.just(Option.none())
-    }
-
-    private fun isThisSound(playerState: PlayerState): Boolean =
-            when (playerState) {
-                PlayerState.Idle -> false
-                is PlayerState.Assigned -> playerState.source.id == from(sound.id)
+    private fun currentProgress(resolution: () -> Int): Observable<Option<Int>> =
+            Observable.defer {
+                val steps = Math.max(1, resolution())
+                audioPlayer.timePositionMsOnceAndStream(Math.max(1L, durationMs / steps))
+                        .map { positionMs -> toProgress(positionMs, steps) }
+                        .distinctUntilChanged()
+                        .map { Option.ofObj(it) }
             }
 
-    private fun toPercentage(positionMs: Long, durationSec: Float): Int =
-            Math.min(100, (positionMs / (durationSec * 1000.0f) * 100L).toInt())
+    private fun toProgress(positionMs: Long, steps: Int): Int =
+            Math.min(steps.toLong(), positionMs * steps / durationMs).toInt()
 
 }
@@ -3,8 +3,9 @@ package com.futurice.freesound.feature.search;
 import androidx.annotation.NonNull;
 
 import com.futurice.freesound.feature.audio.AudioPlayer;
+import com.futurice.freesound.feature.audio.PreviewQualitySelector;
 import com.futurice.freesound.feature.common.Navigator;
-import com.futurice.freesound.network.api.FreeSoundApiClient;
+import com.futurice.freesound.feature.user.UserRepository;
 import com.futurice.freesound.network.api.model.Sound;
 
 final class SoundItemViewModelFactory {
@@ -12,18 +13,21 @@ final class SoundItemViewModelFactory {
     private final Navigator navigator;
     @NonNull
     private final AudioPlayer audioPlayer;
+    private final PreviewQualitySelector previewQualitySelector;
     @NonNull
-    private final FreeSoundApiClient freeSoundApiClient;
+    private final UserRepository userRepository;
 
     SoundItemViewModelFactory(@NonNull Navigator navigator,
                               @NonNull AudioPlayer audioPlayer,
-                              @NonNull FreeSoundApiClient freeSoundApiClient) {
+                              @NonNull PreviewQualitySelector previewQualitySelector,
+                              @NonNull UserRepository userRepository) {
         this.navigator = navigator;
         this.audioPlayer = audioPlayer;
-        this.freeSoundApiClient = freeSoundApiClient;
+        this.previewQualitySelector = previewQualitySelector;
+        this.userRepository = userRepository;
     }
 
     public SoundItemViewModel create(Sound sound) {
-        return new SoundItemViewModel(sound, navigator, audioPlayer, freeSoundApiClient);
+        return new SoundItemViewModel(sound, navigator, audioPlayer, previewQualitySelector, userRepository);
     }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.search
+
+import androidx.paging.DataSource
+import androidx.paging.PageKeyedDataSource
+import com.futurice.freesound.common.rx.plusAssign
+import com.futurice.freesound.feature.user.UserRepository
+import com.futurice.freesound.network.api.FreeSoundApiClient
+import com.futurice.freesound.network.api.model.Sound
+import com.futurice.freesound.network.api.model.SoundSearchResult
+import io.reactivex.disposables.CompositeDisposable
+import timber.log.Timber
+import java.util.concurrent.atomic.AtomicReference
+
+/**
+ * A [PageKeyedDataSource] for a search, keyed by the absolute `next` and `previous` page URLs
+ * returned by the Freesound API.
+ *
+ * The first page has already been fetched by [SearchRepository.querySearch], so the initial
+ * load is served from memory rather than the network.
+ *
+ * The users of each subsequent page are prefetched into the [UserRepository] as the page loads,
+ * and its sounds recorded for [LocalSoundSearch].
+ *
+ * If a page fails to load, the list stops extending in that direction until [retry] is called.
+ * Loads still in flight are disposed once the data source is invalidated.
+ */
+internal class SoundSearchDataSource(private val firstPage: SoundSearchResult,
+                                     private val freeSoundApiClient: FreeSoundApiClient,
+                                     private val userRepository: UserRepository,
+                                     private val localSoundSearch: LocalSoundSearch)
+    : PageKeyedDataSource<String, Sound>() {
+
+    private val disposables = CompositeDisposable()
+
+    private val retryAction = AtomicReference<(() -> Unit)?>()
+
+    init {
+        addInvalidatedCallback {
+            retryAction.set(null)
+            disposables.clear()
+        }
+    }
+
+    override fun loadInitial(params: LoadInitialParams<String>,
+                             callback: LoadInitialCallback<String, Sound>) {
+        callback.onResult(firstPage.results, firstPage.previous, firstPage.next)
+    }
+
+    override fun loadAfter(params: LoadParams<String>,
+                           callback: LoadCallback<String, Sound>) {
+        loadPage(params.key, { callback.onResult(it.results, it.next) }) { loadAfter(params, callback) }
+    }
+
+    override fun loadBefore(params: LoadParams<String>,
+                            callback: LoadCallback<String, Sound>) {
+        loadPage(params.key, { callback.onResult(it.results, it.previous) }) { loadBefore(params, callback) }
+    }
+
+    /**
+     * Loads again the page which last failed to load, if any.
+     */
+    fun retry() {
+        retryAction.getAndSet(null)?.invoke()
+    }
+
+    private fun loadPage(pageUrl: String,
+                         onPage: (SoundSearchResult) -> Unit,
+                         retry: () -> Unit) {
+        disposables += freeSoundApiClient.page(pageUrl)
+                .doOnSuccess {
+                    prefetchUsers(it)
+                    recordLocally(it)
+                }
+                .subscribe({ onPage(it) }) {
+                    Timber.w(it, "Unable to load search results page: %s", pageUrl)
+                    if (!isInvalid) retryAction.set(retry)
+                }
+    }
+
+    private fun prefetchUsers(page: SoundSearchResult) {
+        userRepository.prefetchUsers(page.usernames())
+                .subscribe()
+    }
+
+    private fun recordLocally(page: SoundSearchResult) {
+        localSoundSearch.record(page.results)
+                .subscribe({}) { Timber.w(it, "Unable to record local sounds") }
+    }
+
+    class Factory(private val firstPage: SoundSearchResult,
+                  private val freeSoundApiClient: FreeSoundApiClient,
+                  private val userRepository: UserRepository,
+                  private val localSoundSearch: LocalSoundSearch)
+        : DataSource.Factory<String, Sound>() {
+
+        @Volatile
+        private var latest: SoundSearchDataSource? = null
+
+        override fun create(): DataSource<String, Sound> =
+                SoundSearchDataSource(firstPage, freeSoundApiClient, userRepository, localSoundSearch)
+                        .also { latest = it }
+
+        /**
+         * Loads again the page of the latest data source which last failed to load, if any.
+         */
+        fun retry() {
+            latest?.retry()
+        }
+    }
+
+}
+
+internal fun SoundSearchResult.usernames(): List<String> = results.map { it.username }
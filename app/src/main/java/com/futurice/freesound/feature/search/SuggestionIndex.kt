@@ -0,0 +1,196 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.search
+
+import java.util.*
+import java.util.concurrent.TimeUnit
+
+// Longer terms are not something anyone would want to have typed for them.
+private const val MAX_TERM_LENGTH = 64
+
+// Trimming only once the index has grown by this fraction amortizes its cost over many records.
+private const val TRIM_SLACK = 0.1
+
+private val NO_CHILD_KEYS = CharArray(0)
+private val NO_CHILDREN = emptyArray<SuggestionIndex.Node>()
+
+/**
+ * An in-memory prefix index of search terms, for typeahead suggestions.
+ *
+ * Each term has a score combining how often and how recently it was recorded: each record adds
+ * its weight, and the score halves every [halfLifeMs]. Only the [maxTerms] highest scoring terms
+ * are kept.
+ *
+ * The terms are held in a trie, each node keeping its children in arrays sorted by character,
+ * so finding a prefix costs a binary search per character.
+ *
+ * All times are in milliseconds.
+ */
+internal class SuggestionIndex(private val maxTerms: Int = DEFAULT_MAX_TERMS,
+                               private val halfLifeMs: Long = DEFAULT_HALF_LIFE_MS) {
+
+    private var root = Node()
+    private var termCount = 0
+
+    init {
+        require(maxTerms > 0) { "maxTerms must be positive: $maxTerms" }
+        require(halfLifeMs > 0) { "halfLifeMs must be positive: $halfLifeMs" }
+    }
+
+    /**
+     * Adds [weight] to the score of the term, as of [timeMs].
+     */
+    @Synchronized
+    fun record(term: String, weight: Double, timeMs: Long) {
+        val normalized = normalize(term) ?: return
+        val node = root.getOrAdd(normalized)
+        if (node.isTerm) {
+            node.score = decayed(node, timeMs) + weight
+        } else {
+            node.score = weight
+            termCount++
+        }
+        node.updatedAtMs = timeMs
+        if (termCount > maxTerms * (1 + TRIM_SLACK)) {
+            trim(timeMs)
+        }
+    }
+
+    /**
+     * Returns up to [limit] terms starting with [prefix], the highest scoring first. The prefix
+     * itself is never suggested.
+     */
+    @Synchronized
+    fun suggest(prefix: String, limit: Int, timeMs: Long): List<String> {
+        val normalized = normalize(prefix) ?: return emptyList()
+        val start = root.find(normalized) ?: return emptyList()
+
+        // A min-heap of the best suggestions so far, so the worst is replaced first.
+        val best = PriorityQueue<Suggestion>(limit + 1, WORST_FIRST)
+        start.forEachTerm(StringBuilder(normalized)) { term, node ->
+            if (term.length > normalized.length) {
+                best.offer(Suggestion(term.toString(), decayed(node, timeMs)))
+                if (best.size > limit) best.poll()
+            }
+        }
+        return best.sortedWith(BEST_FIRST).map { it.term }
+    }
+
+    /**
+     * Returns every term with its score as of [timeMs].
+     */
+    @Synchronized
+    fun entries(timeMs: Long): List<Suggestion> {
+        val entries = ArrayList<Suggestion>(termCount)
+        root.forEachTerm(StringBuilder()) { term, node ->
+            entries.add(Suggestion(term.toString(), decayed(node, timeMs)))
+        }
+        return entries
+    }
+
+    @Synchronized
+    fun size(): Int = termCount
+
+    // Rebuilds the trie from the highest scoring terms, which also drops the emptied nodes.
+    private fun trim(timeMs: Long) {
+        val kept = entries(timeMs).sortedWith(BEST_FIRST).take(maxTerms)
+        root = Node()
+        termCount = 0
+        kept.forEach { record(it.term, it.score, timeMs) }
+    }
+
+    private fun decayed(node: Node, timeMs: Long): Double {
+        val ageMs = Math.max(0L, timeMs - node.updatedAtMs)
+        return node.score * Math.pow(0.5, ageMs.toDouble() / halfLifeMs)
+    }
+
+    private fun normalize(term: String): String? {
+        val normalized = term.trim().toLowerCase(Locale.ROOT)
+        return if (normalized.isEmpty() || normalized.length > MAX_TERM_LENGTH) null else normalized
+    }
+
+    internal class Node {
+        var keys: CharArray = NO_CHILD_KEYS
+        var children: Array<Node> = NO_CHILDREN
+
+        // NaN for a node which only prefixes other terms.
+        var score: Double = Double.NaN
+        var updatedAtMs: Long = 0L
+
+        val isTerm: Boolean
+            get() = !score.isNaN()
+
+        fun find(term: String): Node? {
+            var node = this
+            for (c in term) {
+                val index = Arrays.binarySearch(node.keys, c)
+                if (index < 0) return null
+                node = node.children[index]
+            }
+            return node
+        }
+
+        fun getOrAdd(term: String): Node {
+            var node = this
+            for (c in term) {
+                node = node.child(c)
+            }
+            return node
+        }
+
+        fun forEachTerm(path: StringBuilder, action: (StringBuilder, Node) -> Unit) {
+            if (isTerm) action(path, this)
+            for (i in keys.indices) {
+                path.append(keys[i])
+                children[i].forEachTerm(path, action)
+                path.setLength(path.length - 1)
+            }
+        }
+
+        private fun child(c: Char): Node {
+            val index = Arrays.binarySearch(keys, c)
+            if (index >= 0) return children[index]
+
+            val insertAt = -index - 1
+            val child = Node()
+            keys = CharArray(keys.size + 1).also {
+                System.arraycopy(keys, 0, it, 0, insertAt)
+                it[insertAt] = c
+                System.arraycopy(keys, insertAt, it, insertAt + 1, keys.size - insertAt)
+            }
+            children = arrayOfNulls<Node>(children.size + 1).also {
+                System.arraycopy(children, 0, it, 0, insertAt)
+                it[insertAt] = child
+                System.arraycopy(children, insertAt, it, insertAt + 1, children.size - insertAt)
+            }.requireNoNulls()
+            return child
+        }
+    }
+
+    companion object {
+        const val DEFAULT_MAX_TERMS = 2000
+        val DEFAULT_HALF_LIFE_MS = TimeUnit.DAYS.toMillis(14)
+
+        // Equal scores are suggested in alphabetical order.
+        private val BEST_FIRST: Comparator<Suggestion> =
+                compareByDescending<Suggestion> { it.score }.thenBy { it.term }
+        private val WORST_FIRST: Comparator<Suggestion> =
+                compareBy<Suggestion> { it.score }.thenByDescending { it.term }
+    }
+}
+
+internal data class Suggestion(val term: String, val score: Double)
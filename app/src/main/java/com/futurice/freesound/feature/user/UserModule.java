@@ -16,21 +16,41 @@
 
 package com.futurice.freesound.feature.user;
 
+import android.content.Context;
+
+import com.futurice.freesound.feature.common.scheduling.SchedulerProvider;
+import com.futurice.freesound.inject.app.ForApplication;
+import com.futurice.freesound.network.api.ApiNetworkModule.ForFreeSoundApi;
 import com.futurice.freesound.network.api.FreeSoundApiClient;
 import com.futurice.freesound.network.api.model.User;
 import com.futurice.freesound.store.Cache;
+import com.futurice.freesound.store.DiskStore;
 import com.futurice.freesound.store.Store;
+import com.futurice.freesound.store.TieredStore;
+import com.squareup.moshi.Moshi;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
 
 import dagger.Module;
 import dagger.Provides;
+import io.reactivex.Scheduler;
+
+import static com.futurice.freesound.store.ConcurrentLruStoreKt.NO_EXPIRY;
 
 @Module
 public class UserModule {
 
     private static final String USER_STORE = "userstore";
+    private static final String USER_STORE_DIRECTORY = "users";
+    private static final int USER_CACHE_MAX_BYTES = 256 * 1024;
+    private static final long USER_MAX_AGE_MS = TimeUnit.DAYS.toMillis(1);
+
+    // Rough per-object overhead of a User, its Avatar and their Strings.
+    private static final int USER_OVERHEAD_BYTES = 160;
 
     @Provides
     @Singleton
@@ -41,7 +61,32 @@ public class UserModule {
 
     @Provides
     @Named("userstore")
-    Store<String, User> provideUserCacheStore() {
-        return new Cache<>();
+    Store<String, User> provideUserCacheStore(@ForApplication Context context,
+                                              @ForFreeSoundApi Moshi moshi,
+                                              SchedulerProvider schedulerProvider) {
+        // Both tiers share a clock, so that a user promoted from disk keeps its age in memory.
+        Scheduler scheduler = schedulerProvider.io();
+        DiskStore<String, User> diskStore =
+                new DiskStore<>(new File(context.getFilesDir(), USER_STORE_DIRECTORY),
+                                moshi.adapter(User.class),
+                                scheduler,
+                                DiskStore.DEFAULT_MAX_ENTRIES,
+                                USER_MAX_AGE_MS);
+        Cache<String, User> memoryCache = new Cache<>(USER_CACHE_MAX_BYTES,
+                                                      (username, user) -> estimateSizeBytes(user),
+                                                      USER_MAX_AGE_MS,
+                                                      NO_EXPIRY,
+                                                      scheduler);
+        return new TieredStore<>(memoryCache, diskStore);
+    }
+
+    // Strings are UTF-16, so two bytes per char.
+    private static int estimateSizeBytes(User user) {
+        int chars = user.getUsername().length()
+                    + user.getAbout().length()
+                    + user.getAvatar().getSmall().length()
+                    + user.getAvatar().getMedium().length()
+                    + user.getAvatar().getLarge().length();
+        return USER_OVERHEAD_BYTES + 2 * chars;
     }
 }
@@ -19,8 +19,13 @@ package com.futurice.freesound.feature.user
 import com.futurice.freesound.network.api.FreeSoundApiClient
 import com.futurice.freesound.network.api.model.User
 import com.futurice.freesound.store.Store
+import io.reactivex.Completable
 import io.reactivex.Observable
 import io.reactivex.Single
+import timber.log.Timber
+
+// Limits the number of concurrent user requests when prefetching.
+private const val PREFETCH_MAX_CONCURRENCY = 4
 
 /*
  * refresh: Active, Single: Always fetches, stores and emits once. Can error.
@@ -47,6 +52,18 @@ class UserRepository(private val freeSoundApi: FreeSoundApiClient,
                 .switchIfEmpty(refreshUser(username)) // emits fetched/stored
     }
 
+    // prefetch: Ensures the store contains the given users, fetching only those it doesn't.
+    // Never errors; a user which fails to prefetch will be fetched again on demand.
+    fun prefetchUsers(usernames: Iterable<String>): Completable {
+        return Observable.fromIterable(usernames.distinct())
+                .flatMapCompletable({ username ->
+                    user(username)
+                            .ignoreElement()
+                            .doOnError { Timber.w(it, "Unable to prefetch user: %s", username) }
+                            .onErrorComplete()
+                }, false, PREFETCH_MAX_CONCURRENCY)
+    }
+
     // awaitUserStream
     fun awaitUserStream(username: String): Observable<User> {
         return userStore.getStream(username)
@@ -27,5 +27,5 @@ public abstract class ApiModule {
     @Binds
     @Singleton
     abstract FreeSoundApiClient provideFreeSoundApiClient(
-            DefaultFreeSoundApiClient defaultFreeSoundApiClient);
+            SingleFlightFreeSoundApiClient singleFlightFreeSoundApiClient);
 }
@@ -16,25 +16,31 @@
 
 package com.futurice.freesound.network.api;
 
+import android.content.Context;
+
 import com.futurice.freesound.feature.common.scheduling.SchedulerProvider;
+import com.futurice.freesound.inject.app.ForApplication;
 import com.futurice.freesound.network.api.model.GeoLocation;
-import com.futurice.freesound.network.api.model.mapping.FreesoundDateAdapter;
+import com.futurice.freesound.network.api.model.mapping.FreesoundDateJsonAdapter;
 import com.futurice.freesound.network.api.model.mapping.GeoLocationJsonAdapter;
+import com.futurice.freesound.network.api.model.mapping.ReflectiveFallbackJsonAdapterFactory;
 import com.jakewharton.retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
 import com.squareup.moshi.Moshi;
-import com.squareup.moshi.adapters.Rfc3339DateJsonAdapter;
-import com.squareup.moshi.kotlin.reflect.KotlinJsonAdapterFactory;
 
+import java.io.File;
 import java.lang.annotation.Retention;
+import java.util.Date;
 import java.util.List;
 
 import javax.inject.Named;
 import javax.inject.Qualifier;
 import javax.inject.Singleton;
 
+import dagger.Lazy;
 import dagger.Module;
 import dagger.Provides;
 import io.reactivex.schedulers.Schedulers;
+import okhttp3.Cache;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 import okhttp3.OkHttpClient.Builder;
@@ -48,6 +54,9 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 @Module(includes = {ApiConfigModule.class, InstrumentationModule.class})
 public class ApiNetworkModule {
 
+    private static final String HTTP_CACHE_DIRECTORY = "freesound-api";
+    private static final long HTTP_CACHE_SIZE_BYTES = 10 * 1024 * 1024;
+
     @Provides
     @Singleton
     static FreeSoundApi provideFreeSoundApi(@Named(API_URL_CONFIG) String url,
@@ -70,9 +79,9 @@ public class ApiNetworkModule {
     @ForFreeSoundApi
     static Moshi provideMoshi() {
         return new Moshi.Builder()
-                .add(new GeoLocationJsonAdapter())
-                .add(new KotlinJsonAdapterFactory())
-                .add(new FreesoundDateAdapter(new Rfc3339DateJsonAdapter()))
+                .add(GeoLocation.class, new GeoLocationJsonAdapter())
+                .add(new ReflectiveFallbackJsonAdapterFactory())
+                .add(Date.class, new FreesoundDateJsonAdapter().nullSafe())
                 .build();
     }
 
@@ -81,21 +90,68 @@ public class ApiNetworkModule {
     @ForFreeSoundApi
     static OkHttpClient provideApiOkHttpClient(@AppInterceptors List<Interceptor> appInterceptor,
                                                @NetworkInterceptors List<Interceptor> networkInterceptor,
-                                               FreeSoundApiInterceptor apiInterceptor) {
-        return createOkHttpClient(appInterceptor, networkInterceptor, apiInterceptor);
+                                               FreeSoundApiInterceptor apiInterceptor,
+                                               StaleWhileRevalidateInterceptor staleWhileRevalidateInterceptor,
+                                               NetworkBandwidthMeter bandwidthMeter,
+                                               @ForFreeSoundApi Cache cache) {
+        return createOkHttpClient(appInterceptor,
+                                  networkInterceptor,
+                                  apiInterceptor,
+                                  staleWhileRevalidateInterceptor,
+                                  new BandwidthMeterInterceptor(bandwidthMeter),
+                                  cache);
     }
 
     private static OkHttpClient createOkHttpClient(List<Interceptor> appInterceptors,
                                                    List<Interceptor> networkInterceptors,
-                                                   FreeSoundApiInterceptor freeSoundApiInterceptor) {
+                                                   FreeSoundApiInterceptor freeSoundApiInterceptor,
+                                                   StaleWhileRevalidateInterceptor staleWhileRevalidateInterceptor,
+                                                   BandwidthMeterInterceptor bandwidthMeterInterceptor,
+                                                   Cache cache) {
         Builder okBuilder = new Builder();
+        okBuilder.cache(cache);
         okBuilder.interceptors().addAll(appInterceptors);
+        okBuilder.interceptors().add(staleWhileRevalidateInterceptor);
+        // The API token is added after the cache lookup, so it is not part of the cache key.
+        okBuilder.networkInterceptors().add(new CacheFreshnessInterceptor());
+        okBuilder.networkInterceptors().add(freeSoundApiInterceptor);
+        okBuilder.networkInterceptors().add(bandwidthMeterInterceptor);
         okBuilder.networkInterceptors().addAll(networkInterceptors);
-        okBuilder.interceptors().add(freeSoundApiInterceptor);
 
         return okBuilder.build();
     }
 
+    @Provides
+    @Singleton
+    @ForFreeSoundApi
+    static Cache provideHttpCache(@ForApplication Context context) {
+        return new Cache(new File(context.getCacheDir(), HTTP_CACHE_DIRECTORY),
+                         HTTP_CACHE_SIZE_BYTES);
+    }
+
+    @Provides
+    @Singleton
+    static HttpCacheStats provideHttpCacheStats() {
+        return new HttpCacheStats();
+    }
+
+    /*
+     * Shared with audio playback, which measures its own transfers.
+     */
+    @Provides
+    @Singleton
+    static NetworkBandwidthMeter provideNetworkBandwidthMeter() {
+        return new NetworkBandwidthMeter();
+    }
+
+    @Provides
+    @Singleton
+    static StaleWhileRevalidateInterceptor provideStaleWhileRevalidateInterceptor(
+            @ForFreeSoundApi Lazy<OkHttpClient> client,
+            HttpCacheStats httpCacheStats) {
+        return new StaleWhileRevalidateInterceptor(client, httpCacheStats);
+    }
+
     @Provides
     @Singleton
     static FreeSoundApiInterceptor provideApiInterceptor(
@@ -115,7 +171,7 @@ public class ApiNetworkModule {
 
     @Qualifier
     @Retention(RUNTIME)
-    @interface ForFreeSoundApi {
+    public @interface ForFreeSoundApi {
     }
 
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import static com.futurice.freesound.common.utils.Preconditions.get;
+
+/**
+ * A network {@link Interceptor} which records the transfer of each response to the
+ * {@link NetworkBandwidthMeter}, once its body has been read to the end.
+ *
+ * Responses served from the OkHttp cache never reach the network, so are not recorded.
+ */
+final class BandwidthMeterInterceptor implements Interceptor {
+
+    @NonNull
+    private final NetworkBandwidthMeter bandwidthMeter;
+
+    BandwidthMeterInterceptor(@NonNull final NetworkBandwidthMeter bandwidthMeter) {
+        this.bandwidthMeter = get(bandwidthMeter);
+    }
+
+    @Override
+    public Response intercept(final Chain chain) throws IOException {
+        long startNanos = System.nanoTime();
+        Response response = chain.proceed(chain.request());
+
+        ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+        return response.newBuilder()
+                       .body(new MeteredResponseBody(body, startNanos))
+                       .build();
+    }
+
+    private final class MeteredResponseBody extends ResponseBody {
+
+        @NonNull
+        private final ResponseBody body;
+
+        @NonNull
+        private final BufferedSource source;
+
+        MeteredResponseBody(@NonNull final ResponseBody body, final long startNanos) {
+            this.body = body;
+            this.source = Okio.buffer(new ForwardingSource(body.source()) {
+
+                private long bytesRead;
+
+                private boolean isRecorded;
+
+                @Override
+                public long read(@NonNull final Buffer sink, final long byteCount)
+                        throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read == -1) {
+                        recordOnce();
+                    } else {
+                        bytesRead += read;
+                    }
+                    return read;
+                }
+
+                private void recordOnce() {
+                    if (!isRecorded) {
+                        isRecorded = true;
+                        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                        bandwidthMeter.recordTransfer(bytesRead, elapsedMs);
+                    }
+                }
+            });
+        }
+
+        @Nullable
+        @Override
+        public MediaType contentType() {
+            return body.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return body.contentLength();
+        }
+
+        @NonNull
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
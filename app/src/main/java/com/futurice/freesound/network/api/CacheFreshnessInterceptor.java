@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * A network {@link Interceptor} which applies a per-endpoint freshness policy to successful
+ * responses, so that they can be stored and served by the OkHttp response cache.
+ *
+ * The Freesound API does not provide caching headers of its own, so without this no response
+ * would ever be reused.
+ */
+final class CacheFreshnessInterceptor implements Interceptor {
+
+    static final long USER_MAX_AGE_SECONDS = TimeUnit.DAYS.toSeconds(1);
+    static final long USER_SOUNDS_MAX_AGE_SECONDS = TimeUnit.HOURS.toSeconds(1);
+    static final long SEARCH_MAX_AGE_SECONDS = TimeUnit.MINUTES.toSeconds(5);
+    static final long SOUND_MAX_AGE_SECONDS = TimeUnit.DAYS.toSeconds(1);
+
+    private static final long NOT_CACHEABLE = 0;
+
+    @Override
+    public Response intercept(final Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+
+        long maxAgeSeconds = maxAgeSeconds(request);
+        if (!response.isSuccessful() || maxAgeSeconds == NOT_CACHEABLE) {
+            return response;
+        }
+
+        return response.newBuilder()
+                       .removeHeader("Pragma")
+                       .header("Cache-Control", "public, max-age=" + maxAgeSeconds)
+                       .build();
+    }
+
+    static long maxAgeSeconds(@NonNull final Request request) {
+        if (!"GET".equals(request.method())) {
+            return NOT_CACHEABLE;
+        }
+        HttpUrl url = request.url();
+        String path = url.encodedPath();
+        if (path.endsWith("/search/text/")) {
+            return SEARCH_MAX_AGE_SECONDS;
+        }
+        if (path.contains("/users/") && path.endsWith("/sounds/")) {
+            return USER_SOUNDS_MAX_AGE_SECONDS;
+        }
+        if (path.contains("/users/")) {
+            return USER_MAX_AGE_SECONDS;
+        }
+        if (path.contains("/sounds/")) {
+            return SOUND_MAX_AGE_SECONDS;
+        }
+        return NOT_CACHEABLE;
+    }
+}
@@ -19,6 +19,8 @@ package com.futurice.freesound.network.api;
 import androidx.annotation.NonNull;
 
 import com.futurice.freesound.network.api.model.AccessToken;
+import com.futurice.freesound.network.api.model.SearchQuery;
+import com.futurice.freesound.network.api.model.SoundDetails;
 import com.futurice.freesound.network.api.model.SoundFields;
 import com.futurice.freesound.network.api.model.SoundSearchResult;
 import com.futurice.freesound.network.api.model.User;
@@ -67,16 +69,43 @@ final class DefaultFreeSoundApiClient implements FreeSoundApiClient {
 
     @Override
     @NonNull
-    public Single<SoundSearchResult> search(@NonNull final String query) {
-        return freeSoundApi.search(get(query),
-                null,
-                SoundFields.BASE);
+    public Single<SoundSearchResult> search(@NonNull final SearchQuery query,
+                                            @NonNull final SoundFields fields) {
+        return freeSoundApi.search(get(query).getText(),
+                query.filter(),
+                query.getSort(),
+                query.getPageSize(),
+                get(fields));
+    }
+
+    @Override
+    @NonNull
+    public Single<SoundSearchResult> refreshSearch(@NonNull final SearchQuery query,
+                                                   @NonNull final SoundFields fields) {
+        return freeSoundApi.searchFromNetwork(get(query).getText(),
+                query.filter(),
+                query.getSort(),
+                query.getPageSize(),
+                get(fields));
+    }
+
+    @NonNull
+    @Override
+    public Single<SoundSearchResult> sounds(@NonNull final String username,
+                                            @NonNull final SoundFields fields) {
+        return freeSoundApi.sounds(get(username), get(fields));
+    }
+
+    @NonNull
+    @Override
+    public Single<SoundDetails> getSound(final long id) {
+        return freeSoundApi.sound(id, SoundFields.DETAIL);
     }
 
     @NonNull
     @Override
-    public Single<SoundSearchResult> sounds(@NonNull String username) {
-        return freeSoundApi.sounds(get(username), SoundFields.BASE);
+    public Single<SoundSearchResult> page(@NonNull String pageUrl) {
+        return freeSoundApi.page(get(pageUrl));
     }
 
 }
@@ -20,16 +20,20 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.futurice.freesound.network.api.model.AccessToken;
+import com.futurice.freesound.network.api.model.SoundDetails;
 import com.futurice.freesound.network.api.model.SoundFields;
 import com.futurice.freesound.network.api.model.SoundSearchResult;
+import com.futurice.freesound.network.api.model.SortOrder;
 import com.futurice.freesound.network.api.model.User;
 
 import io.reactivex.Single;
 import retrofit2.http.GET;
 import retrofit2.http.Header;
+import retrofit2.http.Headers;
 import retrofit2.http.POST;
 import retrofit2.http.Path;
 import retrofit2.http.Query;
+import retrofit2.http.Url;
 
 /**
  * Retrofit2 annotated interface to the Freesound API.
@@ -42,8 +46,30 @@ interface FreeSoundApi {
     @GET("search/text/")
     Single<SoundSearchResult> search(@Query("query") @NonNull String query,
                                      @Query("filter") @Nullable String filter,
+                                     @Query("sort") @NonNull SortOrder sort,
+                                     @Query("page_size") int pageSize,
                                      @Query("fields") @NonNull SoundFields fields);
 
+    /**
+     * As {@link #search}, but always answered by the network rather than by a cached response.
+     */
+    @NonNull
+    @Headers("Cache-Control: no-cache")
+    @GET("search/text/")
+    Single<SoundSearchResult> searchFromNetwork(@Query("query") @NonNull String query,
+                                                @Query("filter") @Nullable String filter,
+                                                @Query("sort") @NonNull SortOrder sort,
+                                                @Query("page_size") int pageSize,
+                                                @Query("fields") @NonNull SoundFields fields);
+
+    /**
+     * Fetches a page of results from the absolute URL provided in the {@code next} or
+     * {@code previous} field of a {@link SoundSearchResult}.
+     */
+    @NonNull
+    @GET
+    Single<SoundSearchResult> page(@Url @NonNull String pageUrl);
+
     @NonNull
     @GET("users/{username}/")
     Single<User> user(@Path("username") @NonNull final String username);
@@ -53,6 +79,11 @@ interface FreeSoundApi {
     Single<SoundSearchResult> sounds(@Path("username") @NonNull final String username,
                                      @Query("fields") @NonNull SoundFields fields);
 
+    @NonNull
+    @GET("sounds/{id}/")
+    Single<SoundDetails> sound(@Path("id") long id,
+                               @Query("fields") @NonNull SoundFields fields);
+
     @NonNull
     @POST("oauth2/access_token/")
     Single<AccessToken> accessToken(@Header("client_id") @NonNull String clientId,
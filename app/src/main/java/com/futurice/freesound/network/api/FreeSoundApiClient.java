@@ -17,6 +17,9 @@
 package com.futurice.freesound.network.api;
 
 import com.futurice.freesound.network.api.model.AccessToken;
+import com.futurice.freesound.network.api.model.SearchQuery;
+import com.futurice.freesound.network.api.model.SoundDetails;
+import com.futurice.freesound.network.api.model.SoundFields;
 import com.futurice.freesound.network.api.model.SoundSearchResult;
 import com.futurice.freesound.network.api.model.User;
 
@@ -35,9 +38,34 @@ public interface FreeSoundApiClient {
     @NonNull
     Single<AccessToken> getAccessToken(@NonNull String code);
 
+    /**
+     * Searches for sounds, each result containing only the given fields.
+     *
+     * The query's filters and sort order are applied by the API, as are those of its later pages.
+     */
     @NonNull
-    Single<SoundSearchResult> search(@NonNull String query);
+    Single<SoundSearchResult> search(@NonNull SearchQuery query, @NonNull SoundFields fields);
 
+    /**
+     * As {@link #search}, but bypassing any cached response, however fresh, so that the results
+     * are always current.
+     */
     @NonNull
-    Single<SoundSearchResult> sounds(@NonNull String username);
+    Single<SoundSearchResult> refreshSearch(@NonNull SearchQuery query,
+                                            @NonNull SoundFields fields);
+
+    /**
+     * Fetches the sounds of a user, each result containing only the given fields.
+     */
+    @NonNull
+    Single<SoundSearchResult> sounds(@NonNull String username, @NonNull SoundFields fields);
+
+    /**
+     * Fetches the full details of a single sound.
+     */
+    @NonNull
+    Single<SoundDetails> getSound(long id);
+
+    @NonNull
+    Single<SoundSearchResult> page(@NonNull String pageUrl);
 }
@@ -36,6 +36,9 @@ import static com.futurice.freesound.network.api.ApiConstants.TOKEN_QUERY_PARAM;
  * application client id.
  *
  * The naming reflects that used in the Freesound documentation: the token is the client secret.
+ *
+ * When installed as a network interceptor, the returned response refers to the original request,
+ * so that the token is not part of the response cache key and is never written to disk.
  */
 final class FreeSoundApiInterceptor implements Interceptor {
 
@@ -49,12 +52,15 @@ final class FreeSoundApiInterceptor implements Interceptor {
 
     @Override
     public Response intercept(final Chain chain) throws IOException {
-        Request requestWithToken = chain.request()
-                                        .newBuilder()
-                                        .url(getUrlWithApiToken(chain))
-                                        .build();
+        Request request = chain.request();
+        Request requestWithToken = request.newBuilder()
+                                          .url(getUrlWithApiToken(chain))
+                                          .build();
 
-        return chain.proceed(requestWithToken);
+        return chain.proceed(requestWithToken)
+                    .newBuilder()
+                    .request(request)
+                    .build();
     }
 
     @NonNull
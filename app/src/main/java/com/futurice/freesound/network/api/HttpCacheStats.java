@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for the Freesound API response cache and request coalescing, used to measure the
+ * network traffic saved.
+ */
+public final class HttpCacheStats {
+
+    @NonNull
+    private final AtomicLong hitCount = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong staleHitCount = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong missCount = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong revalidationCount = new AtomicLong();
+
+    @NonNull
+    private final AtomicLong deduplicatedCount = new AtomicLong();
+
+    void recordHit() {
+        hitCount.incrementAndGet();
+    }
+
+    void recordStaleHit() {
+        staleHitCount.incrementAndGet();
+    }
+
+    void recordMiss() {
+        missCount.incrementAndGet();
+    }
+
+    void recordRevalidation() {
+        revalidationCount.incrementAndGet();
+    }
+
+    void recordDeduplicated() {
+        deduplicatedCount.incrementAndGet();
+    }
+
+    /**
+     * @return the number of requests served from a fresh cache entry.
+     */
+    public long hitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of requests served from a stale cache entry, which was then
+     * revalidated in the background.
+     */
+    public long staleHitCount() {
+        return staleHitCount.get();
+    }
+
+    /**
+     * @return the number of requests which had to wait for the network.
+     */
+    public long missCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return the number of completed background revalidations.
+     */
+    public long revalidationCount() {
+        return revalidationCount.get();
+    }
+
+    /**
+     * @return the number of calls which shared an identical in-flight request rather than
+     * making their own.
+     */
+    public long deduplicatedCount() {
+        return deduplicatedCount.get();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "HttpCacheStats{"
+               + "hitCount=" + hitCount
+               + ", staleHitCount=" + staleHitCount
+               + ", missCount=" + missCount
+               + ", revalidationCount=" + revalidationCount
+               + ", deduplicatedCount=" + deduplicatedCount
+               + '}';
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Estimates the network bandwidth from the most recent transfers, both of the API client and of
+ * audio playback.
+ *
+ * The estimate is the throughput of those transfers taken together, so that large transfers
+ * count for more than small ones, whose time is mostly latency.
+ */
+public final class NetworkBandwidthMeter {
+
+    public static final long NO_ESTIMATE = -1;
+
+    static final int MAX_TRANSFERS = 20;
+
+    @NonNull
+    private final long[] transferBytes = new long[MAX_TRANSFERS];
+
+    @NonNull
+    private final long[] transferMs = new long[MAX_TRANSFERS];
+
+    private int transferCount;
+
+    private int next;
+
+    /**
+     * Records a completed transfer; those which moved no bytes are ignored.
+     *
+     * @param bytes     the number of bytes transferred.
+     * @param elapsedMs the time taken, from the request until the last byte.
+     */
+    public synchronized void recordTransfer(final long bytes, final long elapsedMs) {
+        if (bytes <= 0) {
+            return;
+        }
+        transferBytes[next] = bytes;
+        transferMs[next] = Math.max(1, elapsedMs); // Faster than the clock can tell
+        next = (next + 1) % MAX_TRANSFERS;
+        transferCount = Math.min(transferCount + 1, MAX_TRANSFERS);
+    }
+
+    /**
+     * @return the estimated bandwidth in bits per second, or {@link #NO_ESTIMATE} if there have
+     * been no transfers.
+     */
+    public synchronized long bitrateEstimate() {
+        if (transferCount == 0) {
+            return NO_ESTIMATE;
+        }
+        long bytes = 0;
+        long ms = 0;
+        for (int i = 0; i < transferCount; i++) {
+            bytes += transferBytes[i];
+            ms += transferMs[i];
+        }
+        return bytes * 8 * 1000 / ms;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "NetworkBandwidthMeter{"
+               + "bitrateEstimate=" + bitrateEstimate()
+               + '}';
+    }
+}
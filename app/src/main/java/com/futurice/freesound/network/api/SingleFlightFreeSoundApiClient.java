@@ -0,0 +1,156 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api;
+
+import androidx.annotation.NonNull;
+
+import com.futurice.freesound.network.api.model.AccessToken;
+import com.futurice.freesound.network.api.model.SearchQuery;
+import com.futurice.freesound.network.api.model.SoundDetails;
+import com.futurice.freesound.network.api.model.SoundFields;
+import com.futurice.freesound.network.api.model.SoundSearchResult;
+import com.futurice.freesound.network.api.model.User;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.inject.Inject;
+
+import io.reactivex.Single;
+
+import static com.futurice.freesound.common.utils.Preconditions.get;
+
+/**
+ * A {@link FreeSoundApiClient} decorator which coalesces concurrent identical calls, so that all
+ * subscribers share the single in-flight request. The request is forgotten once it completes,
+ * so later calls will fetch again.
+ *
+ * The request is disposed once all of its subscribers have been, which cancels its HTTP call,
+ * so a superseded search doesn't keep downloading.
+ *
+ * Fetching an access token is never shared, as each authorization code can only be used once.
+ */
+final class SingleFlightFreeSoundApiClient implements FreeSoundApiClient {
+
+    @NonNull
+    private final FreeSoundApiClient delegate;
+
+    @NonNull
+    private final HttpCacheStats stats;
+
+    @NonNull
+    private final ConcurrentMap<String, Single<?>> inFlight = new ConcurrentHashMap<>();
+
+    @Inject
+    SingleFlightFreeSoundApiClient(@NonNull final DefaultFreeSoundApiClient delegate,
+                                   @NonNull final HttpCacheStats stats) {
+        this((FreeSoundApiClient) delegate, stats);
+    }
+
+    SingleFlightFreeSoundApiClient(@NonNull final FreeSoundApiClient delegate,
+                                   @NonNull final HttpCacheStats stats) {
+        this.delegate = get(delegate);
+        this.stats = get(stats);
+    }
+
+    @NonNull
+    @Override
+    public Single<User> getUser(@NonNull final String user) {
+        return singleFlight("user:" + user, () -> delegate.getUser(user));
+    }
+
+    @NonNull
+    @Override
+    public Single<AccessToken> getAccessToken(@NonNull final String code) {
+        return delegate.getAccessToken(code);
+    }
+
+    @NonNull
+    @Override
+    public Single<SoundSearchResult> search(@NonNull final SearchQuery query,
+                                            @NonNull final SoundFields fields) {
+        return singleFlight("search:" + fields.name() + ":" + query,
+                () -> delegate.search(query, fields));
+    }
+
+    @NonNull
+    @Override
+    public Single<SoundSearchResult> refreshSearch(@NonNull final SearchQuery query,
+                                                   @NonNull final SoundFields fields) {
+        // Not shared with plain searches, which may be answered from the cache.
+        return singleFlight("refresh:" + fields.name() + ":" + query,
+                () -> delegate.refreshSearch(query, fields));
+    }
+
+    @NonNull
+    @Override
+    public Single<SoundSearchResult> sounds(@NonNull final String username,
+                                            @NonNull final SoundFields fields) {
+        return singleFlight("sounds:" + fields.name() + ":" + username,
+                () -> delegate.sounds(username, fields));
+    }
+
+    @NonNull
+    @Override
+    public Single<SoundDetails> getSound(final long id) {
+        return singleFlight("sound:" + id, () -> delegate.getSound(id));
+    }
+
+    @NonNull
+    @Override
+    public Single<SoundSearchResult> page(@NonNull final String pageUrl) {
+        return singleFlight("page:" + pageUrl, () -> delegate.page(pageUrl));
+    }
+
+    @SuppressWarnings("unchecked")
+    @NonNull
+    private <T> Single<T> singleFlight(@NonNull final String key,
+                                       @NonNull final SourceFactory<T> sourceFactory) {
+        return Single.defer(() -> {
+            Single<T> existing = inFlight(key);
+            if (existing == null) {
+                // A late subscriber can reconnect a finished request, so its end must only ever
+                // forget itself, never a newer request under the same key.
+                AtomicReference<Single<T>> self = new AtomicReference<>();
+                Single<T> shared = sourceFactory.create()
+                                                .toObservable()
+                                                .doFinally(() -> inFlight.remove(key, self.get()))
+                                                .replay(1)
+                                                .refCount()
+                                                .singleOrError();
+                self.set(shared);
+                existing = (Single<T>) inFlight.putIfAbsent(key, shared);
+                if (existing == null) {
+                    return shared;
+                }
+            }
+            stats.recordDeduplicated();
+            return existing;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Single<T> inFlight(@NonNull final String key) {
+        return (Single<T>) inFlight.get(key);
+    }
+
+    private interface SourceFactory<T> {
+        @NonNull
+        Single<T> create();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.concurrent.TimeUnit;
+
+import dagger.Lazy;
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import timber.log.Timber;
+
+import static com.futurice.freesound.common.utils.Preconditions.get;
+
+/**
+ * An application {@link Interceptor} which immediately serves a cached response, even if stale,
+ * and then revalidates stale responses in the background so the next request gets fresh data.
+ *
+ * Requests which explicitly disable caching, including the background revalidation requests,
+ * are passed through untouched.
+ */
+final class StaleWhileRevalidateInterceptor implements Interceptor {
+
+    // How long after a response has expired it can still be served while revalidating.
+    static final int MAX_STALE_DAYS = 7;
+
+    // OkHttp adds this warning to cached responses served beyond their freshness lifetime.
+    private static final String STALE_WARNING_PREFIX = "110";
+
+    @NonNull
+    private final Lazy<OkHttpClient> client;
+
+    @NonNull
+    private final HttpCacheStats stats;
+
+    StaleWhileRevalidateInterceptor(@NonNull final Lazy<OkHttpClient> client,
+                                    @NonNull final HttpCacheStats stats) {
+        this.client = get(client);
+        this.stats = get(stats);
+    }
+
+    @Override
+    public Response intercept(final Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!"GET".equals(request.method()) || request.cacheControl().noCache()) {
+            return chain.proceed(request);
+        }
+
+        Response cached = chain.proceed(cacheOnly(request));
+        if (cached.code() == HttpURLConnection.HTTP_GATEWAY_TIMEOUT) {
+            // Not in the cache (or too stale to serve), so wait for the network.
+            cached.close();
+            stats.recordMiss();
+            return chain.proceed(request);
+        }
+
+        if (isStale(cached)) {
+            stats.recordStaleHit();
+            revalidate(request);
+        } else {
+            stats.recordHit();
+        }
+        return cached;
+    }
+
+    private void revalidate(@NonNull final Request request) {
+        Request revalidation = request.newBuilder()
+                                      .cacheControl(CacheControl.FORCE_NETWORK)
+                                      .build();
+        client.get().newCall(revalidation).enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull final Call call, @NonNull final IOException e) {
+                Timber.w(e, "Unable to revalidate: %s", call.request().url().encodedPath());
+            }
+
+            @Override
+            public void onResponse(@NonNull final Call call, @NonNull final Response response) {
+                // Reading the body is what writes the response to the cache.
+                try {
+                    response.body().string();
+                    stats.recordRevalidation();
+                } catch (IOException e) {
+                    Timber.w(e, "Unable to revalidate: %s", call.request().url().encodedPath());
+                } finally {
+                    response.close();
+                }
+            }
+        });
+    }
+
+    @NonNull
+    private static Request cacheOnly(@NonNull final Request request) {
+        return request.newBuilder()
+                      .cacheControl(new CacheControl.Builder()
+                                            .onlyIfCached()
+                                            .maxStale(MAX_STALE_DAYS, TimeUnit.DAYS)
+                                            .build())
+                      .build();
+    }
+
+    private static boolean isStale(@NonNull final Response response) {
+        for (String warning : response.headers("Warning")) {
+            if (warning.startsWith(STALE_WARNING_PREFIX)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -17,7 +17,9 @@
 package com.futurice.freesound.network.api.model
 
 import com.squareup.moshi.Json
+import com.squareup.moshi.JsonClass
 
+@JsonClass(generateAdapter = true)
 data class AccessToken(
         @Json(name = "access_token") val accessToken: String,
         val scope: String,
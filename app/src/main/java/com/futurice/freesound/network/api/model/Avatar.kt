@@ -1,5 +1,8 @@
 package com.futurice.freesound.network.api.model
 
+import com.squareup.moshi.JsonClass
+
+@JsonClass(generateAdapter = true)
 data class Avatar(
         val small: String,
         val medium: String,
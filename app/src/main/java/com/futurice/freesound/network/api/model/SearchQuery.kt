@@ -0,0 +1,142 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api.model
+
+/**
+ * The page size used by the Freesound API when none is requested.
+ */
+const val DEFAULT_PAGE_SIZE = 15
+
+/**
+ * The largest page size the Freesound API allows.
+ */
+const val MAX_PAGE_SIZE = 150
+
+/**
+ * A text search for sounds, narrowed by [filters] and ordered by [sort].
+ *
+ * Both are applied by the Freesound API, so only the matching sounds are downloaded, [pageSize]
+ * at a time. Queries are immutable; narrow one with [filteredBy], [sortedBy] and [withPageSize].
+ *
+ * Refer to: http://www.freesound.org/docs/api/resources_apiv2.html#text-search
+ */
+data class SearchQuery @JvmOverloads constructor(
+        val text: String,
+        val filters: List<SearchFilter> = emptyList(),
+        val sort: SortOrder = SortOrder.SCORE,
+        val pageSize: Int = DEFAULT_PAGE_SIZE) {
+
+    init {
+        require(pageSize in 1..MAX_PAGE_SIZE) { "pageSize must be within 1 and $MAX_PAGE_SIZE: $pageSize" }
+    }
+
+    fun filteredBy(filter: SearchFilter): SearchQuery = copy(filters = filters + filter)
+
+    fun sortedBy(sort: SortOrder): SearchQuery = copy(sort = sort)
+
+    fun withPageSize(pageSize: Int): SearchQuery = copy(pageSize = pageSize)
+
+    /**
+     * The [filters] in the Freesound filter syntax, all of which must match, or null if there
+     * are none.
+     */
+    fun filter(): String? =
+            if (filters.isEmpty()) null
+            else filters.joinToString(separator = " AND ") { it.toFilter() }
+
+}
+
+/**
+ * A condition that the sounds of a [SearchQuery] must meet.
+ *
+ * Refer to: http://www.freesound.org/docs/api/resources_apiv2.html#filtering
+ */
+sealed class SearchFilter {
+
+    abstract fun toFilter(): String
+
+    /**
+     * Sounds lasting between [minSeconds] and [maxSeconds], inclusive. A null bound is open.
+     */
+    data class Duration(val minSeconds: Float?, val maxSeconds: Float?) : SearchFilter() {
+
+        init {
+            require(minSeconds != null || maxSeconds != null) { "Duration must have a bound" }
+            require(minSeconds == null || maxSeconds == null || minSeconds <= maxSeconds) {
+                "minSeconds must not exceed maxSeconds: $minSeconds > $maxSeconds"
+            }
+        }
+
+        override fun toFilter(): String = "duration:[${minSeconds ?: "*"} TO ${maxSeconds ?: "*"}]"
+    }
+
+    /**
+     * Sounds tagged with [tag].
+     */
+    data class Tag(val tag: String) : SearchFilter() {
+        override fun toFilter(): String = "tag:${quoted(tag)}"
+    }
+
+    /**
+     * Sounds uploaded by [username].
+     */
+    data class Username(val username: String) : SearchFilter() {
+        override fun toFilter(): String = "username:${quoted(username)}"
+    }
+
+    /**
+     * Sounds published under [license].
+     */
+    data class License(val license: SoundLicense) : SearchFilter() {
+        override fun toFilter(): String = "license:${quoted(license.value)}"
+    }
+
+    /**
+     * Sounds which have been geotagged.
+     */
+    object Geotagged : SearchFilter() {
+        override fun toFilter(): String = "is_geotagged:true"
+    }
+
+}
+
+enum class SoundLicense(internal val value: String) {
+    ATTRIBUTION("Attribution"),
+    ATTRIBUTION_NONCOMMERCIAL("Attribution Noncommercial"),
+    CREATIVE_COMMONS_0("Creative Commons 0")
+}
+
+/**
+ * The orders in which the Freesound API can sort search results.
+ */
+enum class SortOrder(private val value: String) {
+    SCORE("score"),
+    DURATION_DESCENDING("duration_desc"),
+    DURATION_ASCENDING("duration_asc"),
+    CREATED_DESCENDING("created_desc"),
+    CREATED_ASCENDING("created_asc"),
+    DOWNLOADS_DESCENDING("downloads_desc"),
+    DOWNLOADS_ASCENDING("downloads_asc"),
+    RATING_DESCENDING("rating_desc"),
+    RATING_ASCENDING("rating_asc");
+
+    override fun toString(): String = value
+}
+
+// Quotes a value as a phrase, so that it may contain spaces and reserved characters.
+private fun quoted(value: String): String =
+        "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\""
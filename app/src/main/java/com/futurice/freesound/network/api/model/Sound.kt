@@ -20,28 +20,30 @@ import android.annotation.SuppressLint
 import android.os.Parcelable
 import com.petertackage.jonty.Fieldable
 import com.squareup.moshi.Json
+import com.squareup.moshi.JsonClass
 import kotlinx.android.parcel.Parcelize
 import java.util.*
 
 /**
+ * The compact representation of a sound, as shown in lists.
+ *
+ * Its properties define [SoundFields.LIST], so each one added here is downloaded for every
+ * result of every page. Use [SoundDetails] for anything only shown for a single sound.
+ *
  * Refer to: http://www.freesound.org/docs/api/resources_apiv2.html#sound-resources
  */
 @SuppressLint("ParcelCreator")
 @Parcelize
 @Fieldable
+@JsonClass(generateAdapter = true)
 data class Sound(
         val id: Long,
-        // The URI for this sound on the Freesound website.
-        val url: String,
         // The name user gave to the sound.
         val name: String,
-        // An array of tags the user gave to the sound.
+        // An array of tags the user gave to the sound, which feed the search suggestions.
         val tags: List<String>,
         // The description the user gave to the sound.
         val description: String,
-        // Latitude and longitude of the geotag separated by spaces
-        // (e.g. “41.0082325664 28.9731252193”, only for sounds that have been geotagged).
-        val geotag: GeoLocation?,
         // The username of the uploader of the sound.
         val username: String,
         // Thumbnail image URLs of the waveform/spectral plot
@@ -54,6 +56,7 @@ data class Sound(
 
 @SuppressLint("ParcelCreator")
 @Parcelize
+@JsonClass(generateAdapter = true)
 data class Image(
 
         @Json(name = "waveform_m")
@@ -70,6 +73,7 @@ data class Image(
 
 @SuppressLint("ParcelCreator")
 @Parcelize
+@JsonClass(generateAdapter = true)
 data class Preview(
 
         @Json(name = "preview-lq-mp3")
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api.model
+
+import com.petertackage.jonty.Fieldable
+import com.squareup.moshi.JsonClass
+import java.util.*
+
+/**
+ * The full representation of a single sound, as shown in its details.
+ *
+ * Its properties define [SoundFields.DETAIL].
+ *
+ * Refer to: http://www.freesound.org/docs/api/resources_apiv2.html#sound-instance
+ */
+@Fieldable
+@JsonClass(generateAdapter = true)
+data class SoundDetails(
+        val id: Long,
+        // The URI for this sound on the Freesound website.
+        val url: String,
+        // The name user gave to the sound.
+        val name: String,
+        // An array of tags the user gave to the sound.
+        val tags: List<String>,
+        // The description the user gave to the sound.
+        val description: String,
+        // Latitude and longitude of the geotag separated by spaces
+        // (e.g. “41.0082325664 28.9731252193”, only for sounds that have been geotagged).
+        val geotag: GeoLocation?,
+        // The username of the uploader of the sound.
+        val username: String,
+        // Thumbnail image URLs of the waveform/spectral plot
+        val images: Image,
+        // Preview sounds URLs
+        val previews: Preview,
+        // Duration in seconds
+        val duration: Float,
+        val created: Date,
+        // The URI of the license of the sound.
+        val license: String,
+        // The file type of the original sound (e.g. "wav", "flac").
+        val type: String,
+        // Number of channels of the original sound.
+        val channels: Int,
+        // Size of the original sound file in bytes.
+        val filesize: Long,
+        // Sample rate of the original sound.
+        val samplerate: Float,
+        // Bit rate of the original sound in kbps.
+        val bitrate: Int,
+        // Bit depth of the original sound.
+        val bitdepth: Int)
@@ -16,17 +16,30 @@
 
 package com.futurice.freesound.network.api.model;
 
+/**
+ * The projections of the sound resources that can be requested from the Freesound API, each
+ * listing exactly the properties of the model it is mapped to.
+ */
 public enum SoundFields {
-    BASE(Sound_JontyFielder.FIELDS);
 
-    private final Iterable<String> fields;
+    /**
+     * The compact {@link Sound}, for pages of results.
+     */
+    LIST(Sound_JontyFielder.FIELDS),
+
+    /**
+     * The full {@link SoundDetails}, for a single sound.
+     */
+    DETAIL(SoundDetails_JontyFielder.FIELDS);
+
+    private final String fields;
 
     SoundFields(Iterable<String> fields) {
-        this.fields = fields;
+        this.fields = RequestsKt.asCommaSeparated(fields);
     }
 
     @Override
     public String toString() {
-        return RequestsKt.asCommaSeparated(fields);
+        return fields;
     }
 }
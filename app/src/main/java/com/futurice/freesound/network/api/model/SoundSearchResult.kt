@@ -16,6 +16,9 @@
 
 package com.futurice.freesound.network.api.model
 
+import com.squareup.moshi.JsonClass
+
+@JsonClass(generateAdapter = true)
 data class SoundSearchResult (
     val count: Int,
     val next: String?,
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api.model.mapping
+
+import com.squareup.moshi.JsonAdapter
+import com.squareup.moshi.JsonDataException
+import com.squareup.moshi.JsonReader
+import com.squareup.moshi.JsonWriter
+import java.util.*
+
+private const val INVALID = Long.MIN_VALUE
+private const val MILLIS_PER_DAY = 24 * 60 * 60 * 1000L
+
+/**
+ * Required as the Freesound API uses RFC-3339, *except* that it omits the "Z" suffix!
+ *
+ * The precision also varies: some timestamps have up to 6 fractional second digits, others have
+ * none. Sub-second values are kept to the millisecond, the precision of [Date].
+ *
+ * The timestamp is scanned in place, so that other than the JSON string itself, the only
+ * allocation is the resulting [Date]. A zone suffix is accepted, though Freesound doesn't send one.
+ */
+class FreesoundDateJsonAdapter : JsonAdapter<Date>() {
+
+    override fun fromJson(reader: JsonReader): Date {
+        val timestamp = reader.nextString()
+        val millis = parseMillis(timestamp)
+        if (millis == INVALID) {
+            throw JsonDataException("Unable to deserialize Date from: $timestamp at path ${reader.path}")
+        }
+        return Date(millis)
+    }
+
+    override fun toJson(writer: JsonWriter, value: Date?) {
+        if (value == null) {
+            writer.nullValue()
+        } else {
+            writer.value(format(value.time))
+        }
+    }
+
+    override fun toString(): String = "JsonAdapter(FreesoundDate)"
+
+}
+
+// Returns the epoch millis of a timestamp of the form yyyy-MM-ddTHH:mm:ss[.S+][Z|±HH:mm|±HHmm],
+// or INVALID.
+private fun parseMillis(timestamp: String): Long {
+    val length = timestamp.length
+    if (length < 19
+            || timestamp[4] != '-' || timestamp[7] != '-' || timestamp[10] != 'T'
+            || timestamp[13] != ':' || timestamp[16] != ':') {
+        return INVALID
+    }
+    val year = digits(timestamp, 0, 4)
+    val month = digits(timestamp, 5, 2)
+    val day = digits(timestamp, 8, 2)
+    val hour = digits(timestamp, 11, 2)
+    val minute = digits(timestamp, 14, 2)
+    var second = digits(timestamp, 17, 2)
+    if (year < 0 || month !in 1..12 || day < 1 || day > daysInMonth(year, month)
+            || hour !in 0..23 || minute !in 0..59 || second !in 0..60) {
+        return INVALID
+    }
+    // Date can't represent a leap second.
+    if (second == 60) second = 59
+
+    var index = 19
+    var millis = 0
+    if (index < length && timestamp[index] == '.') {
+        val start = ++index
+        while (index < length && timestamp[index] in '0'..'9') {
+            // Truncate anything finer than milliseconds.
+            if (index - start < 3) millis = millis * 10 + (timestamp[index] - '0')
+            index++
+        }
+        val fractionDigits = index - start
+        if (fractionDigits == 0) return INVALID
+        for (i in fractionDigits until 3) millis *= 10
+    }
+
+    var offsetMinutes = 0
+    if (index < length) {
+        when (timestamp[index]) {
+            'Z' -> index++
+            '+', '-' -> {
+                val sign = if (timestamp[index] == '-') -1 else 1
+                val hasColon = index + 3 < length && timestamp[index + 3] == ':'
+                val offsetHours = digits(timestamp, index + 1, 2)
+                val offsetMins = digits(timestamp, if (hasColon) index + 4 else index + 3, 2)
+                if (offsetHours !in 0..23 || offsetMins !in 0..59) return INVALID
+                offsetMinutes = sign * (offsetHours * 60 + offsetMins)
+                index += if (hasColon) 6 else 5
+            }
+            else -> return INVALID
+        }
+    }
+    if (index != length) return INVALID
+
+    val minutes = (epochDay(year, month, day) * 24 + hour) * 60 + minute - offsetMinutes
+    return minutes * 60_000L + second * 1000L + millis
+}
+
+// Returns the value of count decimal digits starting at start, or -1.
+private fun digits(string: String, start: Int, count: Int): Int {
+    if (start < 0 || start + count > string.length) return -1
+    var value = 0
+    for (i in start until start + count) {
+        val c = string[i]
+        if (c !in '0'..'9') return -1
+        value = value * 10 + (c - '0')
+    }
+    return value
+}
+
+private fun isLeapYear(year: Int): Boolean = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)
+
+private fun daysInMonth(year: Int, month: Int): Int =
+        when (month) {
+            2 -> if (isLeapYear(year)) 29 else 28
+            4, 6, 9, 11 -> 30
+            else -> 31
+        }
+
+// Days since 1970-01-01 of a proleptic Gregorian date.
+// See: http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+private fun epochDay(year: Int, month: Int, day: Int): Long {
+    val y = if (month <= 2) year - 1 else year
+    val era = (if (y >= 0) y else y - 399) / 400
+    val yearOfEra = y - era * 400
+    val dayOfYear = (153 * ((month + 9) % 12) + 2) / 5 + day - 1
+    val dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear
+    return era * 146097L + dayOfEra - 719468
+}
+
+// Formats as yyyy-MM-ddTHH:mm:ss.SSS, in UTC and without a zone suffix, as Freesound does.
+// See: http://howardhinnant.github.io/date_algorithms.html#civil_from_days
+private fun format(epochMillis: Long): String {
+    // Floor division, as Math.floorDiv requires API 24.
+    val epochDay = if (epochMillis >= 0) epochMillis / MILLIS_PER_DAY
+    else (epochMillis + 1) / MILLIS_PER_DAY - 1
+    val millisOfDay = (epochMillis - epochDay * MILLIS_PER_DAY).toInt()
+
+    val z = epochDay + 719468
+    val era = (if (z >= 0) z else z - 146096) / 146097
+    val dayOfEra = z - era * 146097
+    val yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365
+    val dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100)
+    val mp = (5 * dayOfYear + 2) / 153
+    val day = (dayOfYear - (153 * mp + 2) / 5 + 1).toInt()
+    val month = (if (mp < 10) mp + 3 else mp - 9).toInt()
+    val year = (yearOfEra + era * 400 + if (month <= 2) 1 else 0).toInt()
+
+    return StringBuilder(23)
+            .appendPadded(year, 4).append('-')
+            .appendPadded(month, 2).append('-')
+            .appendPadded(day, 2).append('T')
+            .appendPadded(millisOfDay / 3_600_000, 2).append(':')
+            .appendPadded(millisOfDay / 60_000 % 60, 2).append(':')
+            .appendPadded(millisOfDay / 1000 % 60, 2).append('.')
+            .appendPadded(millisOfDay % 1000, 3)
+            .toString()
+}
+
+private fun StringBuilder.appendPadded(value: Int, width: Int): StringBuilder {
+    var limit = 10
+    for (i in 1 until width) {
+        if (value < limit) append('0')
+        limit *= 10
+    }
+    return append(value)
+}
@@ -16,16 +16,102 @@
 package com.futurice.freesound.network.api.model.mapping
 
 import com.futurice.freesound.network.api.model.GeoLocation
-import com.squareup.moshi.FromJson
-import com.squareup.moshi.JsonDataException
-
-class GeoLocationJsonAdapter {
-
-    @FromJson fun fromJson(json: String): GeoLocation =
-        json.trim()
-            .split(' ')
-            .mapNotNull { it.toDoubleOrNull() }
-            .takeIf { it.size == 2 }
-            ?.let { GeoLocation(latitude = it[0], longitude = it[1]) }
-            ?: throw JsonDataException("Unable to deserialize latitude/long values from: $json")
+import com.squareup.moshi.JsonAdapter
+import com.squareup.moshi.JsonReader
+import com.squareup.moshi.JsonWriter
+import timber.log.Timber
+
+// Decimals with up to this many digits are exactly representable as a long, and as a double.
+private const val MAX_EXACT_DIGITS = 15
+
+private val POWERS_OF_TEN = DoubleArray(MAX_EXACT_DIGITS + 1) { Math.pow(10.0, it.toDouble()) }
+
+/**
+ * Maps the Freesound geotag, the latitude and longitude separated by a space
+ * (e.g. "41.0082325664 28.9731252193"), to a [GeoLocation].
+ *
+ * The two values are scanned in place, rather than split into intermediate strings. A geotag
+ * that is malformed or out of range is mapped to null, rather than failing the whole response.
+ */
+class GeoLocationJsonAdapter : JsonAdapter<GeoLocation>() {
+
+    override fun fromJson(reader: JsonReader): GeoLocation? {
+        if (reader.peek() == JsonReader.Token.NULL) {
+            return reader.nextNull()
+        }
+        val geotag = reader.nextString()
+        val location = parseGeotag(geotag)
+        if (location == null) {
+            Timber.w("Ignoring malformed geotag: %s at path %s", geotag, reader.path)
+        }
+        return location
+    }
+
+    override fun toJson(writer: JsonWriter, value: GeoLocation?) {
+        if (value == null) {
+            writer.nullValue()
+        } else {
+            writer.value("${value.latitude} ${value.longitude}")
+        }
+    }
+
+    override fun toString(): String = "JsonAdapter(GeoLocation)"
+
 }
+
+private fun parseGeotag(geotag: String): GeoLocation? {
+    var start = 0
+    var end = geotag.length
+    while (start < end && geotag[start] == ' ') start++
+    while (end > start && geotag[end - 1] == ' ') end--
+
+    val separator = geotag.indexOf(' ', start)
+    if (separator < 0 || separator >= end) return null
+    var longitudeStart = separator
+    while (geotag[longitudeStart] == ' ') longitudeStart++
+
+    val latitude = parseDecimal(geotag, start, separator)
+    val longitude = parseDecimal(geotag, longitudeStart, end)
+    // NaN, from a malformed value, is out of any range.
+    return if (isWithin(latitude, 90.0) && isWithin(longitude, 180.0)) {
+        GeoLocation(latitude = latitude, longitude = longitude)
+    } else null
+}
+
+private fun isWithin(value: Double, limit: Double): Boolean = value >= -limit && value <= limit
+
+// Returns the value of the decimal in [start, end), or NaN if it is malformed.
+private fun parseDecimal(string: String, start: Int, end: Int): Double {
+    var index = start
+    val isNegative = index < end && string[index] == '-'
+    if (isNegative || (index < end && string[index] == '+')) index++
+
+    var mantissa = 0L
+    var digits = 0
+    var fractionDigits = 0
+    var hasPoint = false
+    while (index < end) {
+        val c = string[index]
+        when {
+            c in '0'..'9' -> {
+                // Dividing inexact values could round incorrectly, so leave those to the JDK.
+                if (digits == MAX_EXACT_DIGITS) return parseDecimalSlowly(string, start, end)
+                mantissa = mantissa * 10 + (c - '0')
+                digits++
+                if (hasPoint) fractionDigits++
+            }
+            c == '.' && !hasPoint -> hasPoint = true
+            c == 'e' || c == 'E' -> return parseDecimalSlowly(string, start, end)
+            else -> return Double.NaN
+        }
+        index++
+    }
+    if (digits == 0) return Double.NaN
+
+    // Both operands are exact, so the quotient is correctly rounded.
+    val magnitude = mantissa / POWERS_OF_TEN[fractionDigits]
+    return if (isNegative) -magnitude else magnitude
+}
+
+private fun parseDecimalSlowly(string: String, start: Int, end: Int): Double =
+        string.substring(start, end).toDoubleOrNull() ?: Double.NaN
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api.model.mapping
+
+import com.squareup.moshi.JsonAdapter
+import com.squareup.moshi.JsonClass
+import com.squareup.moshi.Moshi
+import com.squareup.moshi.Types
+import com.squareup.moshi.kotlin.reflect.KotlinJsonAdapterFactory
+import java.lang.reflect.Type
+
+/**
+ * Only uses reflection for Kotlin classes without a generated adapter.
+ *
+ * Moshi consults the factories added to its builder before its built-in ones, which include the
+ * lookup of adapters generated for [JsonClass] types. Registering [KotlinJsonAdapterFactory]
+ * directly would therefore shadow the generated adapters, so this declines those types.
+ */
+class ReflectiveFallbackJsonAdapterFactory(
+        private val delegate: JsonAdapter.Factory = KotlinJsonAdapterFactory()) : JsonAdapter.Factory {
+
+    override fun create(type: Type, annotations: Set<Annotation>, moshi: Moshi): JsonAdapter<*>? {
+        val rawType = Types.getRawType(type)
+        val jsonClass = rawType.getAnnotation(JsonClass::class.java)
+        return if (jsonClass != null && jsonClass.generateAdapter) null
+        else delegate.create(type, annotations, moshi)
+    }
+
+}
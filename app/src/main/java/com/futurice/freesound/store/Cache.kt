@@ -16,51 +16,39 @@
 
 package com.futurice.freesound.store
 
-import androidx.collection.LruCache
 import io.reactivex.Completable
-import io.reactivex.Maybe
-import io.reactivex.Observable
-import io.reactivex.subjects.BehaviorSubject
+import io.reactivex.Scheduler
+import io.reactivex.schedulers.Schedulers
 
 /**
  * A reactive cache.
+ *
+ * Observers are registered per key, so storing a value only notifies the observers of that key.
+ *
+ * The cache holds entries up to [maxWeight], as measured by the [weigher]; by default each entry
+ * weighs 1. Entries can expire a fixed time after they were written and/or last read.
+ *
+ * The storage itself is a [ConcurrentLruStore]. Each of its segments must be able to hold the
+ * heaviest entry, so caches of a few heavy entries should lower the [concurrencyLevel].
  */
-internal class Cache<K, V>(initialSize: Int = 100) : Store<K, V> {
-
-    // This is the source of truth.
-    private val cache: LruCache<K, V> = LruCache(initialSize)
-
-    private val cacheStream: BehaviorSubject<Set<Map.Entry<K, V>>> = BehaviorSubject.create()
-
-    // Emits the current value, if it exists, else empty.
-    override fun get(key: K): Maybe<V> {
-        return cache[key]?.let { Maybe.just(it) } ?: Maybe.empty()
-    }
-
-    // Emits the current value if it exists, then future values while the value is still in the
-    // cache. Does not complete.
-    override fun getStream(key: K): Observable<V> {
-        // If the value is removed from the cache, then this will not complete, it just
-        // won't get any more values. That's why using take(1), not firstOrError().
-        return cacheStream
-                .concatMap {
-                    Observable.fromIterable(it)
-                            .filter { it.key == key }
-                            .map { it.value }
-                            .take(1)
-                }
-    }
-
-    // Store the provided value for the given key. Completes when the operation has finished.
-    override fun put(key: K, value: V): Completable {
-        return Completable.fromAction { storeAndFlush(key, value) }
-    }
-
-    private fun storeAndFlush(key: K, value: V) {
-        // Put a value into the cache and flush the cache values through the stream.
-        synchronized(cache) {
-            cache.put(key, value)
-            cacheStream.onNext(cache.snapshot().entries)
-        }
-    }
+internal class Cache<K, V> private constructor(private val store: ConcurrentLruStore<K, V>)
+    : Store<K, V> by store {
+
+    @JvmOverloads constructor(maxWeight: Int = 100,
+                              weigher: (K, V) -> Int = { _, _ -> 1 },
+                              expireAfterWriteMs: Long = NO_EXPIRY,
+                              expireAfterAccessMs: Long = NO_EXPIRY,
+                              scheduler: Scheduler = Schedulers.computation(),
+                              concurrencyLevel: Int = ConcurrentLruStore.DEFAULT_CONCURRENCY_LEVEL)
+            : this(ConcurrentLruStore(maxWeight,
+            weigher,
+            expireAfterWriteMs,
+            expireAfterAccessMs,
+            scheduler,
+            concurrencyLevel))
+
+    // Store the provided value as if written at the given time, by the clock of the scheduler.
+    fun put(key: K, value: V, writtenAtMs: Long): Completable = store.put(key, value, writtenAtMs)
+
+    fun stats(): CacheStats = store.stats()
 }
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.store
+
+import io.reactivex.Completable
+import io.reactivex.Maybe
+import io.reactivex.Observable
+import io.reactivex.ObservableEmitter
+import io.reactivex.Scheduler
+import io.reactivex.disposables.Disposable
+import io.reactivex.schedulers.Schedulers
+import java.util.ArrayDeque
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+const val NO_EXPIRY = -1L
+
+// Below this weight per segment, LRU order across the store matters more than lock contention.
+private const val MIN_SEGMENT_WEIGHT = 16
+
+/**
+ * A platform independent, thread safe LRU [Store].
+ *
+ * Entries are spread over lock-striped segments by key hash, each a [LinkedHashMap] kept in least
+ * recently used order. Operations on keys in different segments don't contend, at the cost of LRU
+ * order only being exact within a segment. Small stores use a single segment.
+ *
+ * The [maxWeight] is shared by all segments. A write beyond it evicts the least recently used
+ * entries of its own segment first, then those of the others.
+ *
+ * Entries can expire a fixed time after they were written and/or last read, as measured by
+ * the [scheduler] clock. An entry is found to have expired when next read; while its key is
+ * watched, also by a periodic sweep of its segment.
+ *
+ * Events are emitted in order, once the segment lock has been released.
+ */
+class ConcurrentLruStore<K, V> @JvmOverloads constructor(
+        maxWeight: Int,
+        private val weigher: (K, V) -> Int = { _, _ -> 1 },
+        private val expireAfterWriteMs: Long = NO_EXPIRY,
+        private val expireAfterAccessMs: Long = NO_EXPIRY,
+        private val scheduler: Scheduler = Schedulers.computation(),
+        concurrencyLevel: Int = DEFAULT_CONCURRENCY_LEVEL) : Store<K, V> {
+
+    private val maxWeight: Long = maxWeight.toLong()
+
+    // The shortest expiry, so that a watched entry is found expired at most one period late.
+    private val sweepPeriodMs: Long =
+            listOf(expireAfterWriteMs, expireAfterAccessMs)
+                    .filter { it != NO_EXPIRY }
+                    .min()
+                    ?.let { maxOf(1L, it) }
+                    ?: NO_EXPIRY
+
+    private val segments: List<Segment>
+
+    private val totalWeight = AtomicLong()
+
+    private val hitCount = AtomicLong()
+    private val missCount = AtomicLong()
+    private val evictionCount = AtomicLong()
+    private val expiredCount = AtomicLong()
+
+    init {
+        require(maxWeight > 0) { "maxWeight must be positive: $maxWeight" }
+        require(concurrencyLevel > 0) { "concurrencyLevel must be positive: $concurrencyLevel" }
+        segments = List(segmentCount(maxWeight, concurrencyLevel)) { Segment() }
+    }
+
+    // Emits the current value, if it exists, else empty.
+    override fun get(key: K): Maybe<V> {
+        return Maybe.defer {
+            val segment = segmentFor(key)
+            val value = synchronized(segment) { segment.read(key) }
+            segment.drain()
+            if (value != null) {
+                hitCount.incrementAndGet()
+                Maybe.just(value)
+            } else {
+                missCount.incrementAndGet()
+                Maybe.empty<V>()
+            }
+        }
+    }
+
+    // Emits the current value if it exists, then future values while the value is still in the
+    // store. Does not complete.
+    override fun getStream(key: K): Observable<V> {
+        return getEventStream(key)
+                .flatMapMaybe { if (it is StoreEvent.Stored) Maybe.just(it.value) else Maybe.empty() }
+    }
+
+    // Emits the current value if it exists, then future values, evictions and expiries.
+    // Does not complete.
+    override fun getEventStream(key: K): Observable<StoreEvent<V>> {
+        return Observable.create { emitter ->
+            val segment = segmentFor(key)
+            // Registering under the segment lock means a concurrent put can't be missed.
+            synchronized(segment) {
+                segment.register(key, emitter)
+                segment.read(key)?.let { segment.dispatch(listOf(emitter), StoreEvent.Stored(it)) }
+            }
+            emitter.setCancellable { segment.unregister(key, emitter) }
+            segment.drain()
+        }
+    }
+
+    // Store the provided value for the given key. Completes when the operation has finished.
+    override fun put(key: K, value: V): Completable {
+        return Completable.fromAction { storeAndNotify(key, value, now()) }
+    }
+
+    // Store the provided value as if written at the given time, so that it expires after writing
+    // when it would have from then.
+    fun put(key: K, value: V, writtenAtMs: Long): Completable {
+        return Completable.fromAction { storeAndNotify(key, value, writtenAtMs) }
+    }
+
+    fun stats(): CacheStats = CacheStats(hitCount = hitCount.get(),
+            missCount = missCount.get(),
+            evictionCount = evictionCount.get(),
+            expiredCount = expiredCount.get())
+
+    // The number of entries currently held, including those expired but not yet removed.
+    fun size(): Int = segments.sumBy { synchronized(it) { it.entries.size } }
+
+    // The total weight of the entries currently held.
+    fun weight(): Long = totalWeight.get()
+
+    private fun storeAndNotify(key: K, value: V, writtenAtMs: Long) {
+        val segment = segmentFor(key)
+        synchronized(segment) {
+            segment.write(key, value, writtenAtMs)
+            segment.dispatch(key, StoreEvent.Stored(value))
+            segment.trimToSize(except = key)
+        }
+        segment.drain()
+        // Only one segment lock is held at a time, so that concurrent writes can't deadlock.
+        for (other in segments) {
+            if (totalWeight.get() <= maxWeight) return
+            if (other !== segment) other.trimToSizeAndDrain()
+        }
+        // Nothing else is left to evict, so the entry is heavier than the store.
+        segment.trimToSizeAndDrain()
+    }
+
+    private fun segmentFor(key: K): Segment {
+        val hash = key.hashCode()
+        // Mix the high bits in, as the segment count is a power of two.
+        return segments[(hash xor (hash ushr 16)) and (segments.size - 1)]
+    }
+
+    private fun now(): Long = scheduler.now(TimeUnit.MILLISECONDS)
+
+    /**
+     * All state and functions are guarded by the segment's own monitor, except [drain] and
+     * [trimToSizeAndDrain], which must be called without holding it.
+     */
+    private inner class Segment {
+
+        // In insertion order; an access re-inserts the entry, so the eldest is the least recent.
+        val entries: LinkedHashMap<K, Entry<V>> = LinkedHashMap()
+
+        private val watchers: MutableMap<K, MutableList<ObservableEmitter<StoreEvent<V>>>> = HashMap()
+
+        // Events in the order they happened, waiting to be emitted by whichever thread drains.
+        private val pending: ArrayDeque<Pair<List<ObservableEmitter<StoreEvent<V>>>, StoreEvent<V>>> =
+                ArrayDeque()
+
+        private var draining = false
+
+        private var sweep: Disposable? = null
+
+        // Returns the live value, removing it if it has expired.
+        fun read(key: K, isAccess: Boolean = true): V? {
+            val entry = entries[key] ?: return null
+            val now = now()
+            if (entry.isExpired(now)) {
+                remove(key, entry)
+                expiredCount.incrementAndGet()
+                dispatch(key, StoreEvent.Expired)
+                return null
+            }
+            if (isAccess) {
+                entry.accessedAtMs = now
+                entries.remove(key)
+                entries[key] = entry
+            }
+            return entry.value
+        }
+
+        fun write(key: K, value: V, writtenAtMs: Long) {
+            val entry = Entry(value, weigher(key, value), writtenAtMs = writtenAtMs, accessedAtMs = now())
+            // Remove first, so that a replaced entry also becomes the most recent.
+            entries.remove(key)?.let { totalWeight.addAndGet(-it.weight.toLong()) }
+            entries[key] = entry
+            totalWeight.addAndGet(entry.weight.toLong())
+        }
+
+        // Evict the least recently used entries, other than the excepted key, until the store
+        // is within its weight.
+        fun trimToSize(except: K? = null) {
+            val iterator = entries.entries.iterator()
+            while (iterator.hasNext()) {
+                val eldest = iterator.next()
+                if (eldest.key == except) continue
+                // Claim the weight before evicting, so that concurrent trims can't overshoot.
+                if (!releaseExcessWeight(eldest.value.weight)) return
+                iterator.remove()
+                evictionCount.incrementAndGet()
+                dispatch(eldest.key, StoreEvent.Evicted)
+            }
+        }
+
+        fun trimToSizeAndDrain() {
+            synchronized(this) { trimToSize() }
+            drain()
+        }
+
+        fun dispatch(key: K, event: StoreEvent<V>) {
+            watchers[key]?.let { dispatch(it.toList(), event) }
+        }
+
+        fun dispatch(emitters: List<ObservableEmitter<StoreEvent<V>>>, event: StoreEvent<V>) {
+            pending.add(emitters to event)
+        }
+
+        // Emits the pending events, unless another thread already is.
+        fun drain() {
+            synchronized(this) {
+                if (draining) return
+                draining = true
+            }
+            while (true) {
+                val (emitters, event) = synchronized(this) {
+                    pending.poll() ?: run {
+                        draining = false
+                        return
+                    }
+                }
+                emitters.forEach { it.onNext(event) }
+            }
+        }
+
+        fun register(key: K, emitter: ObservableEmitter<StoreEvent<V>>) {
+            watchers.getOrPut(key) { ArrayList(1) }.add(emitter)
+            if (sweep == null && sweepPeriodMs != NO_EXPIRY) {
+                sweep = scheduler.schedulePeriodicallyDirect({ sweepWatched() },
+                        sweepPeriodMs, sweepPeriodMs, TimeUnit.MILLISECONDS)
+            }
+        }
+
+        fun unregister(key: K, emitter: ObservableEmitter<StoreEvent<V>>) {
+            synchronized(this) {
+                watchers[key]?.let {
+                    it.remove(emitter)
+                    if (it.isEmpty()) watchers.remove(key)
+                }
+                if (watchers.isEmpty()) {
+                    sweep?.dispose()
+                    sweep = null
+                }
+            }
+        }
+
+        // Expires the watched entries which are due, so that their watchers are told even if
+        // the keys are never read.
+        private fun sweepWatched() {
+            synchronized(this) { watchers.keys.toList().forEach { read(it, isAccess = false) } }
+            drain()
+        }
+
+        private fun releaseExcessWeight(weight: Int): Boolean {
+            while (true) {
+                val current = totalWeight.get()
+                if (current <= maxWeight) return false
+                if (totalWeight.compareAndSet(current, current - weight)) return true
+            }
+        }
+
+        private fun remove(key: K, entry: Entry<V>) {
+            entries.remove(key)
+            totalWeight.addAndGet(-entry.weight.toLong())
+        }
+
+        private fun Entry<V>.isExpired(now: Long): Boolean =
+                (expireAfterWriteMs != NO_EXPIRY && now - writtenAtMs >= expireAfterWriteMs)
+                        || (expireAfterAccessMs != NO_EXPIRY && now - accessedAtMs >= expireAfterAccessMs)
+    }
+
+    private class Entry<V>(val value: V,
+                           val weight: Int,
+                           val writtenAtMs: Long,
+                           var accessedAtMs: Long)
+
+    companion object {
+        const val DEFAULT_CONCURRENCY_LEVEL = 16
+
+        // The largest power of two not exceeding the concurrency level, nor spreading a small
+        // store so thinly that its LRU order is mostly lost.
+        private fun segmentCount(maxWeight: Int, concurrencyLevel: Int): Int {
+            val limit = minOf(concurrencyLevel, maxOf(1, maxWeight / MIN_SEGMENT_WEIGHT))
+            return Integer.highestOneBit(limit)
+        }
+    }
+}
+
+data class CacheStats(val hitCount: Long,
+                      val missCount: Long,
+                      val evictionCount: Long,
+                      val expiredCount: Long) {
+
+    // The fraction of reads which found a value, or 0 if there have been none.
+    fun hitRate(): Double {
+        val readCount = hitCount + missCount
+        return if (readCount == 0L) 0.0 else hitCount.toDouble() / readCount
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.store
+
+import com.squareup.moshi.JsonAdapter
+import io.reactivex.Completable
+import io.reactivex.Maybe
+import io.reactivex.Scheduler
+import io.reactivex.schedulers.Timed
+import okio.ByteString
+import okio.Okio
+import timber.log.Timber
+import java.io.File
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * A persistent key/value store, holding one JSON file per key in the given directory.
+ *
+ * Writes are atomic: a value is written to a temporary file which then replaces the existing
+ * file. When there are more than [maxEntries] files, the least recently written are removed in
+ * the background. Values written more than [maxAgeMs] ago are treated as absent.
+ */
+internal class DiskStore<K, V>(private val directory: File,
+                               private val adapter: JsonAdapter<V>,
+                               private val scheduler: Scheduler,
+                               private val maxEntries: Int = DEFAULT_MAX_ENTRIES,
+                               private val maxAgeMs: Long = NO_EXPIRY) {
+
+    private val isTrimming = AtomicBoolean(false)
+
+    // Emits the persisted value, if it exists and can be read, else empty.
+    fun get(key: K): Maybe<V> = getTimed(key).map { it.value() }
+
+    // As get, with the time in milliseconds at which the value was written.
+    fun getTimed(key: K): Maybe<Timed<V>> {
+        return Maybe.fromCallable<Timed<V>> { read(fileFor(key)) }
+                .doOnError { Timber.w(it, "Unable to read key: %s", key) }
+                .onErrorComplete()
+                .subscribeOn(scheduler)
+    }
+
+    // Persists the value for the given key. Completes when the value has been written.
+    fun put(key: K, value: V): Completable {
+        return Completable.fromAction { write(fileFor(key), value) }
+                .doOnComplete { scheduleTrim() }
+                .subscribeOn(scheduler)
+    }
+
+    private fun read(file: File): Timed<V>? {
+        if (!file.exists() || isExpired(file)) return null
+        val writtenAtMs = file.lastModified()
+        return Okio.buffer(Okio.source(file)).use { adapter.fromJson(it) }
+                ?.let { Timed(it, writtenAtMs, TimeUnit.MILLISECONDS) }
+    }
+
+    private fun write(file: File, value: V) {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw IOException("Unable to create store directory: $directory")
+        }
+        val temp = File(directory, file.name + TEMP_SUFFIX)
+        Okio.buffer(Okio.sink(temp)).use { adapter.toJson(it, value) }
+        if (!temp.renameTo(file)) {
+            temp.delete()
+            throw IOException("Unable to replace: $file")
+        }
+    }
+
+    private fun isExpired(file: File): Boolean =
+            maxAgeMs != NO_EXPIRY && scheduler.now(TimeUnit.MILLISECONDS) - file.lastModified() >= maxAgeMs
+
+    private fun scheduleTrim() {
+        if (isTrimming.compareAndSet(false, true)) {
+            scheduler.scheduleDirect {
+                try {
+                    trim()
+                } finally {
+                    isTrimming.set(false)
+                }
+            }
+        }
+    }
+
+    private fun trim() {
+        val files = directory.listFiles { file -> !file.name.endsWith(TEMP_SUFFIX) } ?: return
+        if (files.size <= maxEntries) return
+        files.sortedBy { it.lastModified() }
+                .take(files.size - maxEntries)
+                .forEach { it.delete() }
+    }
+
+    // Keys can contain any characters, so use a digest for the file name.
+    private fun fileFor(key: K): File =
+            File(directory, ByteString.encodeUtf8(key.toString()).md5().hex())
+
+    companion object {
+        const val DEFAULT_MAX_ENTRIES = 500
+        private const val TEMP_SUFFIX = ".tmp"
+    }
+}
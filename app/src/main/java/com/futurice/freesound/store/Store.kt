@@ -28,4 +28,15 @@ interface Store<K, V> {
 
     fun getStream(key: K): Observable<V>
 
+    fun getEventStream(key: K): Observable<StoreEvent<V>>
+
+}
+
+/**
+ * The changes to a single key of a [Store].
+ */
+sealed class StoreEvent<out V> {
+    data class Stored<V>(val value: V) : StoreEvent<V>()
+    object Evicted : StoreEvent<Nothing>()
+    object Expired : StoreEvent<Nothing>()
 }
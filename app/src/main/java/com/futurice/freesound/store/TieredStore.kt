@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.store
+
+import io.reactivex.Completable
+import io.reactivex.Maybe
+import io.reactivex.Observable
+import timber.log.Timber
+
+/**
+ * A [Store] which layers a fast in-memory [Cache] over a persistent [DiskStore].
+ *
+ * Reads are served from memory, falling back to disk; values read from disk are promoted into
+ * memory. Writes go to both, so values survive process death.
+ *
+ * A promoted value keeps the time it was written to disk, so its expiry in memory follows from
+ * when it was fetched rather than from when it was promoted. For this, both tiers must share
+ * the same clock.
+ */
+internal class TieredStore<K, V>(private val memory: Cache<K, V>,
+                                 private val disk: DiskStore<K, V>) : Store<K, V> {
+
+    // Completes when the value is in memory and persisted. Failing to persist is not an error,
+    // the value is still usable for the life of the process.
+    override fun put(key: K, value: V): Completable {
+        return memory.put(key, value)
+                .andThen(disk.put(key, value)
+                        .doOnError { Timber.w(it, "Unable to persist key: %s", key) }
+                        .onErrorComplete())
+    }
+
+    override fun get(key: K): Maybe<V> {
+        return memory.get(key)
+                .switchIfEmpty(promoteFromDisk(key))
+    }
+
+    // Emits the value from memory, or from disk once read, then future values.
+    override fun getStream(key: K): Observable<V> {
+        return memory.getStream(key)
+                .mergeWith(promoteIfAbsent(key))
+    }
+
+    override fun getEventStream(key: K): Observable<StoreEvent<V>> {
+        return memory.getEventStream(key)
+                .mergeWith(promoteIfAbsent(key))
+    }
+
+    private fun promoteIfAbsent(key: K): Completable {
+        return memory.get(key)
+                .isEmpty
+                .flatMapCompletable { isAbsent ->
+                    if (isAbsent) promoteFromDisk(key).ignoreElement() else Completable.complete()
+                }
+    }
+
+    private fun promoteFromDisk(key: K): Maybe<V> {
+        return disk.getTimed(key)
+                .flatMap { timed ->
+                    memory.put(key, timed.value(), timed.time())
+                            .andThen(Maybe.just(timed.value()))
+                }
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.futurice.freesound.feature.audio
+
+import android.net.Uri
+import com.futurice.freesound.network.api.NetworkBandwidthMeter
+import com.google.android.exoplayer2.upstream.DataSource
+import com.google.android.exoplayer2.upstream.DataSpec
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import org.mockito.Mockito.mock
+
+class AudioCacheListenerTest {
+
+    private val stats = AudioCacheStats()
+
+    private val bandwidthMeter = NetworkBandwidthMeter()
+
+    private var nowMs = 0L
+
+    private val listener = AudioCacheListener(stats, bandwidthMeter, { nowMs })
+
+    private val source = mock(DataSource::class.java)
+
+    private val dataSpec = DataSpec(mock(Uri::class.java))
+
+    @Test
+    fun `records bytes read from cache`() {
+        listener.onCachedBytesRead(1000, 300)
+        listener.onCachedBytesRead(1200, 200)
+
+        assertThat(stats.cachedReadCount()).isEqualTo(2)
+        assertThat(stats.cachedBytes()).isEqualTo(500)
+        assertThat(stats.cacheSizeBytes()).isEqualTo(1200)
+    }
+
+    @Test
+    fun `records bytes read from network`() {
+        listener.onTransferStart(source, dataSpec, true)
+        listener.onBytesTransferred(source, dataSpec, true, 100)
+        listener.onBytesTransferred(source, dataSpec, true, 50)
+
+        assertThat(stats.networkReadCount()).isEqualTo(1)
+        assertThat(stats.networkBytes()).isEqualTo(150)
+    }
+
+    @Test
+    fun `ignores local transfers`() {
+        listener.onTransferStart(source, dataSpec, false)
+        listener.onBytesTransferred(source, dataSpec, false, 100)
+
+        assertThat(stats.networkReadCount()).isZero()
+        assertThat(stats.networkBytes()).isZero()
+    }
+
+    @Test
+    fun `records completed network transfer to bandwidth meter`() {
+        listener.onTransferStart(source, dataSpec, true)
+        listener.onBytesTransferred(source, dataSpec, true, 30_000)
+        listener.onBytesTransferred(source, dataSpec, true, 20_000)
+        nowMs += 500
+        listener.onTransferEnd(source, dataSpec, true)
+
+        assertThat(bandwidthMeter.bitrateEstimate()).isEqualTo(800_000)
+    }
+
+    @Test
+    fun `does not record local transfer to bandwidth meter`() {
+        listener.onTransferStart(source, dataSpec, false)
+        listener.onBytesTransferred(source, dataSpec, false, 50_000)
+        nowMs += 500
+        listener.onTransferEnd(source, dataSpec, false)
+
+        assertThat(bandwidthMeter.bitrateEstimate()).isEqualTo(NetworkBandwidthMeter.NO_ESTIMATE)
+    }
+
+    @Test
+    fun `byteHitRate is fraction of bytes from cache`() {
+        listener.onCachedBytesRead(1000, 300)
+        listener.onBytesTransferred(source, dataSpec, true, 100)
+
+        assertThat(stats.byteHitRate()).isEqualTo(0.75)
+    }
+
+    @Test
+    fun `byteHitRate is zero when nothing read`() {
+        assertThat(stats.byteHitRate()).isZero()
+    }
+}
@@ -30,6 +30,7 @@ class ExoPlayerAudioPlayerTest {
 
     private lateinit var schedulerProvider: TrampolineSchedulerProvider
     private lateinit var fakeExoPlayer: FakeObservableExoPlayer
+    private lateinit var audioStartStats: AudioStartStats
     private lateinit var exoPlayerAudioPlayer: ExoPlayerAudioPlayer
 
     private val updatePeriod = 100L
@@ -44,12 +45,18 @@ class ExoPlayerAudioPlayerTest {
     fun setUp() {
         schedulerProvider = TrampolineSchedulerProvider()
         fakeExoPlayer = FakeObservableExoPlayer()
-        exoPlayerAudioPlayer = ExoPlayerAudioPlayer(fakeExoPlayer,
-                updatePeriod,
-                updateUnits,
-                schedulerProvider)
+        audioStartStats = AudioStartStats()
+        exoPlayerAudioPlayer = createAudioPlayer(isFirstLaunch = true)
     }
 
+    private fun createAudioPlayer(isFirstLaunch: Boolean) =
+            ExoPlayerAudioPlayer(fakeExoPlayer,
+                    audioStartStats,
+                    isFirstLaunch,
+                    updatePeriod,
+                    updateUnits,
+                    schedulerProvider)
+
     @Test
     fun `playerState is Idle when ExoPlayer is Idle`() {
         // given
@@ -62,7 +69,7 @@ class ExoPlayerAudioPlayerTest {
     }
 
     @Test
-    fun `togglePlayback follows playback sequence from Idle`() {
+    fun `togglePlayback follows playback sequence from Idle, without polling the position`() {
         // given
         val timerScheduler = TestScheduler()
         val playbackSource1 = PlaybackSource(Id("abc"), "url1")
@@ -85,10 +92,8 @@ class ExoPlayerAudioPlayerTest {
         // then
         states.assertValues(PlayerState.Idle,
                 PlayerState.Assigned(playbackSource1, PlaybackStatus.PLAYING, 0),
-                PlayerState.Assigned(playbackSource1, PlaybackStatus.PLAYING, 500),
                 PlayerState.Assigned(playbackSource1, PlaybackStatus.PAUSED, 500),
                 PlayerState.Assigned(playbackSource1, PlaybackStatus.PLAYING, 500),
-                PlayerState.Assigned(playbackSource1, PlaybackStatus.PLAYING, 1000),
                 PlayerState.Assigned(playbackSource2, PlaybackStatus.PLAYING, 0))
     }
 
@@ -168,6 +173,22 @@ class ExoPlayerAudioPlayerTest {
                 }
     }
 
+    @Test
+    fun `togglePlayback pauses when same source with different URL is Playing`() {
+        // given
+        val playbackSource = PlaybackSource(Id("abc"), "url-lq")
+        ArrangeBuilder()
+                .withTimeScheduler(TestScheduler())
+                .withPlayingExoPlayer(playbackSource)
+
+        // when
+        exoPlayerAudioPlayer.togglePlayback(playbackSource.copy(url = "url-hq"))
+
+        // then
+        exoPlayerAudioPlayer.playerStateOnceAndStream.test()
+                .assertValue(PlayerState.Assigned(playbackSource, PlaybackStatus.PAUSED, 0))
+    }
+
     @Test
     fun `togglePlayback plays new URL when different URL is Playing`() {
         // given
@@ -252,6 +273,272 @@ class ExoPlayerAudioPlayerTest {
         assertThat(fakeExoPlayer.isReleased).isTrue()
     }
 
+    @Test
+    fun `playerState is shared, replaying latest state to new subscribers`() {
+        // given
+        val playbackSource = PlaybackSource(Id("abc"), "url")
+        ArrangeBuilder()
+                .withTimeScheduler(TestScheduler())
+        exoPlayerAudioPlayer.init()
+        val first = exoPlayerAudioPlayer.playerStateOnceAndStream.test()
+        exoPlayerAudioPlayer.togglePlayback(playbackSource)
+
+        // when
+        val second = exoPlayerAudioPlayer.playerStateOnceAndStream.test()
+
+        // then
+        assertThat(exoPlayerAudioPlayer.playerStateOnceAndStream)
+                .isSameAs(exoPlayerAudioPlayer.playerStateOnceAndStream)
+        first.assertValues(PlayerState.Idle,
+                PlayerState.Assigned(playbackSource, PlaybackStatus.PLAYING, 0))
+        second.assertValue(PlayerState.Assigned(playbackSource, PlaybackStatus.PLAYING, 0))
+    }
+
+    @Test
+    fun `playerState of source is Assigned only while that source is current`() {
+        // given
+        val playbackSource1 = PlaybackSource(Id("abc"), "url1")
+        val playbackSource2 = PlaybackSource(Id("def"), "url2")
+        ArrangeBuilder()
+                .withTimeScheduler(TestScheduler())
+        exoPlayerAudioPlayer.init()
+        val states = exoPlayerAudioPlayer.playerStateOnceAndStream(playbackSource2.id).test()
+
+        // when
+        exoPlayerAudioPlayer.togglePlayback(playbackSource1) // play other
+        exoPlayerAudioPlayer.togglePlayback(playbackSource1) // pause other
+        exoPlayerAudioPlayer.togglePlayback(playbackSource2) // play this
+
+        // then
+        states.assertValues(PlayerState.Idle,
+                PlayerState.Assigned(playbackSource2, PlaybackStatus.PLAYING, 0))
+    }
+
+    @Test
+    fun `timePositionMsOnceAndStream updates every period while playing`() {
+        // given
+        val timerScheduler = TestScheduler()
+        ArrangeBuilder()
+                .withTimeScheduler(timerScheduler)
+                .withPlayingExoPlayer(PlaybackSource(Id("abc"), "url"))
+        val positions = exoPlayerAudioPlayer.timePositionMsOnceAndStream(200).test()
+
+        // when
+        fakeExoPlayer.setProgress(100)
+        timerScheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS)
+        fakeExoPlayer.setProgress(200)
+        timerScheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS)
+
+        // then
+        positions.assertValues(0, 200)
+    }
+
+    @Test
+    fun `timePositionMsOnceAndStream updates no more often than minimum period`() {
+        // given
+        val timerScheduler = TestScheduler()
+        ArrangeBuilder()
+                .withTimeScheduler(timerScheduler)
+                .withPlayingExoPlayer(PlaybackSource(Id("abc"), "url"))
+        val positions = exoPlayerAudioPlayer.timePositionMsOnceAndStream(1).test()
+
+        // when
+        fakeExoPlayer.setProgress(50)
+        timerScheduler.advanceTimeBy(updatePeriod - 1, updateUnits)
+
+        // then
+        positions.assertValues(0)
+    }
+
+    @Test
+    fun `timePositionMsOnceAndStream does not update while paused`() {
+        // given
+        val timerScheduler = TestScheduler()
+        val playbackSource = PlaybackSource(Id("abc"), "url")
+        ArrangeBuilder()
+                .withTimeScheduler(timerScheduler)
+                .withPausedExoPlayer(playbackSource)
+        val positions = exoPlayerAudioPlayer.timePositionMsOnceAndStream(200).test()
+
+        // when
+        fakeExoPlayer.setProgress(500)
+        timerScheduler.advanceTimeBy(1, TimeUnit.SECONDS)
+
+        // then
+        positions.assertValues(0)
+    }
+
+    @Test
+    fun `timePositionMsOnceAndStream updates each subscriber at its own period`() {
+        // given
+        val timerScheduler = TestScheduler()
+        ArrangeBuilder()
+                .withTimeScheduler(timerScheduler)
+                .withPlayingExoPlayer(PlaybackSource(Id("abc"), "url"))
+        val everyPeriod = exoPlayerAudioPlayer.timePositionMsOnceAndStream(100).test()
+        val everyOtherPeriod = exoPlayerAudioPlayer.timePositionMsOnceAndStream(200).test()
+
+        // when
+        fakeExoPlayer.setProgress(100)
+        timerScheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS)
+        fakeExoPlayer.setProgress(200)
+        timerScheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS)
+
+        // then
+        everyPeriod.assertValues(0, 100, 200)
+        everyOtherPeriod.assertValues(0, 200)
+    }
+
+    @Test
+    fun `playQueue plays all URLs from start index`() {
+        // given
+        val queue = listOf(PlaybackSource(Id("abc"), "url1"),
+                PlaybackSource(Id("def"), "url2"),
+                PlaybackSource(Id("ghi"), "url3"))
+        ArrangeBuilder()
+                .withTimeScheduler(TestScheduler())
+        exoPlayerAudioPlayer.init()
+
+        // when
+        exoPlayerAudioPlayer.playQueue(queue, 1)
+
+        // then
+        assertThat(fakeExoPlayer.playedUrls).containsExactly("url1", "url2", "url3")
+        exoPlayerAudioPlayer.playerStateOnceAndStream.test()
+                .assertValue(PlayerState.Assigned(queue[1], PlaybackStatus.PLAYING, 0, 1, 3))
+    }
+
+    @Test
+    fun `playerState reports queue position as queue advances`() {
+        // given
+        val queue = listOf(PlaybackSource(Id("abc"), "url1"),
+                PlaybackSource(Id("def"), "url2"))
+        ArrangeBuilder()
+                .withTimeScheduler(TestScheduler())
+        exoPlayerAudioPlayer.init()
+        exoPlayerAudioPlayer.playQueue(queue)
+        val states: TestObserver<in PlayerState> = exoPlayerAudioPlayer.playerStateOnceAndStream.test()
+
+        // when
+        fakeExoPlayer.advance()
+
+        // then
+        states.assertValues(PlayerState.Assigned(queue[0], PlaybackStatus.PLAYING, 0, 0, 2),
+                PlayerState.Assigned(queue[1], PlaybackStatus.PLAYING, 0, 1, 2))
+    }
+
+    @Test
+    fun `playerState is Idle, without terminating, when window index is out of queue`() {
+        // given
+        val playbackSource = PlaybackSource(Id("abc"), "url")
+        ArrangeBuilder()
+                .withTimeScheduler(TestScheduler())
+        exoPlayerAudioPlayer.init()
+        exoPlayerAudioPlayer.togglePlayback(playbackSource)
+        val states: TestObserver<in PlayerState> = exoPlayerAudioPlayer.playerStateOnceAndStream.test()
+
+        // when
+        fakeExoPlayer.advance()
+
+        // then
+        states.assertValues(PlayerState.Assigned(playbackSource, PlaybackStatus.PLAYING, 0),
+                PlayerState.Idle)
+                .assertNoErrors()
+                .assertNotComplete()
+    }
+
+    @Test
+    fun `togglePlayback pauses queue when current source of queue is Playing`() {
+        // given
+        val queue = listOf(PlaybackSource(Id("abc"), "url1"),
+                PlaybackSource(Id("def"), "url2"))
+        ArrangeBuilder()
+                .withTimeScheduler(TestScheduler())
+        exoPlayerAudioPlayer.init()
+        exoPlayerAudioPlayer.playQueue(queue)
+        fakeExoPlayer.advance()
+
+        // when
+        exoPlayerAudioPlayer.togglePlayback(queue[1])
+
+        // then
+        exoPlayerAudioPlayer.playerStateOnceAndStream.test()
+                .assertValue(PlayerState.Assigned(queue[1], PlaybackStatus.PAUSED, 0, 1, 2))
+    }
+
+    @Test
+    fun `togglePlayback plays other source of queue alone`() {
+        // given
+        val queue = listOf(PlaybackSource(Id("abc"), "url1"),
+                PlaybackSource(Id("def"), "url2"))
+        ArrangeBuilder()
+                .withTimeScheduler(TestScheduler())
+        exoPlayerAudioPlayer.init()
+        exoPlayerAudioPlayer.playQueue(queue)
+
+        // when
+        exoPlayerAudioPlayer.togglePlayback(queue[1])
+
+        // then
+        assertThat(fakeExoPlayer.playedUrls).containsExactly("url2")
+        exoPlayerAudioPlayer.playerStateOnceAndStream.test()
+                .assertValue(PlayerState.Assigned(queue[1], PlaybackStatus.PLAYING, 0))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun `playQueue rejects an empty queue`() {
+        exoPlayerAudioPlayer.playQueue(emptyList())
+    }
+
+    @Test
+    fun `first playback records time to first audio of first launch`() {
+        // given
+        val timerScheduler = TestScheduler()
+        ArrangeBuilder()
+                .withTimeScheduler(timerScheduler)
+        fakeExoPlayer.isBufferingOnPlay = true
+        exoPlayerAudioPlayer.init()
+
+        // when
+        exoPlayerAudioPlayer.togglePlayback(PlaybackSource(Id("abc"), "url"))
+        timerScheduler.advanceTimeBy(300, TimeUnit.MILLISECONDS)
+        fakeExoPlayer.resume()
+
+        // then
+        assertThat(audioStartStats.firstLaunchMs()).isEqualTo(300)
+        assertThat(audioStartStats.subsequentLaunchCount()).isZero()
+    }
+
+    @Test
+    fun `only first playback of subsequent launch records time to first audio`() {
+        // given
+        exoPlayerAudioPlayer = createAudioPlayer(isFirstLaunch = false)
+        ArrangeBuilder()
+                .withPlayingExoPlayer(PlaybackSource(Id("abc"), "url1"))
+
+        // when
+        exoPlayerAudioPlayer.togglePlayback(PlaybackSource(Id("def"), "url2"))
+
+        // then
+        assertThat(audioStartStats.subsequentLaunchCount()).isEqualTo(1)
+        assertThat(audioStartStats.firstLaunchMs()).isEqualTo(-1)
+    }
+
+    @Test
+    fun `stopPlayback before audio does not record time to first audio`() {
+        // given
+        fakeExoPlayer.isBufferingOnPlay = true
+        ArrangeBuilder()
+                .withPlayingExoPlayer(PlaybackSource(Id("abc"), "url"))
+
+        // when
+        exoPlayerAudioPlayer.stopPlayback()
+        fakeExoPlayer.resume()
+
+        // then
+        assertThat(audioStartStats.firstLaunchMs()).isEqualTo(-1)
+    }
+
     private inner class ArrangeBuilder() {
 
         init {
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.audio
+
+import com.google.android.exoplayer2.ExoPlayer
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Test
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.never
+import org.mockito.Mockito.verify
+
+class ExoPlayerPoolTest {
+
+    private val createdPlayers = ArrayList<ExoPlayer>()
+
+    private lateinit var exoPlayerPool: ExoPlayerPool
+
+    @Before
+    fun setUp() {
+        exoPlayerPool = ExoPlayerPool {
+            mock(ExoPlayer::class.java).also { createdPlayers.add(it) }
+        }
+    }
+
+    @Test
+    fun `warmUp creates the pooled player once`() {
+        exoPlayerPool.warmUp()
+        exoPlayerPool.warmUp()
+
+        assertThat(createdPlayers).hasSize(1)
+    }
+
+    @Test
+    fun `acquire leases the warm player`() {
+        exoPlayerPool.warmUp()
+
+        val lease = exoPlayerPool.acquire()
+
+        assertThat(lease.exoPlayer).isSameAs(createdPlayers.single())
+        assertThat(lease.isFirstLease).isTrue()
+    }
+
+    @Test
+    fun `acquire after giveBack reuses the pooled player without releasing it`() {
+        val first = exoPlayerPool.acquire()
+        exoPlayerPool.giveBack(first)
+
+        val second = exoPlayerPool.acquire()
+
+        assertThat(second.exoPlayer).isSameAs(first.exoPlayer)
+        assertThat(second.isFirstLease).isFalse()
+        assertThat(createdPlayers).hasSize(1)
+        verify(first.exoPlayer).stop(true)
+        verify(first.exoPlayer, never()).release()
+    }
+
+    @Test
+    fun `acquire while leased creates a player which is released on giveBack`() {
+        val pooled = exoPlayerPool.acquire()
+
+        val extra = exoPlayerPool.acquire()
+        exoPlayerPool.giveBack(extra)
+
+        assertThat(extra.exoPlayer).isNotSameAs(pooled.exoPlayer)
+        verify(extra.exoPlayer).release()
+        verify(pooled.exoPlayer, never()).release()
+    }
+
+    @Test
+    fun `giveBack of pooled player makes it available again`() {
+        val pooled = exoPlayerPool.acquire()
+        val extra = exoPlayerPool.acquire()
+        exoPlayerPool.giveBack(pooled)
+        exoPlayerPool.giveBack(extra)
+
+        val next = exoPlayerPool.acquire()
+
+        assertThat(next.exoPlayer).isSameAs(pooled.exoPlayer)
+        assertThat(createdPlayers).hasSize(2)
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.audio;
+
+import com.google.android.exoplayer2.ExoPlayer;
+import com.google.android.exoplayer2.Player;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import io.reactivex.observers.TestObserver;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class ExoPlayerWindowIndexObservableTest {
+
+    @Mock
+    private ExoPlayer exoPlayer;
+
+    @Captor
+    private ArgumentCaptor<Player.EventListener> listenerCaptor;
+
+    private ExoPlayerWindowIndexObservable exoPlayerWindowIndexObservable;
+
+    public ExoPlayerWindowIndexObservableTest() {
+        MockitoAnnotations.initMocks(this);
+        exoPlayerWindowIndexObservable = new ExoPlayerWindowIndexObservable(exoPlayer, false);
+    }
+
+    @Test
+    public void doesNothingToExoPlayer_beforeSubscribed_whenNoEmittingInitialValue() {
+        verifyZeroInteractions(exoPlayer);
+    }
+
+    @Test
+    public void addsListener_whenSubscribing() {
+        exoPlayerWindowIndexObservable.subscribe();
+
+        verify(exoPlayer).addListener(any(Player.EventListener.class));
+    }
+
+    @Test
+    public void removesListener_whenUnsubscribing() {
+        exoPlayerWindowIndexObservable.subscribe().dispose();
+
+        verify(exoPlayer).removeListener(any(Player.EventListener.class));
+    }
+
+    @Test
+    public void emitsCallbackValue() {
+        int expected = 2;
+        TestObserver<Integer> testObserver = exoPlayerWindowIndexObservable.test();
+
+        new ExoPlayerTestEventGenerator()
+                .moveToWindowIndex(expected)
+                .invokeListenerCallback();
+
+        testObserver.assertValue(expected)
+                .assertNotTerminated();
+    }
+
+    @Test
+    public void doesNotEmitAfterDisposed() {
+        TestObserver<Integer> testObserver = exoPlayerWindowIndexObservable.test();
+        testObserver.dispose();
+
+        new ExoPlayerTestEventGenerator()
+                .invokeListenerCallback();
+
+        testObserver.assertNoValues();
+    }
+
+    // Special tests for initial emit
+
+    @Test
+    public void doesNotEmitInitialValue_whenNotSet() {
+        ExoPlayerWindowIndexObservable observable = new ExoPlayerWindowIndexObservable(exoPlayer, false);
+
+        TestObserver<Integer> testObserver = observable.test();
+
+        testObserver.assertNoValues();
+    }
+
+    @Test
+    public void emitsInitialValue_whenSet() {
+        int expected = 1;
+        when(exoPlayer.getCurrentWindowIndex()).thenReturn(expected);
+        ExoPlayerWindowIndexObservable observable = new ExoPlayerWindowIndexObservable(exoPlayer, true);
+
+        TestObserver<Integer> testObserver = observable.test();
+
+        testObserver.assertValue(expected);
+    }
+
+    // Helpers
+
+    private class ExoPlayerTestEventGenerator {
+
+        ExoPlayerTestEventGenerator() {
+            verify(exoPlayer).addListener(listenerCaptor.capture());
+        }
+
+        ExoPlayerTestEventGenerator moveToWindowIndex(int windowIndex) {
+            when(exoPlayer.getCurrentWindowIndex()).thenReturn(windowIndex);
+            return this;
+        }
+
+        ExoPlayerTestEventGenerator invokeListenerCallback() {
+            // don't care about values for our implementation
+            listenerCaptor.getValue().onPositionDiscontinuity(Player.DISCONTINUITY_REASON_PERIOD_TRANSITION);
+            return this;
+        }
+
+    }
+
+}
@@ -6,14 +6,41 @@ import io.reactivex.subjects.BehaviorSubject
 class FakeObservableExoPlayer(override val stateOnceAndStream: BehaviorSubject<ExoPlayerState>
                               = BehaviorSubject.createDefault(ExoPlayerState(true, Player.STATE_IDLE)),
                               override var timePositionMsOnceAndStream: BehaviorSubject<Long>
+                              = BehaviorSubject.createDefault(0),
+                              override val windowIndexOnceAndStream: BehaviorSubject<Int>
                               = BehaviorSubject.createDefault(0)) : ObservableExoPlayer {
 
     var isReleased: Boolean = false; private set
 
+    /**
+     * Whether [play] buffers before it is ready, rather than being ready immediately.
+     */
+    var isBufferingOnPlay: Boolean = false
+
+    var playedUrls: List<String> = emptyList(); private set
+
     override fun play(url: String) {
+        playAll(listOf(url), 0)
+    }
+
+    override fun playAll(urls: List<String>, startIndex: Int) {
         checkIsNotReleased()
+        playedUrls = urls
         timePositionMsOnceAndStream = BehaviorSubject.createDefault(0)
-        stateOnceAndStream.onNext(ExoPlayerState(true, Player.STATE_READY))
+        if (windowIndexOnceAndStream.value != startIndex) { // As distinct as the real one
+            windowIndexOnceAndStream.onNext(startIndex)
+        }
+        stateOnceAndStream.onNext(ExoPlayerState(true,
+                if (isBufferingOnPlay) Player.STATE_BUFFERING else Player.STATE_READY))
+    }
+
+    /**
+     * Moves on to the next source of the queue, as when the current one ends.
+     */
+    fun advance() {
+        checkIsNotReleased()
+        timePositionMsOnceAndStream = BehaviorSubject.createDefault(0)
+        windowIndexOnceAndStream.onNext(windowIndexOnceAndStream.value!! + 1)
     }
 
     private fun checkIsNotReleased() {
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.futurice.freesound.feature.audio
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+
+class PreviewCacheKeyTest {
+
+    @Test
+    fun `previewCacheKey removesToken`() {
+        assertThat(previewCacheKey("https://cdn.freesound.org/previews/1/1-lq.mp3?token=secret"))
+                .isEqualTo("https://cdn.freesound.org/previews/1/1-lq.mp3")
+    }
+
+    @Test
+    fun `previewCacheKey keepsOtherQueryParameters`() {
+        assertThat(previewCacheKey("https://cdn.freesound.org/previews/1/1-lq.mp3?token=secret&v=2"))
+                .isEqualTo("https://cdn.freesound.org/previews/1/1-lq.mp3?v=2")
+    }
+
+    @Test
+    fun `previewCacheKey isUrl withoutToken`() {
+        val url = "https://cdn.freesound.org/previews/1/1-lq.mp3"
+
+        assertThat(previewCacheKey(url)).isEqualTo(url)
+    }
+
+    @Test
+    fun `previewCacheKey isSame forDifferentTokens`() {
+        assertThat(previewCacheKey("https://cdn.freesound.org/previews/1/1-lq.mp3?token=a"))
+                .isEqualTo(previewCacheKey("https://cdn.freesound.org/previews/1/1-lq.mp3?token=b"))
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.audio
+
+import io.reactivex.schedulers.TestScheduler
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import java.io.IOException
+import java.util.concurrent.atomic.AtomicBoolean
+
+class PreviewPrefetcherTest {
+
+    private val loader = FakePreviewLoader()
+
+    private val scheduler = TestScheduler()
+
+    private val prefetcher = PreviewPrefetcher(loader, scheduler, maxConcurrent = 2)
+
+    @Test
+    fun `prefetch loadsWantedPreviews`() {
+        prefetcher.prefetch(listOf("a", "b"))
+        scheduler.triggerActions()
+
+        assertThat(loader.loaded).containsExactly("a", "b")
+        assertThat(prefetcher.inFlightCount()).isZero()
+    }
+
+    @Test
+    fun `prefetch loadsAtMostMaxConcurrent atOnce`() {
+        prefetcher.prefetch(listOf("a", "b", "c"))
+
+        assertThat(prefetcher.inFlightCount()).isEqualTo(2)
+        scheduler.triggerActions()
+        assertThat(loader.loaded).containsExactly("a", "b", "c")
+    }
+
+    @Test
+    fun `prefetch skipsLoadedPreviews`() {
+        loader.loaded.add("a")
+
+        prefetcher.prefetch(listOf("a", "b"))
+        scheduler.triggerActions()
+
+        assertThat(loader.requested).containsExactly("b")
+    }
+
+    @Test
+    fun `prefetch cancelsPreviewsNoLongerWanted`() {
+        prefetcher.prefetch(listOf("a", "b", "c"))
+
+        prefetcher.prefetch(listOf("c", "d"))
+        scheduler.triggerActions()
+
+        assertThat(loader.loaded).containsExactly("c", "d")
+        assertThat(loader.cancelled).containsExactlyInAnyOrder("a", "b")
+    }
+
+    @Test
+    fun `prefetch keepsLoadingPreviewsStillWanted`() {
+        prefetcher.prefetch(listOf("a", "b"))
+
+        prefetcher.prefetch(listOf("b", "c"))
+        scheduler.triggerActions()
+
+        assertThat(loader.requested.filter { it == "b" }).hasSize(1)
+        assertThat(loader.loaded).contains("b", "c")
+    }
+
+    @Test
+    fun `prefetch continuesWithQueue whenLoadFails`() {
+        loader.failing.add("a")
+
+        prefetcher.prefetch(listOf("a", "b", "c"))
+        scheduler.triggerActions()
+
+        assertThat(loader.loaded).containsExactly("b", "c")
+    }
+
+    @Test
+    fun `cancelAll cancelsEveryPreview`() {
+        prefetcher.prefetch(listOf("a", "b", "c"))
+
+        prefetcher.cancelAll()
+        scheduler.triggerActions()
+
+        assertThat(loader.loaded).isEmpty()
+        assertThat(prefetcher.inFlightCount()).isZero()
+    }
+
+    private class FakePreviewLoader : PreviewLoader {
+        val requested = mutableListOf<String>()
+        val loaded = mutableListOf<String>()
+        val cancelled = mutableListOf<String>()
+        val failing = mutableSetOf<String>()
+
+        override fun isLoaded(url: String): Boolean = url in loaded
+
+        override fun load(url: String, isCanceled: AtomicBoolean) {
+            requested.add(url)
+            when {
+                isCanceled.get() -> cancelled.add(url)
+                url in failing -> throw IOException()
+                else -> loaded.add(url)
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.audio
+
+import com.futurice.freesound.network.api.NetworkBandwidthMeter
+import com.futurice.freesound.test.data.TestData
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+
+class PreviewQualitySelectorTest {
+
+    private val bandwidthMeter = NetworkBandwidthMeter()
+
+    private val selector = PreviewQualitySelector(bandwidthMeter)
+
+    private val sound = TestData.sound(1L).copy(duration = 10f)
+
+    @Test
+    fun `selects smallest low quality preview without bandwidth estimate`() {
+        val choice = selector.select(sound)
+
+        assertThat(choice.quality).isEqualTo(PreviewQuality.LOW_MP3)
+        assertThat(choice.url).isEqualTo(sound.previews.lowQualityMp3Url)
+        assertThat(choice.expectedStartupMs).isEqualTo(-1)
+    }
+
+    @Test
+    fun `selects low quality preview when bandwidth lacks headroom for high quality`() {
+        withBitrateEstimate(PreviewQuality.HIGH_MP3.bitrateKbps * 1000 * HIGH_QUALITY_HEADROOM - 8)
+
+        assertThat(selector.select(sound).quality).isEqualTo(PreviewQuality.LOW_MP3)
+    }
+
+    @Test
+    fun `selects smallest high quality preview when bandwidth allows`() {
+        withBitrateEstimate(PreviewQuality.HIGH_MP3.bitrateKbps * 1000 * HIGH_QUALITY_HEADROOM)
+
+        val choice = selector.select(sound)
+
+        assertThat(choice.quality).isEqualTo(PreviewQuality.HIGH_MP3)
+        assertThat(choice.url).isEqualTo(sound.previews.highQualityMp3Url)
+    }
+
+    @Test
+    fun `reports expected bytes and startup time of choice`() {
+        withBitrateEstimate(128_000)
+
+        val choice = selector.select(sound)
+
+        assertThat(choice.bitrateEstimate).isEqualTo(128_000)
+        assertThat(choice.expectedBytes).isEqualTo(80_000) // 64 kbps for 10 seconds
+        assertThat(choice.expectedStartupMs).isEqualTo(1250) // Half the bandwidth
+    }
+
+    @Test
+    fun `url of each quality is its preview variant`() {
+        val previews = sound.previews
+
+        assertThat(PreviewQuality.values().map { it.url(previews) })
+                .containsExactly(previews.lowQualityMp3Url,
+                        previews.lowQualityOggUrl,
+                        previews.highQualityMp3Url,
+                        previews.highQualityOggUrl)
+    }
+
+    private fun withBitrateEstimate(bitsPerSecond: Long) {
+        bandwidthMeter.recordTransfer(bitsPerSecond / 8, 1000)
+    }
+
+    companion object {
+        private const val HIGH_QUALITY_HEADROOM = PreviewQualitySelector.HIGH_QUALITY_HEADROOM
+    }
+
+}
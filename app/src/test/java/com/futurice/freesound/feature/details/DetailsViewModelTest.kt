@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.details
+
+import com.futurice.freesound.network.api.FreeSoundApiClient
+import com.futurice.freesound.network.api.model.SoundDetails
+import com.futurice.freesound.test.data.TestData
+import com.futurice.freesound.test.rx.TrampolineSchedulerProvider
+import io.reactivex.Single
+import io.reactivex.subjects.SingleSubject
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Test
+import org.mockito.Mock
+import org.mockito.Mockito.`when`
+import org.mockito.MockitoAnnotations
+
+class DetailsViewModelTest {
+
+    @Mock
+    private lateinit var freeSoundApiClient: FreeSoundApiClient
+
+    private lateinit var viewModel: DetailsViewModel
+
+    @Before
+    fun setUp() {
+        MockitoAnnotations.initMocks(this)
+        viewModel = DetailsViewModel(SOUND_ID, freeSoundApiClient, TrampolineSchedulerProvider())
+    }
+
+    @Test
+    fun `detailsState isLoading untilFetched`() {
+        // given
+        `when`(freeSoundApiClient.getSound(SOUND_ID)).thenReturn(SingleSubject.create())
+
+        // when
+        viewModel.bindToDataModel()
+
+        // then
+        viewModel.detailsStateOnceAndStream
+                .test()
+                .assertValue(DetailsState.Loading)
+    }
+
+    @Test
+    fun `detailsState isLoaded withFetchedDetails`() {
+        // given
+        val details = TestData.soundDetails(SOUND_ID)
+        `when`(freeSoundApiClient.getSound(SOUND_ID)).thenReturn(Single.just(details))
+
+        // when
+        viewModel.bindToDataModel()
+
+        // then
+        viewModel.detailsStateOnceAndStream
+                .test()
+                .assertValue(DetailsState.Loaded(details))
+    }
+
+    @Test
+    fun `detailsState isError whenFetchFails`() {
+        // given
+        val error = Exception("test")
+        `when`(freeSoundApiClient.getSound(SOUND_ID)).thenReturn(Single.error(error))
+
+        // when
+        viewModel.bindToDataModel()
+
+        // then
+        viewModel.detailsStateOnceAndStream
+                .test()
+                .assertValue(DetailsState.Error(error))
+    }
+
+    @Test
+    fun `unbindDataModel cancelsFetch`() {
+        // given
+        val fetch = SingleSubject.create<SoundDetails>()
+        `when`(freeSoundApiClient.getSound(SOUND_ID)).thenReturn(fetch)
+        viewModel.bindToDataModel()
+
+        // when
+        viewModel.unbindDataModel()
+
+        // then
+        assertThat(fetch.hasObservers()).isFalse()
+    }
+
+    companion object {
+        private const val SOUND_ID = 7L
+    }
+}
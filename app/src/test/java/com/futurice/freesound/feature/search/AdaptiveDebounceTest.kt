@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.search
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+
+class AdaptiveDebounceTest {
+
+    @Test
+    fun `delay shortens towards minimum for fast typist`() {
+        val debounce = AdaptiveDebounce(MIN_DELAY_MS, MAX_DELAY_MS)
+        val initialDelayMs = debounce.delayMs()
+
+        typeKeystrokes(debounce, count = 20, intervalMs = 80)
+
+        assertThat(debounce.delayMs()).isLessThan(initialDelayMs)
+        assertThat(debounce.delayMs()).isEqualTo(MIN_DELAY_MS)
+    }
+
+    @Test
+    fun `delay lengthens towards maximum for slow typist`() {
+        val debounce = AdaptiveDebounce(MIN_DELAY_MS, MAX_DELAY_MS)
+        val initialDelayMs = debounce.delayMs()
+
+        typeKeystrokes(debounce, count = 20, intervalMs = 600)
+
+        assertThat(debounce.delayMs()).isGreaterThan(initialDelayMs)
+        assertThat(debounce.delayMs()).isLessThanOrEqualTo(MAX_DELAY_MS)
+    }
+
+    @Test
+    fun `pauses longer than maximum delay are not learnt`() {
+        val debounce = AdaptiveDebounce(MIN_DELAY_MS, MAX_DELAY_MS)
+        val initialDelayMs = debounce.delayMs()
+
+        typeKeystrokes(debounce, count = 5, intervalMs = MAX_DELAY_MS + 1)
+
+        assertThat(debounce.delayMs()).isEqualTo(initialDelayMs)
+    }
+
+    @Test
+    fun `delay lengthens with search latency`() {
+        val debounce = AdaptiveDebounce(MIN_DELAY_MS, MAX_DELAY_MS)
+        val initialDelayMs = debounce.delayMs()
+
+        repeat(10) { debounce.onSearchCompleted(latencyMs = 800) }
+
+        assertThat(debounce.delayMs()).isGreaterThan(initialDelayMs)
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun `constructor throws when minimum exceeds maximum`() {
+        AdaptiveDebounce(minDelayMs = 2, maxDelayMs = 1)
+    }
+
+    private fun typeKeystrokes(debounce: AdaptiveDebounce, count: Int, intervalMs: Long) {
+        for (i in 0 until count) {
+            debounce.onKeystroke(i * intervalMs)
+        }
+    }
+
+    companion object {
+        private const val MIN_DELAY_MS = 150L
+        private const val MAX_DELAY_MS = 1000L
+    }
+}
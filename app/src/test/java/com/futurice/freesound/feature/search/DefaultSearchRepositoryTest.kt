@@ -15,31 +15,61 @@
  */
 package com.futurice.freesound.feature.search
 
+import com.futurice.freesound.feature.user.UserRepository
 import com.futurice.freesound.network.api.FreeSoundApiClient
+import com.futurice.freesound.network.api.model.SearchFilter
+import com.futurice.freesound.network.api.model.SearchQuery
+import com.futurice.freesound.network.api.model.SoundFields
 import com.futurice.freesound.network.api.model.SoundSearchResult
+import com.futurice.freesound.store.Cache
+import com.futurice.freesound.network.api.model.Sound
 import com.futurice.freesound.test.data.TestData.Companion.searchResult
+import com.futurice.freesound.test.data.TestData.Companion.sound
+import com.futurice.freesound.test.data.TestData.Companion.user
 import com.futurice.freesound.test.rx.TrampolineSchedulerProvider
 import io.reactivex.Completable
 import io.reactivex.Single
+import io.reactivex.schedulers.TestScheduler
+import io.reactivex.subjects.CompletableSubject
 import org.assertj.core.api.Assertions
 import org.junit.Before
 import org.junit.Test
 import org.mockito.ArgumentMatchers.*
 import org.mockito.Mock
 import org.mockito.Mockito.`when`
+import org.mockito.Mockito.times
 import org.mockito.Mockito.verify
 import org.mockito.MockitoAnnotations
+import java.io.IOException
+import java.util.concurrent.TimeUnit
 
 class DefaultSearchRepositoryTest {
     @Mock
     private lateinit var freeSoundApiClient: FreeSoundApiClient
 
+    @Mock
+    private lateinit var searchSuggestions: SearchSuggestions
+
+    @Mock
+    private lateinit var localSoundSearch: LocalSoundSearch
+
     private lateinit var defaultSearchRepository: DefaultSearchRepository
 
+    private lateinit var cacheScheduler: TestScheduler
+
     @Before
     fun setUp() {
         MockitoAnnotations.initMocks(this)
+        `when`(freeSoundApiClient.getUser(anyString())).thenReturn(Single.just(user()))
+        `when`(searchSuggestions.recordResults(anyList())).thenReturn(Completable.complete())
+        `when`(localSoundSearch.search(any())).thenReturn(Single.just(emptyList()))
+        `when`(localSoundSearch.record(anyList())).thenReturn(Completable.complete())
+        cacheScheduler = TestScheduler()
         defaultSearchRepository = DefaultSearchRepository(freeSoundApiClient,
+                UserRepository(freeSoundApiClient, Cache()),
+                SearchResultCache(CACHE_MAX_SOUNDS, CACHE_EXPIRY_MS, CACHE_REFRESH_MS, cacheScheduler),
+                searchSuggestions,
+                localSoundSearch,
                 TrampolineSchedulerProvider())
     }
 
@@ -52,7 +82,7 @@ class DefaultSearchRepositoryTest {
         defaultSearchRepository.querySearch(QUERY, Completable.complete()).test()
 
         // then
-        verify(freeSoundApiClient).search(eq(QUERY))
+        verify(freeSoundApiClient).search(eq(QUERY), eq(SoundFields.LIST))
     }
 
     @Test
@@ -72,7 +102,7 @@ class DefaultSearchRepositoryTest {
         Arrangement().withSearchResultError(Exception())
 
         // when, then
-        defaultSearchRepository.querySearch("should-error", Completable.complete())
+        defaultSearchRepository.querySearch(SearchQuery("should-error"), Completable.complete())
                 .test()
                 .assertComplete()
     }
@@ -127,7 +157,7 @@ class DefaultSearchRepositoryTest {
                 .test()
 
         // when
-        defaultSearchRepository.querySearch("should-error", Completable.complete()).subscribe()
+        defaultSearchRepository.querySearch(SearchQuery("should-error"), Completable.complete()).subscribe()
 
         // then
         ts.assertNotTerminated()
@@ -199,6 +229,60 @@ class DefaultSearchRepositoryTest {
         ts.assertValueCount(1)
     }
 
+    @Test
+    fun `pagedResultsOnceAndStream emitsDataSourceFactory whenQuerySearchSuccessful`() {
+        // given
+        Arrangement().withDummySearchResult()
+        val ts = defaultSearchRepository.pagedResultsOnceAndStream.test()
+
+        // when
+        defaultSearchRepository.querySearch(QUERY, Completable.complete()).subscribe()
+
+        // then
+        ts.assertValueCount(1)
+                .assertNotTerminated()
+    }
+
+    @Test
+    fun `pagedResultsOnceAndStream doesNotEmit whenQuerySearchErrors`() {
+        // given
+        Arrangement().withSearchResultError()
+        val ts = defaultSearchRepository.pagedResultsOnceAndStream.test()
+
+        // when
+        defaultSearchRepository.querySearch(QUERY, Completable.complete()).subscribe()
+
+        // then
+        ts.assertNoValues()
+                .assertNotTerminated()
+    }
+
+    @Test
+    fun `querySearch prefetchesEachDistinctUser`() {
+        // given
+        val results = dummyResults()
+        Arrangement().withSearchResultsFor(QUERY, results)
+
+        // when
+        defaultSearchRepository.querySearch(QUERY, Completable.complete()).subscribe()
+
+        // then
+        results.results.map { it.username }.distinct()
+                .forEach { verify(freeSoundApiClient).getUser(it) }
+    }
+
+    @Test
+    fun `querySearch completes whenUserPrefetchErrors`() {
+        // given
+        Arrangement().withDummySearchResult()
+        `when`(freeSoundApiClient.getUser(anyString())).thenReturn(Single.error(Exception()))
+
+        // when, then
+        defaultSearchRepository.querySearch(QUERY, Completable.complete())
+                .test()
+                .assertComplete()
+    }
+
     @Test
     fun `clear clearsSearchState`() {
         // given
@@ -224,19 +308,322 @@ class DefaultSearchRepositoryTest {
                 .assertComplete()
     }
 
+    @Test
+    fun `querySearch reportsCachedResults withoutQueryingApiAgain`() {
+        // given
+        val results = dummyResults()
+        Arrangement().withSearchResultsFor(QUERY, results)
+                .act()
+                .querySearch()
+        defaultSearchRepository.clear().subscribe()
+
+        // when
+        defaultSearchRepository.querySearch(QUERY, Completable.complete()).subscribe()
+
+        // then
+        verify(freeSoundApiClient, times(1)).search(eq(QUERY), any())
+        defaultSearchRepository.searchStateOnceAndStream
+                .test()
+                .assertValue(SearchState.Success(results.results))
+    }
+
+    @Test
+    fun `querySearch reportsCachedResults withoutWaitingForPreliminaryTask`() {
+        // given
+        val results = dummyResults()
+        Arrangement().withSearchResultsFor(QUERY, results)
+                .act()
+                .querySearch()
+        defaultSearchRepository.clear().subscribe()
+
+        // when
+        defaultSearchRepository.querySearch(QUERY, Completable.never()).subscribe()
+
+        // then
+        defaultSearchRepository.searchStateOnceAndStream
+                .test()
+                .assertValue(SearchState.Success(results.results))
+    }
+
+    @Test
+    fun `querySearch doesNotShareCachedResults betweenDifferentFilters`() {
+        // given
+        Arrangement().withDummySearchResult()
+                .act()
+                .querySearch()
+        val filtered = QUERY.filteredBy(SearchFilter.Geotagged)
+
+        // when
+        defaultSearchRepository.querySearch(filtered, Completable.complete()).subscribe()
+
+        // then
+        verify(freeSoundApiClient).search(eq(filtered), any())
+    }
+
+    @Test
+    fun `querySearch refreshesCachedResults inBackground whenDueForRefresh`() {
+        // given
+        val refreshed = searchResult(7)
+        Arrangement().withSearchResultsFor(QUERY, dummyResults())
+                .act()
+                .querySearch()
+        Arrangement().withRefreshedResultsFor(QUERY, refreshed)
+        cacheScheduler.advanceTimeBy(CACHE_REFRESH_MS, TimeUnit.MILLISECONDS)
+        val ts = defaultSearchRepository.searchStateOnceAndStream
+                .test()
+
+        // when
+        defaultSearchRepository.querySearch(QUERY, Completable.complete()).subscribe()
+
+        // then
+        verify(freeSoundApiClient).refreshSearch(eq(QUERY), any())
+        ts.assertValueAt(ts.valueCount() - 1, SearchState.Success(refreshed.results))
+        ts.values().forEach { Assertions.assertThat(it).isNotInstanceOf(SearchState.InProgress::class.java) }
+    }
+
+    @Test
+    fun `querySearch reportsFresherResults whenHttpCacheServesStaleResults`() {
+        // given
+        val stale = dummyResults()
+        val fresher = searchResult(7)
+        Arrangement().withSearchResultsFor(QUERY, stale)
+                .act()
+                .querySearch()
+        // The HTTP cache keeps answering plain searches with the stale body.
+        Arrangement().withSearchResultsFor(QUERY, stale)
+                .withRefreshedResultsFor(QUERY, fresher)
+        cacheScheduler.advanceTimeBy(CACHE_REFRESH_MS, TimeUnit.MILLISECONDS)
+        val ts = defaultSearchRepository.searchStateOnceAndStream
+                .test()
+
+        // when
+        defaultSearchRepository.querySearch(QUERY, Completable.complete()).subscribe()
+
+        // then
+        verify(freeSoundApiClient, times(1)).search(eq(QUERY), any())
+        ts.assertValueAt(ts.valueCount() - 1, SearchState.Success(fresher.results))
+    }
+
+    @Test
+    fun `querySearch keepsCachedResults whenRefreshErrors`() {
+        // given
+        val results = dummyResults()
+        Arrangement().withSearchResultsFor(QUERY, results)
+                .act()
+                .querySearch()
+        Arrangement().withRefreshError()
+        cacheScheduler.advanceTimeBy(CACHE_REFRESH_MS, TimeUnit.MILLISECONDS)
+
+        // when
+        defaultSearchRepository.querySearch(QUERY, Completable.complete())
+                .test()
+                .assertComplete()
+
+        // then
+        defaultSearchRepository.searchStateOnceAndStream
+                .test()
+                .assertValue(SearchState.Success(results.results))
+    }
+
+    @Test
+    fun `querySearch queriesApiAgain whenCachedResultsExpired`() {
+        // given
+        Arrangement().withDummySearchResult()
+                .act()
+                .querySearch()
+        cacheScheduler.advanceTimeBy(CACHE_EXPIRY_MS, TimeUnit.MILLISECONDS)
+        val ts = defaultSearchRepository.searchStateOnceAndStream
+                .skip(1)
+                .test()
+
+        // when
+        defaultSearchRepository.querySearch(QUERY, Completable.complete()).subscribe()
+
+        // then
+        verify(freeSoundApiClient, times(2)).search(eq(QUERY), any())
+        Assertions.assertThat(ts.values()[0]).isInstanceOf(SearchState.InProgress::class.java)
+    }
+
+    @Test
+    fun `resultCacheStats countsHitsAndMisses`() {
+        // given
+        Arrangement().withDummySearchResult()
+                .act()
+                .querySearch()
+
+        // when
+        defaultSearchRepository.querySearch(QUERY, Completable.complete()).subscribe()
+
+        // then
+        val stats = defaultSearchRepository.resultCacheStats
+        Assertions.assertThat(stats.hitCount).isEqualTo(1)
+        Assertions.assertThat(stats.missCount).isEqualTo(1)
+        Assertions.assertThat(stats.hitRate()).isEqualTo(0.5)
+    }
+
+    @Test
+    fun `querySearch recordsResultsAsSuggestions`() {
+        // given
+        val results = dummyResults()
+        Arrangement().withSearchResultsFor(QUERY, results)
+
+        // when
+        defaultSearchRepository.querySearch(QUERY, Completable.complete()).test()
+
+        // then
+        verify(searchSuggestions).recordResults(results.results)
+    }
+
+    @Test
+    fun `querySearch completes whenRecordingSuggestionsErrors`() {
+        // given
+        Arrangement().withDummySearchResult()
+        `when`(searchSuggestions.recordResults(anyList())).thenReturn(Completable.error(Exception()))
+
+        // when
+        val observer = defaultSearchRepository.querySearch(QUERY, Completable.complete()).test()
+
+        // then
+        observer.assertComplete()
+    }
+
+    @Test
+    fun `querySearch recordsResultsLocally`() {
+        // given
+        val results = dummyResults()
+        Arrangement().withSearchResultsFor(QUERY, results)
+
+        // when
+        defaultSearchRepository.querySearch(QUERY, Completable.complete()).test()
+
+        // then
+        verify(localSoundSearch).record(results.results)
+    }
+
+    @Test
+    fun `querySearch reportsLocalMatches withoutWaitingForPreliminaryTask`() {
+        // given
+        val local = listOf(sound(7))
+        Arrangement().withDummySearchResult()
+                .withLocalMatches(local)
+
+        // when
+        defaultSearchRepository.querySearch(QUERY, CompletableSubject.create()).subscribe()
+
+        // then
+        verify(freeSoundApiClient, times(0)).search(any(), any())
+        defaultSearchRepository.searchStateOnceAndStream
+                .test()
+                .assertValue(SearchState.InProgress(local))
+    }
+
+    @Test
+    fun `querySearch reportsLocalMatches whenNetworkUnreachable`() {
+        // given
+        val local = listOf(sound(7))
+        Arrangement().withSearchResultError(IOException())
+                .withLocalMatches(local)
+
+        // when
+        defaultSearchRepository.querySearch(QUERY, Completable.complete()).subscribe()
+
+        // then
+        defaultSearchRepository.searchStateOnceAndStream
+                .test()
+                .assertValue(SearchState.Success(local))
+    }
+
+    @Test
+    fun `querySearch reportsError whenNetworkUnreachable withoutLocalMatches`() {
+        // given
+        val error = IOException()
+        Arrangement().withSearchResultError(error)
+
+        // when
+        defaultSearchRepository.querySearch(QUERY, Completable.complete()).subscribe()
+
+        // then
+        defaultSearchRepository.searchStateOnceAndStream
+                .test()
+                .assertValue(SearchState.Error(error))
+    }
+
+    @Test
+    fun `querySearch reportsError whenApiErrors withLocalMatches`() {
+        // given
+        val error = Exception()
+        Arrangement().withSearchResultError(error)
+                .withLocalMatches(listOf(sound(7)))
+
+        // when
+        defaultSearchRepository.querySearch(QUERY, Completable.complete()).subscribe()
+
+        // then
+        defaultSearchRepository.searchStateOnceAndStream
+                .test()
+                .assertValue(SearchState.Error(error))
+    }
+
+    @Test
+    fun `querySearch appendsMissingLocalMatches toLastRemotePage`() {
+        // given
+        val remote = dummyResults().copy(next = null)
+        Arrangement().withSearchResultsFor(QUERY, remote)
+                .withLocalMatches(listOf(remote.results[1], sound(70)))
+
+        // when
+        defaultSearchRepository.querySearch(QUERY, Completable.complete()).subscribe()
+
+        // then
+        defaultSearchRepository.searchStateOnceAndStream
+                .test()
+                .assertValue(SearchState.Success(remote.results + sound(70)))
+    }
+
+    @Test
+    fun `querySearch doesNotAppendLocalMatches whenMoreRemotePages`() {
+        // given
+        val remote = dummyResults()
+        Arrangement().withSearchResultsFor(QUERY, remote)
+                .withLocalMatches(listOf(sound(70)))
+
+        // when
+        defaultSearchRepository.querySearch(QUERY, Completable.complete()).subscribe()
+
+        // then
+        defaultSearchRepository.searchStateOnceAndStream
+                .test()
+                .assertValue(SearchState.Success(remote.results))
+    }
+
     private inner class Arrangement {
         fun withDummySearchResult(): Arrangement {
-            `when`(freeSoundApiClient.search(anyString())).thenReturn(Single.just(dummyResults()))
+            `when`(freeSoundApiClient.search(any(), any())).thenReturn(Single.just(dummyResults()))
             return this
         }
 
-        fun withSearchResultsFor(query: String, results: SoundSearchResult): Arrangement {
-            `when`(freeSoundApiClient.search(eq(query))).thenReturn(Single.just(results))
+        fun withSearchResultsFor(query: SearchQuery, results: SoundSearchResult): Arrangement {
+            `when`(freeSoundApiClient.search(eq(query), any())).thenReturn(Single.just(results))
             return this
         }
 
         fun withSearchResultError(exception: Exception = Exception()): Arrangement {
-            `when`(freeSoundApiClient.search(any())).thenReturn(Single.error(exception))
+            `when`(freeSoundApiClient.search(any(), any())).thenReturn(Single.error(exception))
+            return this
+        }
+
+        fun withRefreshedResultsFor(query: SearchQuery, results: SoundSearchResult): Arrangement {
+            `when`(freeSoundApiClient.refreshSearch(eq(query), any())).thenReturn(Single.just(results))
+            return this
+        }
+
+        fun withRefreshError(exception: Exception = Exception()): Arrangement {
+            `when`(freeSoundApiClient.refreshSearch(any(), any())).thenReturn(Single.error(exception))
+            return this
+        }
+
+        fun withLocalMatches(sounds: List<Sound>): Arrangement {
+            `when`(localSoundSearch.search(QUERY)).thenReturn(Single.just(sounds))
             return this
         }
 
@@ -246,13 +633,16 @@ class DefaultSearchRepositoryTest {
     }
 
     private inner class Act {
-        fun querySearch(query: String = QUERY) {
+        fun querySearch(query: SearchQuery = QUERY) {
             defaultSearchRepository.querySearch(query, Completable.complete()).subscribe()
         }
     }
 
     companion object {
-        private const val QUERY = "trains"
+        private val QUERY = SearchQuery("trains")
+        private const val CACHE_MAX_SOUNDS = 1000
+        private val CACHE_EXPIRY_MS = TimeUnit.MINUTES.toMillis(30)
+        private val CACHE_REFRESH_MS = TimeUnit.MINUTES.toMillis(5)
         private fun dummyResults(): SoundSearchResult = searchResult(5)
     }
 }
\ No newline at end of file
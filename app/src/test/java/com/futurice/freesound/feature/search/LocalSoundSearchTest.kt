@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.search
+
+import com.futurice.freesound.network.api.model.SearchQuery
+import com.futurice.freesound.network.api.model.Sound
+import com.futurice.freesound.network.api.model.mapping.FreesoundDateJsonAdapter
+import com.futurice.freesound.network.api.model.mapping.ReflectiveFallbackJsonAdapterFactory
+import com.futurice.freesound.test.data.TestData.Companion.sound
+import com.squareup.moshi.Moshi
+import io.reactivex.schedulers.Schedulers
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+import java.util.*
+
+class LocalSoundSearchTest {
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    private val file: File by lazy { File(folder.root, "local_sounds") }
+
+    @Test
+    fun `search findsRecordedSounds`() {
+        val rain = sound(1).copy(name = "rain")
+
+        newLocalSoundSearch().let {
+            it.record(listOf(rain)).test().assertComplete()
+            it.search(SearchQuery("rain")).test().assertValue(listOf(rain))
+        }
+    }
+
+    @Test
+    fun `search findsSoundsRecordedBeforeRestart`() {
+        val rain = sound(1).copy(name = "rain")
+        newLocalSoundSearch().record(listOf(rain)).subscribe()
+
+        newLocalSoundSearch().search(SearchQuery("rain"))
+                .test()
+                .assertValue(listOf(rain))
+    }
+
+    @Test
+    fun `search ignoresTruncatedJournal`() {
+        val rain = sound(1).copy(name = "rain")
+        newLocalSoundSearch().record(listOf(rain)).subscribe()
+        file.appendText("{\"id\":2,\"na")
+
+        newLocalSoundSearch().search(SearchQuery("rain"))
+                .test()
+                .assertValue(listOf(rain))
+    }
+
+    @Test
+    fun `record afterTruncatedJournal isNotLost`() {
+        newLocalSoundSearch().record(listOf(sound(1).copy(name = "rain"))).subscribe()
+        file.appendText("{\"id\":2,\"na")
+        val storm = sound(3).copy(name = "storm")
+        newLocalSoundSearch().record(listOf(storm)).subscribe()
+
+        newLocalSoundSearch().search(SearchQuery("storm"))
+                .test()
+                .assertValue(listOf(storm))
+    }
+
+    @Test
+    fun `record compactsJournal ofSupersededSounds`() {
+        val localSoundSearch = newLocalSoundSearch()
+        for (i in 0 until 5) {
+            localSoundSearch.record(listOf(sound(1).copy(name = "rain $i"))).subscribe()
+        }
+
+        assertThat(file.readLines()).hasSize(1)
+        newLocalSoundSearch().search(SearchQuery("rain 4"))
+                .test()
+                .assertValue(listOf(sound(1).copy(name = "rain 4")))
+    }
+
+    private fun newLocalSoundSearch() =
+            LocalSoundSearch(file, MOSHI.adapter(Sound::class.java), SoundIndex(), Schedulers.trampoline())
+
+    companion object {
+        private val MOSHI = Moshi.Builder()
+                .add(ReflectiveFallbackJsonAdapterFactory())
+                .add(Date::class.java, FreesoundDateJsonAdapter().nullSafe())
+                .build()
+    }
+}
@@ -20,6 +20,7 @@ import androidx.annotation.NonNull;
 
 import com.futurice.freesound.feature.analytics.Analytics;
 import com.futurice.freesound.feature.audio.AudioPlayer;
+import com.futurice.freesound.network.api.model.SearchQuery;
 import com.futurice.freesound.network.api.model.Sound;
 import com.futurice.freesound.test.data.TestData;
 import com.futurice.freesound.test.rx.TimeSkipScheduler;
@@ -34,22 +35,28 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Completable;
 import io.reactivex.Scheduler;
+import io.reactivex.Single;
 import io.reactivex.observers.TestObserver;
 import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.CompletableSubject;
 import io.reactivex.subjects.BehaviorSubject;
 
 import static com.futurice.freesound.feature.search.SearchActivityViewModelKt.SEARCH_DEBOUNCE_TAG;
-import static com.futurice.freesound.feature.search.SearchActivityViewModelKt.SEARCH_DEBOUNCE_TIME_SECONDS;
+import static com.futurice.freesound.feature.search.SearchActivityViewModelKt.MAX_SEARCH_DEBOUNCE_MS;
+import static com.futurice.freesound.feature.search.SearchActivityViewModelKt.MIN_QUERY_LENGTH;
 import static org.assertj.core.api.Assertions.assertThat;
+import static java.util.Arrays.asList;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -67,24 +74,32 @@ public class SearchActivityViewModelTest {
     @Mock
     private Analytics analytics;
 
+    @Mock
+    private SearchSuggestions searchSuggestions;
+
     @Captor
-    private ArgumentCaptor<String> searchTermCaptor;
+    private ArgumentCaptor<SearchQuery> searchTermCaptor;
 
     @Captor
     private ArgumentCaptor<Completable> searchDelayCaptor;
 
     private TrampolineSchedulerProvider schedulerProvider;
 
+    private SearchLatencyStats searchLatencyStats;
+
     private SearchActivityViewModel viewModel;
 
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
         schedulerProvider = new TrampolineSchedulerProvider();
+        searchLatencyStats = new SearchLatencyStats();
         viewModel = new SearchActivityViewModel(searchRepository,
                 audioPlayer,
                 analytics,
-                schedulerProvider);
+                schedulerProvider,
+                searchLatencyStats,
+                searchSuggestions);
     }
 
     @Test
@@ -132,7 +147,7 @@ public class SearchActivityViewModelTest {
 
         viewModel.search(DUMMY_QUERY);
 
-        verify(searchRepository).querySearch(eq(DUMMY_QUERY), any(Completable.class));
+        verify(searchRepository).querySearch(eq(new SearchQuery(DUMMY_QUERY)), any(Completable.class));
     }
 
     @Test
@@ -147,7 +162,7 @@ public class SearchActivityViewModelTest {
         viewModel.search(DUMMY_QUERY);
         viewModel.search(DUMMY_QUERY);
 
-        verify(searchRepository).querySearch(eq(DUMMY_QUERY), any(Completable.class));
+        verify(searchRepository).querySearch(eq(new SearchQuery(DUMMY_QUERY)), any(Completable.class));
     }
 
     @Test
@@ -176,7 +191,7 @@ public class SearchActivityViewModelTest {
 
         InOrder order = inOrder(searchRepository);
         order.verify(searchRepository).clear();
-        order.verify(searchRepository).querySearch(eq(DUMMY_QUERY), any(Completable.class));
+        order.verify(searchRepository).querySearch(eq(new SearchQuery(DUMMY_QUERY)), any(Completable.class));
         order.verify(searchRepository).clear();
     }
 
@@ -225,7 +240,7 @@ public class SearchActivityViewModelTest {
                 .bind()
                 .search();
 
-        verify(searchRepository, times(2)).querySearch(eq(DUMMY_QUERY), any(Completable.class));
+        verify(searchRepository, times(2)).querySearch(eq(new SearchQuery(DUMMY_QUERY)), any(Completable.class));
     }
 
     @Test
@@ -237,8 +252,8 @@ public class SearchActivityViewModelTest {
                 .bind()
                 .search();
 
-        testScheduler.advanceTimeBy(SEARCH_DEBOUNCE_TIME_SECONDS,
-                TimeUnit.SECONDS);
+        testScheduler.advanceTimeBy(MAX_SEARCH_DEBOUNCE_MS,
+                TimeUnit.MILLISECONDS);
         act.search("");
 
         verify(searchRepository, times(2)).clear();
@@ -258,7 +273,7 @@ public class SearchActivityViewModelTest {
         verify(searchRepository).querySearch(searchTermCaptor.capture(),
                 searchDelayCaptor.capture());
 
-        assertThat(searchTermCaptor.getValue()).isEqualTo(DUMMY_QUERY);
+        assertThat(searchTermCaptor.getValue().getText()).isEqualTo(DUMMY_QUERY);
         searchDelayCaptor.getValue().test().assertNotTerminated();
     }
 
@@ -275,13 +290,167 @@ public class SearchActivityViewModelTest {
         verify(searchRepository).querySearch(searchTermCaptor.capture(),
                 searchDelayCaptor.capture());
 
-        assertThat(searchTermCaptor.getValue()).isEqualTo(DUMMY_QUERY);
+        assertThat(searchTermCaptor.getValue().getText()).isEqualTo(DUMMY_QUERY);
         TestObserver<Void> testObserver = searchDelayCaptor.getValue().test();
-        testScheduler.advanceTimeBy(SEARCH_DEBOUNCE_TIME_SECONDS,
-                TimeUnit.SECONDS);
+        testScheduler.advanceTimeBy(MAX_SEARCH_DEBOUNCE_MS,
+                TimeUnit.MILLISECONDS);
         testObserver.assertComplete();
     }
 
+    @Test
+    public void search_withQueryShorterThanMinimum_clearsInsteadOfQuerying() {
+        new ArrangeBuilder().withSuccessfulSearchResultStream()
+                .act()
+                .bind();
+
+        viewModel.search(DUMMY_QUERY);
+        viewModel.search(DUMMY_QUERY.substring(0, MIN_QUERY_LENGTH - 1));
+
+        verify(searchRepository, times(2)).clear();
+        verify(searchRepository).querySearch(any(SearchQuery.class), any(Completable.class));
+    }
+
+    @Test
+    public void search_recordsKeystrokeToResultsLatency() {
+        TestScheduler testScheduler = new TestScheduler();
+        CompletableSubject search = CompletableSubject.create();
+        ArrangeBuilder arrangeBuilder = new ArrangeBuilder()
+                .withTimeScheduler(testScheduler, SEARCH_DEBOUNCE_TAG)
+                .withSearch(search);
+        arrangeBuilder.act()
+                .bind()
+                .search(DUMMY_QUERY);
+
+        testScheduler.advanceTimeBy(700, TimeUnit.MILLISECONDS);
+        arrangeBuilder.enqueueSearchResults(TestData.sounds(1));
+
+        assertThat(searchLatencyStats.searchCount()).isEqualTo(1);
+        assertThat(searchLatencyStats.meanLatencyMs()).isEqualTo(700);
+    }
+
+    @Test
+    public void search_recordsLatency_whenResultsAreShown_beforeSearchCompletes() {
+        TestScheduler testScheduler = new TestScheduler();
+        CompletableSubject search = CompletableSubject.create();
+        ArrangeBuilder arrangeBuilder = new ArrangeBuilder()
+                .withTimeScheduler(testScheduler, SEARCH_DEBOUNCE_TAG)
+                .withSearch(search);
+        arrangeBuilder.act()
+                .bind()
+                .search(DUMMY_QUERY);
+
+        testScheduler.advanceTimeBy(300, TimeUnit.MILLISECONDS);
+        arrangeBuilder.enqueueSearchResults(TestData.sounds(1));
+        testScheduler.advanceTimeBy(400, TimeUnit.MILLISECONDS);
+        search.onComplete();
+
+        assertThat(searchLatencyStats.searchCount()).isEqualTo(1);
+        assertThat(searchLatencyStats.meanLatencyMs()).isEqualTo(300);
+    }
+
+    @Test
+    public void search_doesNotRecordLatency_ofResultsPrecedingSearch() {
+        CompletableSubject search = CompletableSubject.create();
+        new ArrangeBuilder()
+                .enqueueSearchResults(TestData.sounds(1))
+                .withSearch(search)
+                .act()
+                .bind()
+                .search(DUMMY_QUERY);
+
+        search.onComplete();
+
+        assertThat(searchLatencyStats.searchCount()).isZero();
+    }
+
+    @Test
+    public void search_doesNotRecordLatency_ofFailedSearch() {
+        CompletableSubject search = CompletableSubject.create();
+        ArrangeBuilder arrangeBuilder = new ArrangeBuilder()
+                .withSearch(search);
+        arrangeBuilder.act()
+                .bind()
+                .search(DUMMY_QUERY);
+
+        arrangeBuilder.enqueueSearchError(new Exception());
+        arrangeBuilder.enqueueSearchResults(TestData.sounds(1));
+        search.onComplete();
+
+        assertThat(searchLatencyStats.searchCount()).isZero();
+    }
+
+    @Test
+    public void search_doesNotRecordLatency_ofSupersededSearch() {
+        CompletableSubject search = CompletableSubject.create();
+        new ArrangeBuilder()
+                .withSearch(search)
+                .act()
+                .bind()
+                .search(DUMMY_QUERY)
+                .search("");
+
+        assertThat(search.hasObservers()).isFalse();
+        assertThat(searchLatencyStats.searchCount()).isZero();
+    }
+
+    @Test
+    public void search_recordsQueryAsSuggestion_whenSearchFindsSounds() {
+        CompletableSubject search = CompletableSubject.create();
+        ArrangeBuilder arrangeBuilder = new ArrangeBuilder()
+                .withSearch(search);
+        arrangeBuilder.act()
+                .bind()
+                .search(DUMMY_QUERY);
+
+        verify(searchSuggestions, never()).recordQuery(anyString());
+
+        arrangeBuilder.enqueueSearchResults(TestData.sounds(1));
+
+        verify(searchSuggestions).recordQuery(DUMMY_QUERY);
+    }
+
+    @Test
+    public void search_doesNotRecordQueryAsSuggestion_whenSearchFails() {
+        CompletableSubject search = CompletableSubject.create();
+        ArrangeBuilder arrangeBuilder = new ArrangeBuilder()
+                .withSearch(search);
+        arrangeBuilder.act()
+                .bind()
+                .search(DUMMY_QUERY);
+
+        arrangeBuilder.enqueueSearchError(new Exception());
+        search.onComplete();
+
+        verify(searchSuggestions, never()).recordQuery(anyString());
+    }
+
+    @Test
+    public void search_doesNotRecordQueryAsSuggestion_whenSearchFindsNothing() {
+        CompletableSubject search = CompletableSubject.create();
+        ArrangeBuilder arrangeBuilder = new ArrangeBuilder()
+                .withSearch(search);
+        arrangeBuilder.act()
+                .bind()
+                .search(DUMMY_QUERY);
+
+        arrangeBuilder.enqueueSearchResults(Collections.emptyList());
+        search.onComplete();
+
+        verify(searchSuggestions, never()).recordQuery(anyString());
+    }
+
+    @Test
+    public void suggestions_areOfTheCurrentSearchTerm() {
+        new ArrangeBuilder()
+                .withSuggestions("rain", asList("rain forest", "rainfall"));
+        TestObserver<List<String>> ts = viewModel.getSuggestionsOnceAndStream().test();
+
+        viewModel.search("rain");
+
+        ts.assertValues(Collections.emptyList(), asList("rain forest", "rainfall"))
+                .assertNotTerminated();
+    }
+
     private class ArrangeBuilder {
 
         private final BehaviorSubject<SearchState> searchResultsStream = BehaviorSubject
@@ -294,12 +463,21 @@ public class SearchActivityViewModelTest {
             Mockito.when(searchRepository.getSearchStateOnceAndStream())
                     .thenReturn(searchResultsStream);
             Mockito.when(searchRepository.clear()).thenReturn(Completable.complete());
-            Mockito.when(searchRepository.querySearch(anyString(), any(Completable.class)))
+            Mockito.when(searchRepository.querySearch(any(SearchQuery.class), any(Completable.class)))
+                    .thenReturn(Completable.complete());
+            Mockito.when(searchSuggestions.suggestionsFor(anyString()))
+                    .thenReturn(Single.just(Collections.emptyList()));
+            Mockito.when(searchSuggestions.recordQuery(anyString()))
                     .thenReturn(Completable.complete());
             withSuccessfulSearchResultStream();
             withTimeSkipScheduler();
         }
 
+        ArrangeBuilder withSuggestions(String prefix, List<String> suggestions) {
+            when(searchSuggestions.suggestionsFor(prefix)).thenReturn(Single.just(suggestions));
+            return this;
+        }
+
         ArrangeBuilder withTimeScheduler(Scheduler scheduler, String tag) {
             schedulerProvider.setTimeScheduler(s -> s.endsWith(tag) ? scheduler : null);
             return this;
@@ -325,8 +503,18 @@ public class SearchActivityViewModelTest {
             return this;
         }
 
+        ArrangeBuilder enqueueSearchError(@NonNull final Throwable error) {
+            mockedSearchResultsStream.onNext(new SearchState.Error(error));
+            return this;
+        }
+
+        ArrangeBuilder withSearch(Completable search) {
+            when(searchRepository.querySearch(any(SearchQuery.class), any())).thenReturn(search);
+            return this;
+        }
+
         ArrangeBuilder withErrorWhenSearching() {
-            when(searchRepository.querySearch(anyString(), any())).thenReturn(
+            when(searchRepository.querySearch(any(SearchQuery.class), any())).thenReturn(
                     Completable.error(new Exception()));
             return this;
         }
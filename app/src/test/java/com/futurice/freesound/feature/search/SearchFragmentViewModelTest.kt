@@ -16,9 +16,12 @@
 package com.futurice.freesound.feature.search
 
 import com.futurice.freesound.feature.audio.AudioPlayer
+import com.futurice.freesound.feature.audio.PreviewPrefetcher
+import com.futurice.freesound.feature.audio.PreviewQualitySelector
 import com.futurice.freesound.feature.common.DisplayableItem
 import com.futurice.freesound.feature.common.Navigator
 import com.futurice.freesound.feature.search.SearchResultListItems.SOUND
+import com.futurice.freesound.network.api.NetworkBandwidthMeter
 import com.futurice.freesound.network.api.model.Sound
 import com.futurice.freesound.test.assertion.rx.RxJava2OptionAssertions.hasOptionValue
 import com.futurice.freesound.test.assertion.rx.RxJava2OptionAssertions.isNone
@@ -42,6 +45,9 @@ class SearchFragmentViewModelTest {
     @Mock
     private lateinit var audioPlayer: AudioPlayer
 
+    @Mock
+    private lateinit var previewPrefetcher: PreviewPrefetcher
+
     private lateinit var viewModel: SearchFragmentViewModel
 
     @Before
@@ -50,6 +56,8 @@ class SearchFragmentViewModelTest {
         viewModel = SearchFragmentViewModel(searchRepository,
                 navigator,
                 audioPlayer,
+                previewPrefetcher,
+                PreviewQualitySelector(NetworkBandwidthMeter()),
                 TrampolineSchedulerProvider())
     }
 
@@ -108,6 +116,27 @@ class SearchFragmentViewModelTest {
         verify(audioPlayer).stopPlayback()
     }
 
+    @Test
+    fun `prefetchPreviews prefetchesTopmostVisibleLowQualityPreviews`() {
+        // given
+        val visible = sounds(5)
+
+        // when
+        viewModel.prefetchPreviews(visible)
+
+        // then
+        verify(previewPrefetcher).prefetch(visible.take(PREFETCHED_PREVIEWS)
+                .map { it.previews.lowQualityMp3Url })
+    }
+
+    @Test
+    fun `cancelPrefetch cancelsAllPrefetches`() {
+        // given, when
+        viewModel.cancelPrefetch()
+        // then
+        verify(previewPrefetcher).cancelAll()
+    }
+
     private inner class Arrangement {
 
         private val mockedSearchResultsStream = BehaviorSubject.createDefault<SearchState>(SearchState.Cleared)
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.search
+
+import com.futurice.freesound.network.api.model.SearchFilter
+import com.futurice.freesound.network.api.model.SearchQuery
+import com.futurice.freesound.network.api.model.Sound
+import com.futurice.freesound.network.api.model.SoundLicense
+import com.futurice.freesound.network.api.model.SortOrder
+import com.futurice.freesound.test.data.TestData
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+
+class SoundIndexTest {
+
+    private val index = SoundIndex(maxSounds = 3)
+
+    @Test
+    fun `search matchesNameTagsUsernameAndDescription`() {
+        val byName = indexedSound(1, name = "Heavy rain")
+        val byTag = indexedSound(2, tags = listOf("rain"))
+        val byUsername = indexedSound(3, username = "rainmaker")
+        index.add(byName)
+        index.add(byTag)
+        index.add(byUsername)
+
+        assertThat(index.search(SearchQuery("rain"))).containsOnly(byName, byTag, byUsername)
+    }
+
+    @Test
+    fun `search matchesEveryWord`() {
+        val both = indexedSound(1, name = "Rain on a tin roof")
+        index.add(both)
+        index.add(indexedSound(2, name = "Rain in the forest"))
+
+        assertThat(index.search(SearchQuery("tin rain"))).containsExactly(both)
+    }
+
+    @Test
+    fun `search matchesLastWordAsPrefix`() {
+        val rain = indexedSound(1, name = "Heavy rain")
+        index.add(rain)
+
+        assertThat(index.search(SearchQuery("heavy ra"))).containsExactly(rain)
+        assertThat(index.search(SearchQuery("hea rain"))).isEmpty()
+    }
+
+    @Test
+    fun `search ignoresCaseAndPunctuation`() {
+        val rain = indexedSound(1, name = "RAIN-storm.wav")
+        index.add(rain)
+
+        assertThat(index.search(SearchQuery("Storm, rain!"))).containsExactly(rain)
+    }
+
+    @Test
+    fun `search ranksMatchesInNameFirst`() {
+        val byDescription = indexedSound(1, description = "some rain")
+        val byName = indexedSound(2, name = "rain")
+        index.add(byDescription)
+        index.add(byName)
+
+        assertThat(index.search(SearchQuery("rain"))).containsExactly(byName, byDescription)
+    }
+
+    @Test
+    fun `search sortsByDuration whenRequested`() {
+        val short = indexedSound(1, name = "rain", duration = 1f)
+        val long = indexedSound(2, name = "rain", duration = 10f)
+        index.add(short)
+        index.add(long)
+
+        assertThat(index.search(SearchQuery("rain", sort = SortOrder.DURATION_DESCENDING)))
+                .containsExactly(long, short)
+    }
+
+    @Test
+    fun `search appliesFilters`() {
+        val tagged = indexedSound(1, name = "rain", tags = listOf("Field-Recording"))
+        index.add(tagged)
+        index.add(indexedSound(2, name = "rain"))
+
+        val query = SearchQuery("rain").filteredBy(SearchFilter.Tag("field-recording"))
+
+        assertThat(index.search(query)).containsExactly(tagged)
+    }
+
+    @Test
+    fun `search returnsNothing forFiltersOfUnindexedFields`() {
+        index.add(indexedSound(1, name = "rain"))
+
+        val query = SearchQuery("rain").filteredBy(SearchFilter.License(SoundLicense.CREATIVE_COMMONS_0))
+
+        assertThat(index.canAnswer(query)).isFalse()
+        assertThat(index.search(query)).isEmpty()
+    }
+
+    @Test
+    fun `search returnsAtMostPageSize`() {
+        index.add(indexedSound(1, name = "rain"))
+        index.add(indexedSound(2, name = "rain"))
+        index.add(indexedSound(3, name = "rain"))
+
+        assertThat(index.search(SearchQuery("rain", pageSize = 2))).hasSize(2)
+    }
+
+    @Test
+    fun `add replacesSoundWithSameId`() {
+        index.add(indexedSound(1, name = "rain"))
+        val renamed = indexedSound(1, name = "storm")
+        index.add(renamed)
+
+        assertThat(index.size()).isEqualTo(1)
+        assertThat(index.search(SearchQuery("rain"))).isEmpty()
+        assertThat(index.search(SearchQuery("storm"))).containsExactly(renamed)
+    }
+
+    @Test
+    fun `add evictsLeastRecentlyAdded whenFull`() {
+        index.add(indexedSound(1, name = "rain"))
+        index.add(indexedSound(2, name = "rain"))
+        index.add(indexedSound(3, name = "rain"))
+        index.add(indexedSound(1, name = "rain"))
+        index.add(indexedSound(4, name = "rain"))
+
+        assertThat(index.sounds().map { it.id }).containsExactly(3L, 1L, 4L)
+        assertThat(index.search(SearchQuery("rain")).map { it.id }).doesNotContain(2L)
+    }
+
+    private fun indexedSound(id: Long,
+                             name: String = "",
+                             tags: List<String> = emptyList(),
+                             username: String = "",
+                             description: String = "",
+                             duration: Float = 1f): Sound =
+            TestData.sound(id).copy(name = name,
+                    tags = tags,
+                    username = username,
+                    description = description,
+                    duration = duration)
+}
@@ -18,17 +18,24 @@ package com.futurice.freesound.feature.search
 
 import com.futurice.freesound.feature.audio.*
 import com.futurice.freesound.feature.common.Navigator
+import com.futurice.freesound.feature.user.UserRepository
 import com.futurice.freesound.network.api.FreeSoundApiClient
+import com.futurice.freesound.network.api.NetworkBandwidthMeter
 import com.futurice.freesound.network.api.model.Sound
 import com.futurice.freesound.network.api.model.User
+import com.futurice.freesound.store.Cache
 import com.futurice.freesound.test.data.TestData
+import io.reactivex.Observable
 import io.reactivex.Single
 import io.reactivex.subjects.BehaviorSubject
 import org.junit.Before
 import org.junit.Test
+import org.mockito.ArgumentMatchers.any
+import org.mockito.ArgumentMatchers.anyLong
 import org.mockito.ArgumentMatchers.eq
 import org.mockito.Mock
 import org.mockito.Mockito.`when`
+import org.mockito.Mockito.never
 import org.mockito.Mockito.verify
 import org.mockito.MockitoAnnotations
 import polanski.option.Option
@@ -47,9 +54,16 @@ class SoundItemViewModelTest {
     @Mock
     private lateinit var freeSoundApiClient: FreeSoundApiClient
 
+    private lateinit var userRepository: UserRepository
+
+    private val bandwidthMeter = NetworkBandwidthMeter()
+
+    private val previewQualitySelector = PreviewQualitySelector(bandwidthMeter)
+
     @Before
     fun setUp() {
         MockitoAnnotations.initMocks(this)
+        userRepository = UserRepository(freeSoundApiClient, Cache())
     }
 
     @Test
@@ -61,7 +75,7 @@ class SoundItemViewModelTest {
                 .copy(avatar = TestData.avatar().copy(medium = avatar_m))
 
         ArrangeBuilder().withUserResponse(username, user)
-        val vm = SoundItemViewModel(sound, navigator, audioPlayer, freeSoundApiClient)
+        val vm = SoundItemViewModel(sound, navigator, audioPlayer, previewQualitySelector, userRepository)
 
         vm.userAvatar()
                 .test()
@@ -75,7 +89,7 @@ class SoundItemViewModelTest {
         val user = TestData.user().copy(username = username)
         ArrangeBuilder().withUserResponse(username, user)
 
-        val vm = SoundItemViewModel(sound, navigator, audioPlayer, freeSoundApiClient)
+        val vm = SoundItemViewModel(sound, navigator, audioPlayer, previewQualitySelector, userRepository)
 
         vm.username()
                 .test()
@@ -87,7 +101,7 @@ class SoundItemViewModelTest {
         val createdDate = Date(1000L)
         val sound = TEST_SOUND.copy(created = createdDate)
 
-        val vm = SoundItemViewModel(sound, navigator, audioPlayer, freeSoundApiClient)
+        val vm = SoundItemViewModel(sound, navigator, audioPlayer, previewQualitySelector, userRepository)
 
         vm.createdDate()
                 .test()
@@ -99,7 +113,8 @@ class SoundItemViewModelTest {
         val soundItemViewModel = SoundItemViewModel(TEST_SOUND,
                 navigator,
                 audioPlayer,
-                freeSoundApiClient)
+                previewQualitySelector,
+                userRepository)
 
         soundItemViewModel.thumbnailImageUrl()
                 .test()
@@ -111,7 +126,8 @@ class SoundItemViewModelTest {
         val soundItemViewModel = SoundItemViewModel(TEST_SOUND,
                 navigator,
                 audioPlayer,
-                freeSoundApiClient)
+                previewQualitySelector,
+                userRepository)
 
         soundItemViewModel.name()
                 .test()
@@ -123,7 +139,8 @@ class SoundItemViewModelTest {
         val soundItemViewModel = SoundItemViewModel(TEST_SOUND,
                 navigator,
                 audioPlayer,
-                freeSoundApiClient)
+                previewQualitySelector,
+                userRepository)
 
         soundItemViewModel.description()
                 .test()
@@ -135,7 +152,8 @@ class SoundItemViewModelTest {
         val sound = TEST_SOUND.copy(duration = 0.4f)
 
         val vm = SoundItemViewModel(sound, navigator, audioPlayer,
-                freeSoundApiClient)
+                previewQualitySelector,
+                userRepository)
 
         vm.duration()
                 .test()
@@ -147,7 +165,8 @@ class SoundItemViewModelTest {
         val sound = TEST_SOUND.copy(duration = 2.6f)
 
         val vm = SoundItemViewModel(sound, navigator, audioPlayer,
-                freeSoundApiClient)
+                previewQualitySelector,
+                userRepository)
 
         vm.duration()
                 .test()
@@ -159,7 +178,8 @@ class SoundItemViewModelTest {
         val sound = TEST_SOUND.copy(duration = 1f)
 
         val vm = SoundItemViewModel(sound, navigator, audioPlayer,
-                freeSoundApiClient)
+                previewQualitySelector,
+                userRepository)
 
         vm.duration()
                 .test()
@@ -171,7 +191,8 @@ class SoundItemViewModelTest {
         val sound = TEST_SOUND.copy(duration = 0f)
 
         val vm = SoundItemViewModel(sound, navigator, audioPlayer,
-                freeSoundApiClient)
+                previewQualitySelector,
+                userRepository)
 
         vm.duration()
                 .test()
@@ -179,106 +200,115 @@ class SoundItemViewModelTest {
     }
 
     @Test
-    fun progressPercentage_isAudioPlayerProgressPercentage_whenSoundActiveInPlayer_andPositionNonZero() {
+    fun progress_isAudioPlayerProgressPercentage_whenSoundActiveInPlayer_andPositionNonZero() {
         val positionMs = TimeUnit.SECONDS.toMillis(10)
         val durationSec = 200f
         val expectedPercentage = 5
-        val sound = TEST_SOUND.copy(id = 1L, url = "url", duration = durationSec)
+        val sound = TEST_SOUND.copy(id = 1L, duration = durationSec)
         ArrangeBuilder()
                 .withPlayerStateEvent(playerStateWithSound(sound, PlaybackStatus.PLAYING, positionMs))
+                .withTimePosition(positionMs)
         val vm = SoundItemViewModel(sound, navigator, audioPlayer,
-                freeSoundApiClient)
+                previewQualitySelector,
+                userRepository)
 
-        vm.progressPercentage()
+        vm.progress { PERCENTAGE_RESOLUTION }
                 .test()
                 .assertValue(Option.ofObj(expectedPercentage))
     }
 
     @Test
-    fun progressPercentage_expectedPercentage_0() {
+    fun progress_expectedPercentage_0() {
         val positionMs: Long = 0
         val durationSec = 200f
         val expectedPercentage = 0
-        val sound = TEST_SOUND.copy(id = 1L, url = "url", duration = durationSec)
+        val sound = TEST_SOUND.copy(id = 1L, duration = durationSec)
         ArrangeBuilder()
                 .withPlayerStateEvent(playerStateWithSound(sound, PlaybackStatus.PLAYING, positionMs))
+                .withTimePosition(positionMs)
         val vm = SoundItemViewModel(sound, navigator, audioPlayer,
-                freeSoundApiClient)
+                previewQualitySelector,
+                userRepository)
 
-        vm.progressPercentage()
+        vm.progress { PERCENTAGE_RESOLUTION }
                 .test()
                 .assertValue(Option.ofObj(expectedPercentage))
     }
 
     @Test
-    fun progressPercentage_expectedPercentage_99Point9() {
+    fun progress_expectedPercentage_99Point9() {
         val positionMs = 999L
         val durationSec = 1f
         val expectedPercentage = 99
-        val sound = TEST_SOUND.copy(id = 1L, url = "url", duration = durationSec)
+        val sound = TEST_SOUND.copy(id = 1L, duration = durationSec)
         ArrangeBuilder()
                 .withPlayerStateEvent(playerStateWithSound(sound, PlaybackStatus.PLAYING, positionMs))
-        val vm = SoundItemViewModel(sound, navigator, audioPlayer, freeSoundApiClient)
+                .withTimePosition(positionMs)
+        val vm = SoundItemViewModel(sound, navigator, audioPlayer, previewQualitySelector, userRepository)
 
-        vm.progressPercentage()
+        vm.progress { PERCENTAGE_RESOLUTION }
                 .test()
                 .assertValue(Option.ofObj(expectedPercentage))
     }
 
     @Test
-    fun progressPercentage_expectedPercentage_100() {
+    fun progress_expectedPercentage_100() {
         val positionMs: Long = 1000
         val durationSec = 1f
         val expectedPercentage = 100
-        val sound = TEST_SOUND.copy(id = 1L, url = "url", duration = durationSec)
+        val sound = TEST_SOUND.copy(id = 1L, duration = durationSec)
         ArrangeBuilder()
                 .withPlayerStateEvent(playerStateWithSound(sound, PlaybackStatus.PLAYING, positionMs))
-        val vm = SoundItemViewModel(sound, navigator, audioPlayer, freeSoundApiClient)
+                .withTimePosition(positionMs)
+        val vm = SoundItemViewModel(sound, navigator, audioPlayer, previewQualitySelector, userRepository)
 
-        vm.progressPercentage()
+        vm.progress { PERCENTAGE_RESOLUTION }
                 .test()
                 .assertValue(Option.ofObj(expectedPercentage))
     }
 
     @Test
-    fun progressPercentage_LimitedTo100() {
+    fun progress_LimitedTo100() {
         val positionMs: Long = 2000
         val durationSec = 1f
         val expectedPercentage = 100
-        val sound = TEST_SOUND.copy(id = 1L, url = "url", duration = durationSec)
+        val sound = TEST_SOUND.copy(id = 1L, duration = durationSec)
         ArrangeBuilder()
                 .withPlayerStateEvent(playerStateWithSound(sound, PlaybackStatus.PLAYING, positionMs))
-        val vm = SoundItemViewModel(sound, navigator, audioPlayer, freeSoundApiClient)
+                .withTimePosition(positionMs)
+        val vm = SoundItemViewModel(sound, navigator, audioPlayer, previewQualitySelector, userRepository)
 
-        vm.progressPercentage()
+        vm.progress { PERCENTAGE_RESOLUTION }
                 .test()
                 .assertValue(Option.ofObj(expectedPercentage))
     }
 
     @Test
-    fun progressPercentage_isNone_whenDifferentSoundActiveInPlayer_usingId() {
+    fun progress_isNone_whenDifferentSoundActiveInPlayer_usingId() {
         val id1 = 1L
         val url1 = "url"
         val id2 = 2L
-        val sound = TEST_SOUND.copy(id = id1, url = url1)
+        val sound = TEST_SOUND.copy(id = id1,
+                previews = TEST_SOUND.previews.copy(lowQualityMp3Url = url1))
         ArrangeBuilder()
                 .withPlayerStateEvent(PlayerState.Assigned(
                         PlaybackSource(from(id2), url1),
                         PlaybackStatus.PLAYING,
                         100))
-        val vm = SoundItemViewModel(sound, navigator, audioPlayer, freeSoundApiClient)
+        val vm = SoundItemViewModel(sound, navigator, audioPlayer, previewQualitySelector, userRepository)
 
-        vm.progressPercentage()
+        vm.progress { PERCENTAGE_RESOLUTION }
                 .test()
                 .assertValue(Option.none<Int>())
     }
 
     @Test
-    fun progressPercentage_isNone_whenDifferentSoundActiveInPlayer_usingUrl() {
+    fun progress_isNone_whenDifferentSoundActiveInPlayer_usingUrl() {
         val id1 = 1L
         val url1 = "url"
         val id2 = 2L
-        val sound = TEST_SOUND.copy(id = id1, url = url1)
+        val sound = TEST_SOUND.copy(id = id1,
+                previews = TEST_SOUND.previews.copy(lowQualityMp3Url = url1))
         ArrangeBuilder()
                 .withPlayerStateEvent(PlayerState.Assigned(
                         PlaybackSource(from(id2), url1),
@@ -286,16 +316,81 @@ class SoundItemViewModelTest {
                         100))
 
         val vm = SoundItemViewModel(sound, navigator, audioPlayer,
-                freeSoundApiClient)
+                previewQualitySelector,
+                userRepository)
 
-        vm.progressPercentage()
+        vm.progress { PERCENTAGE_RESOLUTION }
                 .test()
                 .assertValue(Option.none<Int>())
     }
 
+    @Test
+    fun progress_requestsPositionOncePerStep() {
+        val durationSec = 200f
+        val sound = TEST_SOUND.copy(id = 1L, duration = durationSec)
+        ArrangeBuilder()
+                .withPlayerStateEvent(playerStateWithSound(sound, PlaybackStatus.PLAYING, 0))
+                .withTimePosition(0)
+        val vm = SoundItemViewModel(sound, navigator, audioPlayer, previewQualitySelector, userRepository)
+
+        vm.progress { 400 }
+                .test()
+
+        verify(audioPlayer).timePositionMsOnceAndStream(500)
+    }
+
+    @Test
+    fun progress_onlyEmitsChangedSteps() {
+        val durationSec = 1f
+        val sound = TEST_SOUND.copy(id = 1L, duration = durationSec)
+        ArrangeBuilder()
+                .withPlayerStateEvent(playerStateWithSound(sound, PlaybackStatus.PLAYING, 0))
+                .withTimePosition(0, 5, 10, 15, 20)
+        val vm = SoundItemViewModel(sound, navigator, audioPlayer, previewQualitySelector, userRepository)
+
+        vm.progress { PERCENTAGE_RESOLUTION }
+                .test()
+                .assertValues(Option.ofObj(0), Option.ofObj(1), Option.ofObj(2))
+    }
+
+    @Test
+    fun progress_doesNotRequestPosition_whenDifferentSoundActiveInPlayer() {
+        val sound = TEST_SOUND.copy(id = 1L)
+        ArrangeBuilder()
+                .withPlayerStateEvent(playerStateWithSound(TEST_SOUND.copy(id = 2L),
+                        PlaybackStatus.PLAYING, 0))
+        val vm = SoundItemViewModel(sound, navigator, audioPlayer, previewQualitySelector, userRepository)
+
+        vm.progress { PERCENTAGE_RESOLUTION }
+                .test()
+
+        verify(audioPlayer, never()).timePositionMsOnceAndStream(anyLong())
+    }
+
+    @Test
+    fun toggleSoundPlayback_playsLowQualityPreview_withoutBandwidthEstimate() {
+        val vm = SoundItemViewModel(TEST_SOUND, navigator, audioPlayer, previewQualitySelector, userRepository)
+
+        vm.toggleSoundPlayback()
+
+        verify(audioPlayer).togglePlayback(
+                PlaybackSource(from(TEST_SOUND.id), TEST_SOUND.previews.lowQualityMp3Url))
+    }
+
+    @Test
+    fun toggleSoundPlayback_playsHighQualityPreview_whenBandwidthAllows() {
+        bandwidthMeter.recordTransfer(1_000_000, 1000) // 8 Mbps
+        val vm = SoundItemViewModel(TEST_SOUND, navigator, audioPlayer, previewQualitySelector, userRepository)
+
+        vm.toggleSoundPlayback()
+
+        verify(audioPlayer).togglePlayback(
+                PlaybackSource(from(TEST_SOUND.id), TEST_SOUND.previews.highQualityMp3Url))
+    }
+
     @Test
     fun openDetails_openSoundViaNavigator() {
-        SoundItemViewModel(TEST_SOUND, navigator, audioPlayer, freeSoundApiClient)
+        SoundItemViewModel(TEST_SOUND, navigator, audioPlayer, previewQualitySelector, userRepository)
                 .openDetails()
 
         verify(navigator).openSoundDetails(eq(TEST_SOUND))
@@ -306,7 +401,10 @@ class SoundItemViewModelTest {
         private val playerStateOnceAndStream = BehaviorSubject.createDefault<PlayerState>(PlayerState.Idle)
 
         init {
-            `when`(audioPlayer.playerStateOnceAndStream).thenReturn(playerStateOnceAndStream)
+            `when`(audioPlayer.playerStateOnceAndStream(any())).thenAnswer { invocation ->
+                val id: Id = invocation.getArgument(0)
+                playerStateOnceAndStream.map { it.ofSource(id) }
+            }
         }
 
         internal fun withPlayerStateEvent(playerState: PlayerState): ArrangeBuilder {
@@ -314,6 +412,12 @@ class SoundItemViewModelTest {
             return this
         }
 
+        internal fun withTimePosition(vararg positionsMs: Long): ArrangeBuilder {
+            `when`(audioPlayer.timePositionMsOnceAndStream(anyLong()))
+                    .thenReturn(Observable.fromIterable(positionsMs.asIterable()))
+            return this
+        }
+
         internal fun withUserResponse(username: String, user: User): ArrangeBuilder {
             `when`(freeSoundApiClient.getUser(eq(username))).thenReturn(Single.just(user))
             return this
@@ -324,13 +428,15 @@ class SoundItemViewModelTest {
 
         private val TEST_SOUND = TestData.sound(1L)
 
+        private const val PERCENTAGE_RESOLUTION = 100
+
         // Helpers
 
         private fun playerStateWithSound(sound: Sound,
                                          status: PlaybackStatus,
                                          timePositionMs: Long): PlayerState {
             return PlayerState.Assigned(
-                    PlaybackSource(from(sound.id), sound.url), status, timePositionMs)
+                    PlaybackSource(from(sound.id), sound.previews.lowQualityMp3Url), status, timePositionMs)
         }
     }
 
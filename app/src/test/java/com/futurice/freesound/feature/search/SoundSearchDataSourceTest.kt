@@ -0,0 +1,222 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.futurice.freesound.feature.search
+
+import androidx.paging.PageKeyedDataSource
+import com.futurice.freesound.feature.user.UserRepository
+import com.futurice.freesound.network.api.FreeSoundApiClient
+import com.futurice.freesound.network.api.model.Sound
+import com.futurice.freesound.network.api.model.SoundSearchResult
+import com.futurice.freesound.store.Cache
+import com.futurice.freesound.test.data.TestData.Companion.searchResult
+import com.futurice.freesound.test.data.TestData.Companion.user
+import io.reactivex.Completable
+import io.reactivex.Single
+import io.reactivex.subjects.SingleSubject
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Test
+import org.mockito.ArgumentMatchers.anyList
+import org.mockito.ArgumentMatchers.anyString
+import org.mockito.Mock
+import org.mockito.Mockito.`when`
+import org.mockito.Mockito.times
+import org.mockito.Mockito.verify
+import org.mockito.Mockito.verifyZeroInteractions
+import org.mockito.MockitoAnnotations
+
+class SoundSearchDataSourceTest {
+
+    @Mock
+    private lateinit var freeSoundApiClient: FreeSoundApiClient
+
+    @Mock
+    private lateinit var localSoundSearch: LocalSoundSearch
+
+    private val firstPage = searchResult(5)
+
+    private lateinit var dataSource: SoundSearchDataSource
+
+    @Before
+    fun setUp() {
+        MockitoAnnotations.initMocks(this)
+        `when`(freeSoundApiClient.getUser(anyString())).thenReturn(Single.just(user()))
+        `when`(localSoundSearch.record(anyList())).thenReturn(Completable.complete())
+        dataSource = SoundSearchDataSource(firstPage,
+                freeSoundApiClient,
+                UserRepository(freeSoundApiClient, Cache()),
+                localSoundSearch)
+    }
+
+    @Test
+    fun `loadInitial emitsFirstPage withoutQueryingApi`() {
+        // given
+        val callback = RecordingInitialCallback()
+
+        // when
+        dataSource.loadInitial(PageKeyedDataSource.LoadInitialParams(15, false), callback)
+
+        // then
+        assertThat(callback.data).isEqualTo(firstPage.results)
+        assertThat(callback.previousPageKey).isEqualTo(firstPage.previous)
+        assertThat(callback.nextPageKey).isEqualTo(firstPage.next)
+        verifyZeroInteractions(freeSoundApiClient)
+    }
+
+    @Test
+    fun `loadAfter fetchesPageAtKey andEmitsNextKey`() {
+        // given
+        val secondPage = searchResult(3).copy(next = "thirdPageUrl")
+        `when`(freeSoundApiClient.page("nextUrl")).thenReturn(Single.just(secondPage))
+        val callback = RecordingCallback()
+
+        // when
+        dataSource.loadAfter(PageKeyedDataSource.LoadParams("nextUrl", 15), callback)
+
+        // then
+        assertThat(callback.data).isEqualTo(secondPage.results)
+        assertThat(callback.adjacentPageKey).isEqualTo("thirdPageUrl")
+    }
+
+    @Test
+    fun `loadAfter prefetchesUsersOfPage`() {
+        // given
+        val secondPage = searchResult(3)
+        `when`(freeSoundApiClient.page("nextUrl")).thenReturn(Single.just(secondPage))
+
+        // when
+        dataSource.loadAfter(PageKeyedDataSource.LoadParams("nextUrl", 15), RecordingCallback())
+
+        // then
+        secondPage.results.forEach { verify(freeSoundApiClient).getUser(it.username) }
+    }
+
+    @Test
+    fun `loadAfter recordsSoundsOfPageLocally`() {
+        // given
+        val secondPage = searchResult(3)
+        `when`(freeSoundApiClient.page("nextUrl")).thenReturn(Single.just(secondPage))
+
+        // when
+        dataSource.loadAfter(PageKeyedDataSource.LoadParams("nextUrl", 15), RecordingCallback())
+
+        // then
+        verify(localSoundSearch).record(secondPage.results)
+    }
+
+    @Test
+    fun `loadBefore fetchesPageAtKey andEmitsPreviousKey`() {
+        // given
+        val previousPage = searchResult(3).copy(previous = null)
+        `when`(freeSoundApiClient.page("prevUrl")).thenReturn(Single.just(previousPage))
+        val callback = RecordingCallback()
+
+        // when
+        dataSource.loadBefore(PageKeyedDataSource.LoadParams("prevUrl", 15), callback)
+
+        // then
+        assertThat(callback.data).isEqualTo(previousPage.results)
+        assertThat(callback.adjacentPageKey).isNull()
+    }
+
+    @Test
+    fun `loadAfter doesNotEmit whenApiErrors`() {
+        // given
+        `when`(freeSoundApiClient.page(anyString())).thenReturn(Single.error(Exception()))
+        val callback = RecordingCallback()
+
+        // when
+        dataSource.loadAfter(PageKeyedDataSource.LoadParams("nextUrl", 15), callback)
+
+        // then
+        assertThat(callback.data).isNull()
+    }
+
+    @Test
+    fun `retry loadsFailedPageAgain`() {
+        // given
+        val secondPage = searchResult(3)
+        `when`(freeSoundApiClient.page("nextUrl"))
+                .thenReturn(Single.error(Exception()), Single.just(secondPage))
+        val callback = RecordingCallback()
+        dataSource.loadAfter(PageKeyedDataSource.LoadParams("nextUrl", 15), callback)
+
+        // when
+        dataSource.retry()
+
+        // then
+        assertThat(callback.data).isEqualTo(secondPage.results)
+    }
+
+    @Test
+    fun `retry doesNothing whenNoPageFailed`() {
+        // given
+        `when`(freeSoundApiClient.page("nextUrl")).thenReturn(Single.just(searchResult(3)))
+        dataSource.loadAfter(PageKeyedDataSource.LoadParams("nextUrl", 15), RecordingCallback())
+
+        // when
+        dataSource.retry()
+
+        // then
+        verify(freeSoundApiClient, times(1)).page("nextUrl")
+    }
+
+    @Test
+    fun `invalidate disposesPagesInFlight`() {
+        // given
+        val response = SingleSubject.create<SoundSearchResult>()
+        `when`(freeSoundApiClient.page("nextUrl")).thenReturn(response)
+        dataSource.loadAfter(PageKeyedDataSource.LoadParams("nextUrl", 15), RecordingCallback())
+
+        // when
+        dataSource.invalidate()
+
+        // then
+        assertThat(response.hasObservers()).isFalse()
+    }
+
+    private class RecordingInitialCallback : PageKeyedDataSource.LoadInitialCallback<String, Sound>() {
+        var data: List<Sound>? = null
+        var previousPageKey: String? = null
+        var nextPageKey: String? = null
+
+        override fun onResult(data: MutableList<Sound>,
+                              position: Int,
+                              totalCount: Int,
+                              previousPageKey: String?,
+                              nextPageKey: String?) {
+            onResult(data, previousPageKey, nextPageKey)
+        }
+
+        override fun onResult(data: MutableList<Sound>,
+                              previousPageKey: String?,
+                              nextPageKey: String?) {
+            this.data = data
+            this.previousPageKey = previousPageKey
+            this.nextPageKey = nextPageKey
+        }
+    }
+
+    private class RecordingCallback : PageKeyedDataSource.LoadCallback<String, Sound>() {
+        var data: List<Sound>? = null
+        var adjacentPageKey: String? = null
+
+        override fun onResult(data: MutableList<Sound>, adjacentPageKey: String?) {
+            this.data = data
+            this.adjacentPageKey = adjacentPageKey
+        }
+    }
+}
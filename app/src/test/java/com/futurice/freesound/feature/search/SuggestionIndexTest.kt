@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.search
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+
+class SuggestionIndexTest {
+
+    private val index = SuggestionIndex(maxTerms = 10, halfLifeMs = HALF_LIFE_MS)
+
+    @Test
+    fun `suggest returnsTermsStartingWithPrefix`() {
+        index.record("rain", 1.0, NOW)
+        index.record("rainforest", 1.0, NOW)
+        index.record("railway", 1.0, NOW)
+        index.record("birds", 1.0, NOW)
+
+        assertThat(index.suggest("rai", 10, NOW)).containsOnly("rain", "rainforest", "railway")
+    }
+
+    @Test
+    fun `suggest doesNotReturnPrefixItself`() {
+        index.record("rain", 1.0, NOW)
+        index.record("rainforest", 1.0, NOW)
+
+        assertThat(index.suggest("rain", 10, NOW)).containsExactly("rainforest")
+    }
+
+    @Test
+    fun `suggest returnsNothing whenNoTermHasPrefix`() {
+        index.record("rain", 1.0, NOW)
+
+        assertThat(index.suggest("wind", 10, NOW)).isEmpty()
+        assertThat(index.suggest("", 10, NOW)).isEmpty()
+    }
+
+    @Test
+    fun `suggest ranksMoreFrequentTermsFirst`() {
+        index.record("rain", 1.0, NOW)
+        index.record("railway", 1.0, NOW)
+        index.record("railway", 1.0, NOW)
+
+        assertThat(index.suggest("ra", 10, NOW)).containsExactly("railway", "rain")
+    }
+
+    @Test
+    fun `suggest ranksMoreRecentTermsFirst`() {
+        index.record("rain", 1.5, NOW - HALF_LIFE_MS)
+        index.record("railway", 1.0, NOW)
+
+        assertThat(index.suggest("ra", 10, NOW)).containsExactly("railway", "rain")
+    }
+
+    @Test
+    fun `suggest ranksEqualScoresAlphabetically`() {
+        index.record("rainforest", 1.0, NOW)
+        index.record("rain", 1.0, NOW)
+        index.record("railway", 1.0, NOW)
+
+        assertThat(index.suggest("ra", 10, NOW)).containsExactly("railway", "rain", "rainforest")
+    }
+
+    @Test
+    fun `suggest returnsAtMostLimit`() {
+        index.record("rain", 3.0, NOW)
+        index.record("railway", 2.0, NOW)
+        index.record("rainforest", 1.0, NOW)
+
+        assertThat(index.suggest("ra", 2, NOW)).containsExactly("rain", "railway")
+    }
+
+    @Test
+    fun `record normalizesCaseAndWhitespace`() {
+        index.record("  Rain ", 1.0, NOW)
+        index.record("RAIN", 1.0, NOW)
+
+        assertThat(index.size()).isEqualTo(1)
+        assertThat(index.suggest("R", 10, NOW)).containsExactly("rain")
+    }
+
+    @Test
+    fun `record ignoresBlankTerms`() {
+        index.record("   ", 1.0, NOW)
+
+        assertThat(index.size()).isZero()
+    }
+
+    @Test
+    fun `entries haveDecayedScores`() {
+        index.record("rain", 2.0, NOW)
+
+        assertThat(index.entries(NOW + HALF_LIFE_MS)).containsExactly(Suggestion("rain", 1.0))
+    }
+
+    @Test
+    fun `record keepsHighestScoringTerms whenIndexGrowsPastMaximum`() {
+        for (i in 0 until 20) {
+            index.record("term $i", i.toDouble(), NOW)
+        }
+
+        assertThat(index.size()).isLessThanOrEqualTo(11)
+        assertThat(index.suggest("term", 3, NOW)).containsExactly("term 19", "term 18", "term 17")
+        assertThat(index.suggest("term 0", 1, NOW)).isEmpty()
+    }
+
+    companion object {
+        private const val HALF_LIFE_MS = 1000L
+        private const val NOW = 1_000_000L
+    }
+}
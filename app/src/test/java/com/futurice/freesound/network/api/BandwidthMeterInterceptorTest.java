@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BandwidthMeterInterceptorTest {
+
+    private static final String BODY = "{\"count\": 0}";
+
+    @Rule
+    public final MockWebServer mockWebServer = new MockWebServer();
+
+    private NetworkBandwidthMeter bandwidthMeter;
+
+    private OkHttpClient okHttpClient;
+
+    @Before
+    public void setUp() {
+        bandwidthMeter = new NetworkBandwidthMeter();
+        okHttpClient = new OkHttpClient.Builder()
+                .addNetworkInterceptor(new BandwidthMeterInterceptor(bandwidthMeter))
+                .build();
+    }
+
+    @Test
+    public void interceptor_recordsTransfer_whenBodyReadToEnd() throws IOException {
+        mockWebServer.enqueue(new MockResponse().setBody(BODY));
+
+        Response response = okHttpClient.newCall(request()).execute();
+
+        assertThat(response.body().string()).isEqualTo(BODY);
+        assertThat(bandwidthMeter.bitrateEstimate())
+                .isNotEqualTo(NetworkBandwidthMeter.NO_ESTIMATE);
+    }
+
+    @Test
+    public void interceptor_doesNotRecordTransfer_untilBodyRead() throws IOException {
+        mockWebServer.enqueue(new MockResponse().setBody(BODY));
+
+        okHttpClient.newCall(request()).execute();
+
+        assertThat(bandwidthMeter.bitrateEstimate()).isEqualTo(NetworkBandwidthMeter.NO_ESTIMATE);
+    }
+
+    @Test
+    public void interceptor_doesNotRecordTransfer_whenBodyEmpty() throws IOException {
+        mockWebServer.enqueue(new MockResponse());
+
+        okHttpClient.newCall(request()).execute().body().string();
+
+        assertThat(bandwidthMeter.bitrateEstimate()).isEqualTo(NetworkBandwidthMeter.NO_ESTIMATE);
+    }
+
+    private Request request() {
+        return new Request.Builder().url(mockWebServer.url("/")).build();
+    }
+
+}
@@ -17,8 +17,14 @@
 package com.futurice.freesound.network.api
 
 import com.futurice.freesound.network.api.model.AccessToken
+import com.futurice.freesound.network.api.model.DEFAULT_PAGE_SIZE
+import com.futurice.freesound.network.api.model.MAX_PAGE_SIZE
+import com.futurice.freesound.network.api.model.SearchFilter
+import com.futurice.freesound.network.api.model.SearchQuery
+import com.futurice.freesound.network.api.model.SoundDetails
 import com.futurice.freesound.network.api.model.SoundFields
 import com.futurice.freesound.network.api.model.SoundSearchResult
+import com.futurice.freesound.network.api.model.SortOrder
 import com.futurice.freesound.network.api.model.User
 import com.futurice.freesound.test.data.TestData
 import io.reactivex.Single
@@ -27,6 +33,7 @@ import org.junit.Test
 import org.mockito.ArgumentMatchers.*
 import org.mockito.Mock
 import org.mockito.Mockito.`when`
+import org.mockito.Mockito.never
 import org.mockito.Mockito.verify
 import org.mockito.MockitoAnnotations
 
@@ -130,7 +137,7 @@ class DefaultFreeSoundApiClientTest {
             search { TEST_SEARCH_RESULT }
         }
 
-        defaultFreeSoundApiService.search("query")
+        defaultFreeSoundApiService.search(SearchQuery("query"), SoundFields.LIST)
                 .test()
                 .assertValue(TEST_SEARCH_RESULT)
     }
@@ -142,9 +149,51 @@ class DefaultFreeSoundApiClientTest {
         }
         val query = "query"
 
-        defaultFreeSoundApiService.search(query).subscribe()
+        defaultFreeSoundApiService.search(SearchQuery(query), SoundFields.LIST).subscribe()
 
-        verify(freeSoundApi).search(eq(query), isNull<String>(), eq(SoundFields.BASE))
+        verify(freeSoundApi).search(eq(query),
+                isNull<String>(),
+                eq(SortOrder.SCORE),
+                eq(DEFAULT_PAGE_SIZE),
+                eq(SoundFields.LIST))
+    }
+
+    @Test
+    fun search_passesFiltersSortAndPageSizeToApi() {
+        arrange {
+            search { TEST_SEARCH_RESULT }
+        }
+        val query = SearchQuery("query")
+                .filteredBy(SearchFilter.Tag("field-recording"))
+                .filteredBy(SearchFilter.Duration(minSeconds = null, maxSeconds = 10f))
+                .sortedBy(SortOrder.CREATED_DESCENDING)
+                .withPageSize(MAX_PAGE_SIZE)
+
+        defaultFreeSoundApiService.search(query, SoundFields.LIST).subscribe()
+
+        verify(freeSoundApi).search("query",
+                "tag:\"field-recording\" AND duration:[* TO 10.0]",
+                SortOrder.CREATED_DESCENDING,
+                MAX_PAGE_SIZE,
+                SoundFields.LIST)
+    }
+
+    @Test
+    fun refreshSearch_invokesNetworkOnlyApiWithCorrectParameters() {
+        val query = SearchQuery("query").sortedBy(SortOrder.CREATED_DESCENDING)
+        `when`(freeSoundApi.searchFromNetwork(anyString(), any<String>(), any<SortOrder>(), anyInt(), any<SoundFields>()))
+                .thenReturn(Single.just(TEST_SEARCH_RESULT))
+
+        defaultFreeSoundApiService.refreshSearch(query, SoundFields.LIST)
+                .test()
+                .assertValue(TEST_SEARCH_RESULT)
+
+        verify(freeSoundApi).searchFromNetwork(eq("query"),
+                isNull<String>(),
+                eq(SortOrder.CREATED_DESCENDING),
+                eq(DEFAULT_PAGE_SIZE),
+                eq(SoundFields.LIST))
+        verify(freeSoundApi, never()).search(anyString(), any<String>(), any<SortOrder>(), anyInt(), any<SoundFields>())
     }
 
     @Test
@@ -153,25 +202,80 @@ class DefaultFreeSoundApiClientTest {
             searchError { ERROR }
         }
 
-        defaultFreeSoundApiService.search("query")
+        defaultFreeSoundApiService.search(SearchQuery("query"), SoundFields.LIST)
                 .test()
                 .assertError(ERROR)
     }
 
+    @Test
+    fun sounds_invokesApiWithRequestedFields() {
+        arrange {
+            sounds { TEST_SEARCH_RESULT }
+        }
+
+        defaultFreeSoundApiService.sounds("username", SoundFields.DETAIL)
+                .test()
+                .assertValue(TEST_SEARCH_RESULT)
+
+        verify(freeSoundApi).sounds("username", SoundFields.DETAIL)
+    }
+
+    @Test
+    fun getSound_invokesApiWithDetailFields() {
+        val details = TestData.soundDetails(1L)
+        arrange {
+            sound { details }
+        }
+
+        defaultFreeSoundApiService.getSound(1L)
+                .test()
+                .assertValue(details)
+
+        verify(freeSoundApi).sound(1L, SoundFields.DETAIL)
+    }
+
+    @Test
+    fun page_invokesApiWithPageUrl() {
+        arrange {
+            page { TEST_SEARCH_RESULT }
+        }
+        val pageUrl = "https://freesound.org/apiv2/search/text/?query=query&page=2"
+
+        defaultFreeSoundApiService.page(pageUrl)
+                .test()
+                .assertValue(TEST_SEARCH_RESULT)
+
+        verify(freeSoundApi).page(pageUrl)
+    }
+
     fun arrange(init: Arrangement.() -> Unit) = Arrangement().apply(init)
 
     inner class Arrangement {
 
         fun search(init: () -> SoundSearchResult) {
-            `when`(freeSoundApi.search(anyString(), any<String>(), any<SoundFields>()))
+            `when`(freeSoundApi.search(anyString(), any<String>(), any<SortOrder>(), anyInt(), any<SoundFields>()))
                     .thenReturn(Single.just(init()))
         }
 
         fun searchError(init: () -> Throwable) {
-            `when`(freeSoundApi.search(anyString(), any<String>(), any<SoundFields>()))
+            `when`(freeSoundApi.search(anyString(), any<String>(), any<SortOrder>(), anyInt(), any<SoundFields>()))
                     .thenReturn(Single.error<SoundSearchResult>(init()))
         }
 
+        fun sounds(init: () -> SoundSearchResult) {
+            `when`(freeSoundApi.sounds(anyString(), any<SoundFields>()))
+                    .thenReturn(Single.just(init()))
+        }
+
+        fun sound(init: () -> SoundDetails) {
+            `when`(freeSoundApi.sound(anyLong(), any<SoundFields>()))
+                    .thenReturn(Single.just(init()))
+        }
+
+        fun page(init: () -> SoundSearchResult) {
+            `when`(freeSoundApi.page(anyString())).thenReturn(Single.just(init()))
+        }
+
         fun user(init: () -> User) {
             `when`(freeSoundApi.user(anyString())).thenReturn(Single.just(init()))
         }
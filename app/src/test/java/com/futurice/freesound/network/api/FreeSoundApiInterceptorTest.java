@@ -24,6 +24,7 @@ import java.io.IOException;
 
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
+import okhttp3.Response;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
@@ -62,6 +63,19 @@ public class FreeSoundApiInterceptorTest {
                                         TEST_CLIENT_SECRET));
     }
 
+    @Test
+    public void interceptor_restoresOriginalRequestOnResponse() throws IOException {
+        new ArrangeBuilder()
+                .withNewOkHttpClient()
+                .withNetworkInterceptor(interceptor)
+                .withEnqueuedMockResponse();
+
+        Response response = okHttpClient.newCall(request()).execute();
+
+        assertThat(response.request().url().queryParameter(ApiConstants.TOKEN_QUERY_PARAM))
+                .isNull();
+    }
+
     private Request request() {
         return new Request.Builder().url(mockWebServer.url("/")).build();
     }
@@ -80,6 +94,13 @@ public class FreeSoundApiInterceptorTest {
             return this;
         }
 
+        ArrangeBuilder withNetworkInterceptor(FreeSoundApiInterceptor interceptor) {
+            okHttpClient = okHttpClient.newBuilder()
+                                       .addNetworkInterceptor(interceptor)
+                                       .build();
+            return this;
+        }
+
         ArrangeBuilder withEnqueuedMockResponse() {
             mockWebServer.enqueue(new MockResponse());
             return this;
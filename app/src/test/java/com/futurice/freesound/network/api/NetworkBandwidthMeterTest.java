@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NetworkBandwidthMeterTest {
+
+    private final NetworkBandwidthMeter meter = new NetworkBandwidthMeter();
+
+    @Test
+    public void bitrateEstimate_isNoEstimate_withoutTransfers() {
+        assertThat(meter.bitrateEstimate()).isEqualTo(NetworkBandwidthMeter.NO_ESTIMATE);
+    }
+
+    @Test
+    public void bitrateEstimate_isThroughputOfTransfersTogether() {
+        meter.recordTransfer(1_000, 100);
+        meter.recordTransfer(99_000, 900);
+
+        assertThat(meter.bitrateEstimate()).isEqualTo(800_000);
+    }
+
+    @Test
+    public void recordTransfer_ignoresEmptyTransfers() {
+        meter.recordTransfer(0, 1_000);
+
+        assertThat(meter.bitrateEstimate()).isEqualTo(NetworkBandwidthMeter.NO_ESTIMATE);
+    }
+
+    @Test
+    public void recordTransfer_countsInstantTransfersAsOneMillisecond() {
+        meter.recordTransfer(1_000, 0);
+
+        assertThat(meter.bitrateEstimate()).isEqualTo(8_000_000);
+    }
+
+    @Test
+    public void bitrateEstimate_forgetsOldestTransfers() {
+        meter.recordTransfer(1_000_000, 1);
+        for (int i = 0; i < NetworkBandwidthMeter.MAX_TRANSFERS; i++) {
+            meter.recordTransfer(1_000, 1_000);
+        }
+
+        assertThat(meter.bitrateEstimate()).isEqualTo(8_000);
+    }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api
+
+import com.futurice.freesound.network.api.model.SearchFilter
+import com.futurice.freesound.network.api.model.SearchQuery
+import com.futurice.freesound.network.api.model.SoundFields
+import com.futurice.freesound.network.api.model.SoundSearchResult
+import com.futurice.freesound.network.api.model.User
+import com.futurice.freesound.test.data.TestData
+import io.reactivex.Single
+import io.reactivex.subjects.SingleSubject
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Test
+import org.mockito.Mock
+import org.mockito.Mockito.`when`
+import org.mockito.Mockito.doAnswer
+import org.mockito.Mockito.spy
+import org.mockito.Mockito.times
+import org.mockito.Mockito.verify
+import org.mockito.MockitoAnnotations
+
+class SingleFlightFreeSoundApiClientTest {
+
+    @Mock
+    private lateinit var delegate: FreeSoundApiClient
+
+    private lateinit var stats: HttpCacheStats
+
+    private lateinit var client: SingleFlightFreeSoundApiClient
+
+    @Before
+    fun setUp() {
+        MockitoAnnotations.initMocks(this)
+        stats = HttpCacheStats()
+        client = SingleFlightFreeSoundApiClient(delegate, stats)
+    }
+
+    @Test
+    fun getUser_sharesInFlightRequest_forSameUsername() {
+        val response = SingleSubject.create<User>()
+        `when`(delegate.getUser("username")).thenReturn(response)
+
+        val first = client.getUser("username").test()
+        val second = client.getUser("username").test()
+        response.onSuccess(TestData.user())
+
+        first.assertValue(TestData.user())
+        second.assertValue(TestData.user())
+        verify(delegate, times(1)).getUser("username")
+        assertThat(stats.deduplicatedCount()).isEqualTo(1)
+    }
+
+    @Test
+    fun getUser_doesNotShare_forDifferentUsernames() {
+        `when`(delegate.getUser("a")).thenReturn(SingleSubject.create())
+        `when`(delegate.getUser("b")).thenReturn(SingleSubject.create())
+
+        client.getUser("a").test()
+        client.getUser("b").test()
+
+        verify(delegate).getUser("a")
+        verify(delegate).getUser("b")
+        assertThat(stats.deduplicatedCount()).isZero()
+    }
+
+    @Test
+    fun getUser_fetchesAgain_afterInFlightRequestCompletes() {
+        `when`(delegate.getUser("username")).thenReturn(Single.just(TestData.user()))
+
+        client.getUser("username").test().assertComplete()
+        client.getUser("username").test().assertComplete()
+
+        verify(delegate, times(2)).getUser("username")
+        assertThat(stats.deduplicatedCount()).isZero()
+    }
+
+    @Test
+    fun getUser_fetchesAgain_afterInFlightRequestErrors() {
+        `when`(delegate.getUser("username")).thenReturn(Single.error(Exception()))
+
+        client.getUser("username").test().assertError(Exception::class.java)
+        client.getUser("username").test().assertError(Exception::class.java)
+
+        verify(delegate, times(2)).getUser("username")
+    }
+
+    @Test
+    fun getUser_keepsSharingNewerRequest_whenStaleRequestIsReconnected() {
+        val stale = SingleSubject.create<User>()
+        val newer = SingleSubject.create<User>()
+        `when`(delegate.getUser("username")).thenReturn(stale, newer)
+        val statsSpy = spy(HttpCacheStats())
+        client = SingleFlightFreeSoundApiClient(delegate, statsSpy)
+        client.getUser("username").test()
+        // Between the second call finding the stale request and subscribing to it, that request
+        // finishes and a newer one starts.
+        doAnswer {
+            stale.onSuccess(TestData.user())
+            client.getUser("username").test()
+            null
+        }.doNothing().`when`(statsSpy).recordDeduplicated()
+        client.getUser("username").test().assertValue(TestData.user())
+
+        val afterReconnection = client.getUser("username").test()
+
+        afterReconnection.assertNoValues()
+        verify(delegate, times(2)).getUser("username")
+    }
+
+    @Test
+    fun getUser_disposesRequest_whenAllSubscribersDisposed() {
+        val response = SingleSubject.create<User>()
+        `when`(delegate.getUser("username")).thenReturn(response)
+        val first = client.getUser("username").test()
+        val second = client.getUser("username").test()
+
+        first.dispose()
+        assertThat(response.hasObservers()).isTrue()
+        second.dispose()
+
+        assertThat(response.hasObservers()).isFalse()
+    }
+
+    @Test
+    fun getUser_fetchesAgain_afterInFlightRequestDisposed() {
+        `when`(delegate.getUser("username")).thenReturn(SingleSubject.create())
+
+        client.getUser("username").test().dispose()
+        client.getUser("username").test()
+
+        verify(delegate, times(2)).getUser("username")
+    }
+
+    @Test
+    fun getAccessToken_isNeverShared() {
+        `when`(delegate.getAccessToken("code")).thenReturn(SingleSubject.create())
+
+        client.getAccessToken("code").test()
+        client.getAccessToken("code").test()
+
+        verify(delegate, times(2)).getAccessToken("code")
+    }
+
+    @Test
+    fun search_doesNotShare_forDifferentFilters() {
+        val filtered = QUERY.filteredBy(SearchFilter.Geotagged)
+        `when`(delegate.search(QUERY, SoundFields.LIST)).thenReturn(SingleSubject.create())
+        `when`(delegate.search(filtered, SoundFields.LIST)).thenReturn(SingleSubject.create())
+
+        client.search(QUERY, SoundFields.LIST).test()
+        client.search(filtered, SoundFields.LIST).test()
+
+        verify(delegate).search(QUERY, SoundFields.LIST)
+        verify(delegate).search(filtered, SoundFields.LIST)
+        assertThat(stats.deduplicatedCount()).isZero()
+    }
+
+    @Test
+    fun search_sharesInFlightRequest_forSameQueryAndFields() {
+        val response = SingleSubject.create<SoundSearchResult>()
+        `when`(delegate.search(QUERY, SoundFields.LIST)).thenReturn(response)
+
+        client.search(QUERY, SoundFields.LIST).test()
+        client.search(QUERY, SoundFields.LIST).test()
+
+        verify(delegate, times(1)).search(QUERY, SoundFields.LIST)
+        assertThat(stats.deduplicatedCount()).isEqualTo(1)
+    }
+
+    @Test
+    fun search_doesNotShare_forDifferentFields() {
+        `when`(delegate.search(QUERY, SoundFields.LIST)).thenReturn(SingleSubject.create())
+        `when`(delegate.search(QUERY, SoundFields.DETAIL)).thenReturn(SingleSubject.create())
+
+        client.search(QUERY, SoundFields.LIST).test()
+        client.search(QUERY, SoundFields.DETAIL).test()
+
+        verify(delegate).search(QUERY, SoundFields.LIST)
+        verify(delegate).search(QUERY, SoundFields.DETAIL)
+        assertThat(stats.deduplicatedCount()).isZero()
+    }
+
+    @Test
+    fun refreshSearch_doesNotShare_withInFlightSearch() {
+        `when`(delegate.search(QUERY, SoundFields.LIST)).thenReturn(SingleSubject.create())
+        `when`(delegate.refreshSearch(QUERY, SoundFields.LIST)).thenReturn(SingleSubject.create())
+
+        client.search(QUERY, SoundFields.LIST).test()
+        client.refreshSearch(QUERY, SoundFields.LIST).test()
+
+        verify(delegate).search(QUERY, SoundFields.LIST)
+        verify(delegate).refreshSearch(QUERY, SoundFields.LIST)
+        assertThat(stats.deduplicatedCount()).isZero()
+    }
+
+    companion object {
+        private val QUERY = SearchQuery("query")
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StaleWhileRevalidateInterceptorTest {
+
+    @Rule
+    public final MockWebServer mockWebServer = new MockWebServer();
+
+    @Rule
+    public final TemporaryFolder cacheFolder = new TemporaryFolder();
+
+    private HttpCacheStats stats;
+
+    private OkHttpClient okHttpClient;
+
+    @Before
+    public void setUp() throws IOException {
+        stats = new HttpCacheStats();
+        okHttpClient = new OkHttpClient.Builder()
+                .cache(new Cache(cacheFolder.newFolder(), 1024 * 1024))
+                .addInterceptor(new StaleWhileRevalidateInterceptor(() -> okHttpClient, stats))
+                .build();
+    }
+
+    @Test
+    public void firstRequest_isCacheMiss() throws IOException {
+        mockWebServer.enqueue(freshResponse("first"));
+
+        assertThat(execute()).isEqualTo("first");
+        assertThat(stats.missCount()).isEqualTo(1);
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void freshEntry_isServedFromCache_withoutNetwork() throws IOException {
+        mockWebServer.enqueue(freshResponse("first"));
+        execute();
+
+        assertThat(execute()).isEqualTo("first");
+        assertThat(stats.hitCount()).isEqualTo(1);
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void staleEntry_isServedImmediately_andRevalidated()
+            throws IOException, InterruptedException {
+        mockWebServer.enqueue(staleResponse("first"));
+        mockWebServer.enqueue(freshResponse("second"));
+        execute();
+
+        assertThat(execute()).isEqualTo("first");
+        assertThat(stats.staleHitCount()).isEqualTo(1);
+        assertThat(mockWebServer.takeRequest(1, TimeUnit.SECONDS)).isNotNull();
+        assertThat(mockWebServer.takeRequest(1, TimeUnit.SECONDS)).isNotNull();
+    }
+
+    private String execute() throws IOException {
+        Request request = new Request.Builder().url(mockWebServer.url("/users/name/")).build();
+        try (Response response = okHttpClient.newCall(request).execute()) {
+            return response.body().string();
+        }
+    }
+
+    private static MockResponse freshResponse(String body) {
+        return new MockResponse().setHeader("Cache-Control", "max-age=60").setBody(body);
+    }
+
+    private static MockResponse staleResponse(String body) {
+        return new MockResponse().setHeader("Cache-Control", "max-age=0").setBody(body);
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api.model
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+
+class SearchQueryTest {
+
+    @Test
+    fun filter_isNull_whenNoFilters() {
+        assertThat(SearchQuery("query").filter()).isNull()
+    }
+
+    @Test
+    fun filter_combinesAllFilters() {
+        val query = SearchQuery("query")
+                .filteredBy(SearchFilter.Tag("rain"))
+                .filteredBy(SearchFilter.Geotagged)
+                .filteredBy(SearchFilter.License(SoundLicense.CREATIVE_COMMONS_0))
+
+        assertThat(query.filter())
+                .isEqualTo("tag:\"rain\" AND is_geotagged:true AND license:\"Creative Commons 0\"")
+    }
+
+    @Test
+    fun filter_usesOpenBounds_forDuration() {
+        assertThat(SearchFilter.Duration(minSeconds = 1.5f, maxSeconds = null).toFilter())
+                .isEqualTo("duration:[1.5 TO *]")
+        assertThat(SearchFilter.Duration(minSeconds = null, maxSeconds = 30f).toFilter())
+                .isEqualTo("duration:[* TO 30.0]")
+    }
+
+    @Test
+    fun filter_escapesQuotesAndBackslashes() {
+        assertThat(SearchFilter.Username("a \"b\" \\c").toFilter())
+                .isEqualTo("username:\"a \\\"b\\\" \\\\c\"")
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun duration_throws_whenUnbounded() {
+        SearchFilter.Duration(minSeconds = null, maxSeconds = null)
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun duration_throws_whenMinExceedsMax() {
+        SearchFilter.Duration(minSeconds = 10f, maxSeconds = 1f)
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun constructor_throws_whenPageSizeExceedsMax() {
+        SearchQuery("query", pageSize = MAX_PAGE_SIZE + 1)
+    }
+
+    @Test
+    fun sort_isSerializedAsApiValue() {
+        assertThat(SortOrder.DOWNLOADS_DESCENDING.toString()).isEqualTo("downloads_desc")
+    }
+
+    @Test
+    fun filteredBy_doesNotModifyOriginal() {
+        val query = SearchQuery("query")
+
+        query.filteredBy(SearchFilter.Geotagged)
+
+        assertThat(query.filters).isEmpty()
+    }
+}
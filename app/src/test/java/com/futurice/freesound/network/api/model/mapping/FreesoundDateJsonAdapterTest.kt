@@ -16,8 +16,8 @@
 
 package com.futurice.freesound.network.api.model.mapping
 
+import com.squareup.moshi.JsonDataException
 import com.squareup.moshi.Moshi
-import com.squareup.moshi.adapters.Rfc3339DateJsonAdapter
 import com.squareup.moshi.kotlin.reflect.KotlinJsonAdapterFactory
 import org.assertj.core.api.Assertions.assertThat
 import org.junit.Before
@@ -25,9 +25,9 @@ import org.junit.Test
 import java.text.SimpleDateFormat
 import java.util.*
 
-class FreesoundDateAdapterTest {
+class FreesoundDateJsonAdapterTest {
 
-    private lateinit var adapter: FreesoundDateAdapter
+    private lateinit var adapter: FreesoundDateJsonAdapter
 
     private val gmtFormatter = SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS")
             .apply { timeZone = TimeZone.getTimeZone("GMT") }
@@ -36,9 +36,11 @@ class FreesoundDateAdapterTest {
         return gmtFormatter.parse(this)
     }
 
+    private fun String.quoted(): String = "\"$this\""
+
     @Before
     fun setUp() {
-        adapter = FreesoundDateAdapter(Rfc3339DateJsonAdapter())
+        adapter = FreesoundDateJsonAdapter()
     }
 
     @Test
@@ -46,7 +48,7 @@ class FreesoundDateAdapterTest {
         val jsonString = "2016-03-28T06:48:29.123"
         val expected = jsonString.plus("Z").toGmtDate()
 
-        val date = adapter.fromJson(jsonString)
+        val date = adapter.fromJson(jsonString.quoted())
 
         assertThat(date).isEqualTo(expected)
     }
@@ -56,26 +58,86 @@ class FreesoundDateAdapterTest {
         val jsonString = "2016-03-28T06:48:29.123Z"
         val expected = jsonString.toGmtDate()
 
-        val date = adapter.fromJson(jsonString)
+        val date = adapter.fromJson(jsonString.quoted())
 
         assertThat(date).isEqualTo(expected)
     }
 
     @Test
-    fun toJson_removesQuotesAndZSuffix() {
+    fun fromJson_deserializes_whenNoFraction() {
+        val date = adapter.fromJson("2016-03-28T06:48:29".quoted())
+
+        assertThat(date).isEqualTo("2016-03-28T06:48:29.000".toGmtDate())
+    }
+
+    @Test
+    fun fromJson_keepsMilliseconds_whenSingleFractionDigit() {
+        val date = adapter.fromJson("2016-03-28T06:48:29.5".quoted())
+
+        assertThat(date).isEqualTo("2016-03-28T06:48:29.500".toGmtDate())
+    }
+
+    @Test
+    fun fromJson_keepsMilliseconds_whenSixFractionDigits() {
+        val date = adapter.fromJson("2016-03-28T06:48:29.123456".quoted())
+
+        assertThat(date).isEqualTo("2016-03-28T06:48:29.123".toGmtDate())
+    }
+
+    @Test
+    fun fromJson_appliesOffset_whenZoneOffset() {
+        val date = adapter.fromJson("2016-03-28T08:48:29.123+02:00".quoted())
+
+        assertThat(date).isEqualTo("2016-03-28T06:48:29.123".toGmtDate())
+    }
+
+    @Test
+    fun fromJson_deserializes_whenLeapDay() {
+        val date = adapter.fromJson("2016-02-29T23:59:59".quoted())
+
+        assertThat(date).isEqualTo("2016-02-29T23:59:59.000".toGmtDate())
+    }
+
+    @Test(expected = JsonDataException::class)
+    fun fromJson_throws_whenInvalidDay() {
+        adapter.fromJson("2015-02-29T06:48:29".quoted())
+    }
+
+    @Test(expected = JsonDataException::class)
+    fun fromJson_throws_whenMalformed() {
+        adapter.fromJson("2016-03-28 06:48".quoted())
+    }
+
+    @Test(expected = JsonDataException::class)
+    fun fromJson_throws_whenTrailingCharacters() {
+        adapter.fromJson("2016-03-28T06:48:29.123abc".quoted())
+    }
+
+    @Test
+    fun toJson_removesZSuffix() {
         val expected = "2016-03-28T06:48:29.123"
         val date = expected.toGmtDate()
 
         val json = adapter.toJson(date)
 
-        assertThat(json).isEqualTo(expected)
+        assertThat(json).isEqualTo(expected.quoted())
+    }
+
+    @Test
+    fun toJson_formats_whenBeforeEpoch() {
+        val expected = "1969-12-31T23:59:59.999"
+        val date = expected.toGmtDate()
+
+        val json = adapter.toJson(date)
+
+        assertThat(json).isEqualTo(expected.quoted())
     }
 
     @Test
     fun adapter_serialization_roundtrip() {
         val dateAdapter = Moshi.Builder()
                 .add(KotlinJsonAdapterFactory())
-                .add(FreesoundDateAdapter(Rfc3339DateJsonAdapter()))
+                .add(Date::class.java, FreesoundDateJsonAdapter().nullSafe())
                 .build()
                 .adapter(Date::class.java)
         val date = "2016-03-28T06:48:29.123".toGmtDate()
@@ -90,7 +152,7 @@ class FreesoundDateAdapterTest {
 
         val testDataAdapter = Moshi.Builder()
                 .add(KotlinJsonAdapterFactory())
-                .add(FreesoundDateAdapter(Rfc3339DateJsonAdapter()))
+                .add(Date::class.java, FreesoundDateJsonAdapter().nullSafe())
                 .build()
                 .adapter(TestClass::class.java)
         val testData = TestClass("2016-03-28T06:48:29.123".toGmtDate())
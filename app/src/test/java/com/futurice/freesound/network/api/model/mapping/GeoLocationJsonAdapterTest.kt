@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api.model.mapping
+
+import com.futurice.freesound.network.api.model.GeoLocation
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Test
+
+class GeoLocationJsonAdapterTest {
+
+    private lateinit var adapter: GeoLocationJsonAdapter
+
+    private fun String.quoted(): String = "\"$this\""
+
+    @Before
+    fun setUp() {
+        adapter = GeoLocationJsonAdapter()
+    }
+
+    @Test
+    fun fromJson_deserializes_latitudeAndLongitude() {
+        val location = adapter.fromJson("41.0082325664 28.9731252193".quoted())
+
+        assertThat(location).isEqualTo(GeoLocation(41.0082325664, 28.9731252193))
+    }
+
+    @Test
+    fun fromJson_deserializes_whenNegativeValues() {
+        val location = adapter.fromJson("-33.8688 -151.2093".quoted())
+
+        assertThat(location).isEqualTo(GeoLocation(-33.8688, -151.2093))
+    }
+
+    @Test
+    fun fromJson_deserializes_whenIntegerValues() {
+        val location = adapter.fromJson("52 13".quoted())
+
+        assertThat(location).isEqualTo(GeoLocation(52.0, 13.0))
+    }
+
+    @Test
+    fun fromJson_deserializes_whenSurroundingAndRepeatedSpaces() {
+        val location = adapter.fromJson(" 60.1699  24.9384 ".quoted())
+
+        assertThat(location).isEqualTo(GeoLocation(60.1699, 24.9384))
+    }
+
+    @Test
+    fun fromJson_deserializes_whenMoreDigitsThanExactlyRepresentable() {
+        val location = adapter.fromJson("41.00823256641234567 28.97312521931234567".quoted())
+
+        assertThat(location).isEqualTo(GeoLocation(41.00823256641234567, 28.97312521931234567))
+    }
+
+    @Test
+    fun fromJson_returnsNull_whenNull() {
+        assertThat(adapter.fromJson("null")).isNull()
+    }
+
+    @Test
+    fun fromJson_returnsNull_whenSingleValue() {
+        assertThat(adapter.fromJson("41.0082325664".quoted())).isNull()
+    }
+
+    @Test
+    fun fromJson_returnsNull_whenThreeValues() {
+        assertThat(adapter.fromJson("41.0 28.9 10.0".quoted())).isNull()
+    }
+
+    @Test
+    fun fromJson_returnsNull_whenNotNumeric() {
+        assertThat(adapter.fromJson("north east".quoted())).isNull()
+    }
+
+    @Test
+    fun fromJson_returnsNull_whenLatitudeOutOfRange() {
+        assertThat(adapter.fromJson("90.5 28.9".quoted())).isNull()
+    }
+
+    @Test
+    fun fromJson_returnsNull_whenLongitudeOutOfRange() {
+        assertThat(adapter.fromJson("41.0 -180.1".quoted())).isNull()
+    }
+
+    @Test
+    fun adapter_serialization_roundtrip() {
+        val location = GeoLocation(41.0082325664, 28.9731252193)
+
+        val result = adapter.fromJson(adapter.toJson(location))
+
+        assertThat(result).isEqualTo(location)
+    }
+
+}
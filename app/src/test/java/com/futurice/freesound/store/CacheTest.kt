@@ -16,8 +16,11 @@
 
 package com.futurice.freesound.store
 
+import io.reactivex.schedulers.TestScheduler
+import org.assertj.core.api.Assertions.assertThat
 import org.junit.Before
 import org.junit.Test
+import java.util.concurrent.TimeUnit
 
 class CacheTest {
 
@@ -82,6 +85,112 @@ class CacheTest {
                 .assertNotComplete()
     }
 
+    @Test
+    fun `getStream emits future values for key`() {
+        val ts = cache.getStream(1).test()
+
+        cache.put(1, "first").subscribe()
+        cache.put(1, "second").subscribe()
+
+        ts.assertValues("first", "second")
+                .assertNotComplete()
+    }
+
+    @Test
+    fun `getStream does not emit values for other keys`() {
+        val ts = cache.getStream(1).test()
+
+        cache.put(2, "other").subscribe()
+
+        ts.assertNoValues()
+    }
+
+    @Test
+    fun `getEventStream emits evicted when key is evicted`() {
+        cache = Cache(maxWeight = 1)
+        cache.put(1, "first").subscribe()
+        val ts = cache.getEventStream(1).test()
+
+        cache.put(2, "second").subscribe()
+
+        ts.assertValues(StoreEvent.Stored("first"), StoreEvent.Evicted)
+                .assertNotComplete()
+    }
+
+    @Test
+    fun `getStream does not emit after dispose`() {
+        val ts = cache.getStream(1).test()
+        ts.dispose()
+
+        cache.put(1, "value").subscribe()
+
+        ts.assertNoValues()
+    }
+
+    @Test
+    fun `weigher evicts entries beyond max weight`() {
+        cache = Cache(maxWeight = 10, weigher = { _, value -> value.length })
+        cache.put(1, "12345").subscribe()
+        cache.put(2, "123456").subscribe()
+
+        cache.get(1).test().assertNoValues()
+        cache.get(2).test().assertValue("123456")
+    }
+
+    @Test
+    fun `get does not emit after expire after write`() {
+        val scheduler = TestScheduler()
+        cache = Cache(expireAfterWriteMs = 1000, scheduler = scheduler)
+        cache.put(1, "value").subscribe()
+
+        scheduler.advanceTimeBy(999, TimeUnit.MILLISECONDS)
+        cache.get(1).test().assertValue("value")
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS)
+        cache.get(1).test().assertNoValues()
+    }
+
+    @Test
+    fun `get extends expire after access`() {
+        val scheduler = TestScheduler()
+        cache = Cache(expireAfterAccessMs = 1000, scheduler = scheduler)
+        cache.put(1, "value").subscribe()
+
+        scheduler.advanceTimeBy(600, TimeUnit.MILLISECONDS)
+        cache.get(1).test().assertValue("value")
+        scheduler.advanceTimeBy(600, TimeUnit.MILLISECONDS)
+        cache.get(1).test().assertValue("value")
+        scheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS)
+        cache.get(1).test().assertNoValues()
+    }
+
+    @Test
+    fun `getEventStream emits expired without key being read`() {
+        val scheduler = TestScheduler()
+        cache = Cache(expireAfterWriteMs = 1000, scheduler = scheduler)
+        cache.put(1, "value").subscribe()
+        val ts = cache.getEventStream(1).test()
+
+        scheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS)
+
+        ts.assertValues(StoreEvent.Stored("value"), StoreEvent.Expired)
+    }
+
+    @Test
+    fun `stats counts hits misses evictions and expiries`() {
+        val scheduler = TestScheduler()
+        cache = Cache(maxWeight = 1, expireAfterWriteMs = 1000, scheduler = scheduler)
+        cache.put(1, "first").subscribe()
+        cache.get(1).subscribe()
+        cache.put(2, "second").subscribe() // evicts 1
+        cache.get(1).subscribe()
+        scheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS)
+
+        assertThat(cache.stats()).isEqualTo(CacheStats(hitCount = 1,
+                missCount = 1,
+                evictionCount = 1,
+                expiredCount = 1))
+    }
+
     private fun arrange(init: Arrangement.() -> Unit) = Arrangement().apply(init)
 
     private inner class Arrangement {
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.store
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class ConcurrentLruStoreTest {
+
+    @Test
+    fun `get keeps recently read entry when evicting`() {
+        val store = ConcurrentLruStore<Int, String>(maxWeight = 2)
+        store.put(1, "first").subscribe()
+        store.put(2, "second").subscribe()
+
+        store.get(1).subscribe()
+        store.put(3, "third").subscribe()
+
+        store.get(1).test().assertValue("first")
+        store.get(2).test().assertNoValues()
+    }
+
+    @Test
+    fun `put replacing value adjusts weight`() {
+        val store = ConcurrentLruStore<Int, String>(maxWeight = 10,
+                weigher = { _, value -> value.length })
+        store.put(1, "12345").subscribe()
+
+        store.put(1, "12").subscribe()
+
+        assertThat(store.weight()).isEqualTo(2)
+        assertThat(store.stats().evictionCount).isZero()
+    }
+
+    @Test
+    fun `entry heavier than store is evicted immediately`() {
+        val store = ConcurrentLruStore<Int, String>(maxWeight = 4,
+                weigher = { _, value -> value.length })
+
+        store.put(1, "12345").subscribe()
+
+        store.get(1).test().assertNoValues()
+        assertThat(store.weight()).isZero()
+    }
+
+    @Test
+    fun `entry heavier than segment share is kept while store has room`() {
+        val store = ConcurrentLruStore<Int, String>(maxWeight = 256,
+                weigher = { _, value -> value.length })
+        store.put(1, "a".repeat(10)).subscribe()
+
+        store.put(2, "b".repeat(200)).subscribe()
+
+        store.get(1).test().assertValue("a".repeat(10))
+        store.get(2).test().assertValue("b".repeat(200))
+        assertThat(store.weight()).isEqualTo(210)
+    }
+
+    @Test
+    fun `put beyond max weight evicts from other segments`() {
+        val store = ConcurrentLruStore<Int, String>(maxWeight = 256,
+                weigher = { _, value -> value.length })
+        (0 until 16).forEach { store.put(it, "a".repeat(16)).subscribe() }
+
+        store.put(16, "b".repeat(100)).subscribe()
+
+        store.get(16).test().assertValue("b".repeat(100))
+        assertThat(store.weight()).isLessThanOrEqualTo(256)
+        assertThat(store.stats().evictionCount).isGreaterThanOrEqualTo(7)
+    }
+
+    @Test
+    fun `watchers are notified without holding the segment lock`() {
+        val store = ConcurrentLruStore<Int, String>(maxWeight = 2)
+        val executor = Executors.newSingleThreadExecutor()
+        val readOnOtherThread = ArrayList<String?>()
+        store.getStream(1).subscribe {
+            // Would time out if the segment were still locked by this thread.
+            readOnOtherThread += executor.submit<String?> { store.get(1).blockingGet() }
+                    .get(5, TimeUnit.SECONDS)
+        }
+
+        store.put(1, "value").subscribe()
+        executor.shutdown()
+
+        assertThat(readOnOtherThread).containsExactly("value")
+    }
+
+    @Test
+    fun `concurrent puts never exceed max weight`() {
+        val maxWeight = 1_000
+        val threads = 8
+        val putsPerThread = 20_000
+        val store = ConcurrentLruStore<Int, Int>(maxWeight = maxWeight)
+        val executor = Executors.newFixedThreadPool(threads)
+        val done = CountDownLatch(threads)
+
+        repeat(threads) { thread ->
+            executor.execute {
+                repeat(putsPerThread) {
+                    val key = thread * putsPerThread + it
+                    store.put(key, key).subscribe()
+                    store.get(key - 1).subscribe()
+                }
+                done.countDown()
+            }
+        }
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue()
+        executor.shutdown()
+
+        assertThat(store.weight()).isEqualTo(maxWeight.toLong())
+        assertThat(store.size()).isEqualTo(maxWeight)
+        assertThat(store.stats().evictionCount)
+                .isEqualTo((threads * putsPerThread - maxWeight).toLong())
+    }
+
+}
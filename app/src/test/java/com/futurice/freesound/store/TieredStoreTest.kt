@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.store
+
+import com.squareup.moshi.Moshi
+import io.reactivex.schedulers.Schedulers
+import io.reactivex.schedulers.TestScheduler
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.util.concurrent.TimeUnit
+
+class TieredStoreTest {
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    private lateinit var diskStore: DiskStore<String, String>
+
+    private lateinit var store: TieredStore<String, String>
+
+    @Before
+    fun setUp() {
+        diskStore = newDiskStore()
+        store = TieredStore(Cache(), diskStore)
+    }
+
+    @Test
+    fun `put writes through to disk`() {
+        store.put("key", "value").test().assertComplete()
+
+        diskStore.get("key")
+                .test()
+                .assertValue("value")
+    }
+
+    @Test
+    fun `get reads through from disk when not in memory`() {
+        diskStore.put("key", "persisted").subscribe()
+
+        store.get("key")
+                .test()
+                .assertValue("persisted")
+    }
+
+    @Test
+    fun `get survives a new process`() {
+        store.put("key", "value").subscribe()
+
+        TieredStore(Cache(), newDiskStore())
+                .get("key")
+                .test()
+                .assertValue("value")
+    }
+
+    @Test
+    fun `get completes empty when not in memory or disk`() {
+        store.get("key")
+                .test()
+                .assertNoValues()
+                .assertComplete()
+    }
+
+    @Test
+    fun `getStream emits persisted value then future values`() {
+        diskStore.put("key", "persisted").subscribe()
+        val ts = store.getStream("key").test()
+
+        store.put("key", "updated").subscribe()
+
+        ts.assertValues("persisted", "updated")
+                .assertNotComplete()
+    }
+
+    @Test
+    fun `promoted value expires from memory as of its write to disk`() {
+        val clock = TestScheduler()
+        val memory = Cache<String, String>(expireAfterWriteMs = 1000, scheduler = clock)
+        diskStore.put("key", "persisted").subscribe()
+        folder.root.listFiles()!!.forEach { it.setLastModified(WRITTEN_AT_MS) }
+        clock.advanceTimeTo(WRITTEN_AT_MS + 600, TimeUnit.MILLISECONDS)
+        TieredStore(memory, diskStore).get("key").test().assertValue("persisted")
+
+        clock.advanceTimeBy(400, TimeUnit.MILLISECONDS)
+
+        memory.get("key").test().assertNoValues()
+    }
+
+    @Test
+    fun `disk store removes oldest entries beyond max entries`() {
+        val smallStore = newDiskStore(maxEntries = 1)
+        smallStore.put("old", "old").subscribe()
+        folder.root.listFiles()!!.forEach { it.setLastModified(0) }
+        smallStore.put("new", "new").subscribe()
+
+        smallStore.get("old").test().assertNoValues()
+        smallStore.get("new").test().assertValue("new")
+    }
+
+    private fun newDiskStore(maxEntries: Int = DiskStore.DEFAULT_MAX_ENTRIES): DiskStore<String, String> =
+            DiskStore(folder.root,
+                    Moshi.Builder().build().adapter(String::class.java),
+                    Schedulers.trampoline(),
+                    maxEntries)
+
+    companion object {
+        // Whole seconds, as some file systems keep no finer modification times.
+        private const val WRITTEN_AT_MS = 1_500_000_000_000L
+    }
+}
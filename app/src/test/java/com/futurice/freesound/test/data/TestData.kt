@@ -67,16 +67,37 @@ class TestData private constructor() {
         fun sound(index: Long): Sound {
             return Sound(
                     id = index,
-                    url = "url $index",
                     name = "name $index",
+                    tags = tags(index, (index % 5).toInt()),
                     description = "description $index",
                     username = "username $index",
+                    images = images(),
+                    previews = previews(),
+                    duration = index.toFloat(),
+                    created = Date(index))
+        }
+
+        @JvmStatic
+        fun soundDetails(index: Long): SoundDetails {
+            return SoundDetails(
+                    id = index,
+                    url = "url $index",
+                    name = "name $index",
                     tags = tags(index, (index % 5).toInt()),
+                    description = "description $index",
                     geotag = geotag(index),
+                    username = "username $index",
                     images = images(),
                     previews = previews(),
                     duration = index.toFloat(),
-                    created = Date(index))
+                    created = Date(index),
+                    license = "http://creativecommons.org/publicdomain/zero/1.0/",
+                    type = "wav",
+                    channels = 2,
+                    filesize = index * 1000,
+                    samplerate = 44100f,
+                    bitrate = 1411,
+                    bitdepth = 16)
         }
 
         @JvmStatic
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.benchmark;
+
+import com.futurice.freesound.common.InstantiationForbiddenError;
+import com.futurice.freesound.network.api.model.GeoLocation;
+import com.futurice.freesound.network.api.model.SoundFields;
+import com.futurice.freesound.network.api.model.mapping.FreesoundDateJsonAdapter;
+import com.futurice.freesound.network.api.model.mapping.GeoLocationJsonAdapter;
+import com.futurice.freesound.network.api.model.mapping.ReflectiveFallbackJsonAdapterFactory;
+import com.squareup.moshi.JsonWriter;
+import com.squareup.moshi.Moshi;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+
+import okio.Buffer;
+
+/**
+ * Realistic Freesound API payloads for benchmarks.
+ *
+ * The payloads are generated from a fixed seed, so each run measures the same data. Their shape
+ * follows real responses: variable precision timestamps, a minority of geotagged sounds and
+ * tags and descriptions of varying length.
+ */
+public final class Fixtures {
+
+    // The largest page the Freesound API returns.
+    public static final int SEARCH_PAGE_SIZE = 150;
+
+    private static final long SEED = 20200311L;
+    private static final String BASE_URL = "https://freesound.org";
+    private static final String CDN_URL = "https://cdn.freesound.org";
+    private static final double GEOTAGGED_RATIO = 0.4;
+    private static final String[] WORDS = {
+            "field", "recording", "ambience", "city", "berlin", "rain", "birds", "street",
+            "traffic", "forest", "wind", "water", "synth", "loop", "drum", "voice", "crowd",
+            "train", "station", "night", "morning", "metal", "door", "footsteps", "helsinki"};
+
+    private Fixtures() {
+        throw new InstantiationForbiddenError();
+    }
+
+    /**
+     * The Moshi configuration of the Freesound API.
+     *
+     * Must be kept in line with ApiNetworkModule.provideMoshi.
+     */
+    public static Moshi apiMoshi() {
+        return new Moshi.Builder()
+                .add(GeoLocation.class, new GeoLocationJsonAdapter())
+                .add(new ReflectiveFallbackJsonAdapterFactory())
+                .add(Date.class, new FreesoundDateJsonAdapter().nullSafe())
+                .build();
+    }
+
+    /**
+     * A search results page of {@code count} sounds, as returned by the search endpoint when
+     * requesting the given {@code fields}.
+     */
+    public static String searchPageJson(int count, SoundFields fields) {
+        Random random = new Random(SEED);
+        Buffer buffer = new Buffer();
+        try (JsonWriter writer = JsonWriter.of(buffer)) {
+            writer.beginObject();
+            writer.name("count").value(count * 20);
+            writer.name("next").value(BASE_URL + "/apiv2/search/text/?query=field&page=2");
+            writer.name("previous").nullValue();
+            writer.name("results").beginArray();
+            for (int i = 0; i < count; i++) {
+                writeSound(writer, random, 100_000 + i, fields == SoundFields.DETAIL);
+            }
+            writer.endArray();
+            writer.endObject();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return buffer.readUtf8();
+    }
+
+    /**
+     * A JSON array of {@code count} Freesound timestamps, as found in {@code Sound.created}.
+     */
+    public static String timestampArrayJson(int count) {
+        Random random = new Random(SEED);
+        Buffer buffer = new Buffer();
+        try (JsonWriter writer = JsonWriter.of(buffer)) {
+            writer.beginArray();
+            for (int i = 0; i < count; i++) {
+                writer.value(timestamp(random));
+            }
+            writer.endArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return buffer.readUtf8();
+    }
+
+    /**
+     * A JSON array of {@code count} Freesound geotags, as found in {@code Sound.geotag}.
+     */
+    public static String geotagArrayJson(int count) {
+        Random random = new Random(SEED);
+        Buffer buffer = new Buffer();
+        try (JsonWriter writer = JsonWriter.of(buffer)) {
+            writer.beginArray();
+            for (int i = 0; i < count; i++) {
+                writer.value(geotag(random));
+            }
+            writer.endArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return buffer.readUtf8();
+    }
+
+    private static void writeSound(JsonWriter writer, Random random, long id, boolean detailed)
+            throws IOException {
+        String username = words(random, 1) + random.nextInt(1000);
+        String soundUrl = BASE_URL + "/people/" + username + "/sounds/" + id + "/";
+        String previewPath = CDN_URL + "/previews/" + id / 1000 + "/" + id + "_" + random.nextInt(100_000);
+        String imagePath = CDN_URL + "/displays/" + id / 1000 + "/" + id + "_" + random.nextInt(100_000);
+
+        writer.beginObject();
+        writer.name("id").value(id);
+        if (detailed) {
+            writer.name("url").value(soundUrl);
+        }
+        writer.name("name").value(words(random, 1 + random.nextInt(5)) + ".wav");
+        int tagCount = 1 + random.nextInt(12);
+        String[] tags = new String[tagCount];
+        for (int i = 0; i < tagCount; i++) {
+            tags[i] = words(random, 1);
+        }
+        // Drawn either way, so that both projections describe the same sounds.
+        String geotag = random.nextDouble() < GEOTAGGED_RATIO ? geotag(random) : null;
+        writer.name("tags").beginArray();
+        for (String tag : tags) {
+            writer.value(tag);
+        }
+        writer.endArray();
+        writer.name("description").value(words(random, 5 + random.nextInt(80)));
+        if (detailed) {
+            writer.name("geotag").value(geotag);
+        }
+        writer.name("username").value(username);
+        writer.name("images").beginObject();
+        writer.name("waveform_m").value(imagePath + "_wave_M.png");
+        writer.name("waveform_l").value(imagePath + "_wave_L.png");
+        writer.name("spectral_m").value(imagePath + "_spec_M.jpg");
+        writer.name("spectral_l").value(imagePath + "_spec_L.jpg");
+        writer.endObject();
+        writer.name("previews").beginObject();
+        writer.name("preview-lq-mp3").value(previewPath + "-lq.mp3");
+        writer.name("preview-hq-mp3").value(previewPath + "-hq.mp3");
+        writer.name("preview-lq-ogg").value(previewPath + "-lq.ogg");
+        writer.name("preview-hq-ogg").value(previewPath + "-hq.ogg");
+        writer.endObject();
+        writer.name("duration").value(0.1 + random.nextDouble() * 300);
+        writer.name("created").value(timestamp(random));
+        if (detailed) {
+            writer.name("license").value("http://creativecommons.org/licenses/by/3.0/");
+            writer.name("type").value("wav");
+            writer.name("channels").value(1 + random.nextInt(2));
+            writer.name("filesize").value(100_000 + random.nextInt(50_000_000));
+            writer.name("samplerate").value(44100.0);
+            writer.name("bitrate").value(0);
+            writer.name("bitdepth").value(16);
+        }
+        writer.endObject();
+    }
+
+    // Freesound omits the zone and uses anywhere between 0 and 6 fractional second digits.
+    private static String timestamp(Random random) {
+        String timestamp = String.format(Locale.US, "%04d-%02d-%02dT%02d:%02d:%02d",
+                2005 + random.nextInt(15),
+                1 + random.nextInt(12),
+                1 + random.nextInt(28),
+                random.nextInt(24),
+                random.nextInt(60),
+                random.nextInt(60));
+        int fractionDigits = random.nextInt(7);
+        if (fractionDigits == 0) {
+            return timestamp;
+        }
+        StringBuilder fraction = new StringBuilder(".");
+        for (int i = 0; i < fractionDigits; i++) {
+            fraction.append(random.nextInt(10));
+        }
+        return timestamp + fraction;
+    }
+
+    // Latitude and longitude separated by a space, with up to 10 decimal places.
+    private static String geotag(Random random) {
+        return String.format(Locale.US, "%." + (4 + random.nextInt(7)) + "f %." + (4 + random.nextInt(7)) + "f",
+                random.nextDouble() * 180 - 90,
+                random.nextDouble() * 360 - 180);
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.feature.home.user;
+
+import com.futurice.freesound.feature.common.streams.Fetch;
+import com.futurice.freesound.feature.common.streams.Operation;
+import com.futurice.freesound.network.api.model.Avatar;
+import com.futurice.freesound.network.api.model.User;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import kotlin.jvm.functions.Function2;
+
+/**
+ * Measures reducing the sequence of results of loading and then refreshing the home user.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class HomeUserUiReducerBenchmark {
+
+    private Function2<HomeUiModel, HomeUiResult, HomeUiModel> reducer;
+    private HomeUiModel initial;
+    private HomeUiResult[] results;
+
+    @Setup
+    public void setUp() {
+        reducer = HomeUserUiReducerKt.getReducer();
+        initial = new HomeUiModel(null, false, false, null);
+        User user = new User("username",
+                "about",
+                new Avatar("https://freesound.org/small.jpg",
+                        "https://freesound.org/medium.jpg",
+                        "https://freesound.org/large.jpg"));
+        results = new HomeUiResult[]{
+                new HomeUiResult.UserUpdated(new Fetch.InProgress<>()),
+                new HomeUiResult.UserUpdated(new Fetch.Success<>(user)),
+                new HomeUiResult.Refreshed(Operation.InProgress.INSTANCE),
+                HomeUiResult.NoChange.INSTANCE,
+                new HomeUiResult.Refreshed(new Operation.Failure(new Exception("offline"))),
+                HomeUiResult.ErrorCleared.INSTANCE,
+                new HomeUiResult.Refreshed(Operation.InProgress.INSTANCE),
+                new HomeUiResult.Refreshed(Operation.Complete.INSTANCE)};
+    }
+
+    @Benchmark
+    public HomeUiModel reduceLoadAndRefresh() {
+        HomeUiModel model = initial;
+        for (HomeUiResult result : results) {
+            model = reducer.invoke(model, result);
+        }
+        return model;
+    }
+
+}
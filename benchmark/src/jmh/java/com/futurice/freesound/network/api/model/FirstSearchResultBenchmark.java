@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api.model;
+
+import com.futurice.freesound.benchmark.Fixtures;
+import com.futurice.freesound.network.api.model.mapping.FreesoundDateJsonAdapter;
+import com.futurice.freesound.network.api.model.mapping.GeoLocationJsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.kotlin.reflect.KotlinJsonAdapterFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * Measures the time to the first parsed search result in a fresh JVM: creating the Moshi
+ * adapters and then parsing a page with them, comparing generated and reflective adapters.
+ *
+ * Each fork measures a single cold invocation, so that no adapter or reflection metadata is
+ * cached from a previous one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(20)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class FirstSearchResultBenchmark {
+
+    @Param({"codegen", "reflection"})
+    public String adapterType;
+
+    private ByteString page;
+
+    @Setup
+    public void setUp() {
+        page = ByteString.encodeUtf8(Fixtures.searchPageJson(Fixtures.SEARCH_PAGE_SIZE, SoundFields.LIST));
+    }
+
+    @Benchmark
+    public SoundSearchResult parseFirstSearchPage() throws IOException {
+        Moshi moshi = "codegen".equals(adapterType) ? Fixtures.apiMoshi() : reflectiveMoshi();
+        return moshi.adapter(SoundSearchResult.class).fromJson(new Buffer().write(page));
+    }
+
+    // The Freesound API configuration before adapters were generated.
+    private static Moshi reflectiveMoshi() {
+        return new Moshi.Builder()
+                .add(GeoLocation.class, new GeoLocationJsonAdapter())
+                .add(new KotlinJsonAdapterFactory())
+                .add(Date.class, new FreesoundDateJsonAdapter().nullSafe())
+                .build();
+    }
+
+}
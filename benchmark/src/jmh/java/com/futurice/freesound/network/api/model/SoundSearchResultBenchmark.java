@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api.model;
+
+import com.futurice.freesound.benchmark.Fixtures;
+import com.squareup.moshi.JsonAdapter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * Measures parsing a full search results page with the Freesound API Moshi configuration.
+ *
+ * The page is requested with either projection. A {@link SoundFields#DETAIL} page is how list
+ * pages were downloaded before the list projection: its extra fields are skipped by the adapter,
+ * but still have to be read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SoundSearchResultBenchmark {
+
+    @Param({"LIST", "DETAIL"})
+    public SoundFields fields;
+
+    private JsonAdapter<SoundSearchResult> adapter;
+    private ByteString page;
+
+    @Setup
+    public void setUp() {
+        adapter = Fixtures.apiMoshi().adapter(SoundSearchResult.class);
+        page = ByteString.encodeUtf8(Fixtures.searchPageJson(Fixtures.SEARCH_PAGE_SIZE, fields));
+    }
+
+    @Benchmark
+    public SoundSearchResult parseSearchPage() throws IOException {
+        // Parse from bytes, as the Retrofit converter does from the response body.
+        return adapter.fromJson(new Buffer().write(page));
+    }
+
+}
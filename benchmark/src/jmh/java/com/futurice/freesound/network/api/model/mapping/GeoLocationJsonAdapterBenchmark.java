@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api.model.mapping;
+
+import com.futurice.freesound.benchmark.Fixtures;
+import com.futurice.freesound.network.api.model.GeoLocation;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * Measures parsing a page worth of geotags, comparing {@link GeoLocationJsonAdapter} with the
+ * previous adapter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class GeoLocationJsonAdapterBenchmark {
+
+    @Param({"streaming", "split"})
+    public String adapterType;
+
+    private JsonAdapter<List<GeoLocation>> adapter;
+    private ByteString geotags;
+
+    @Setup
+    public void setUp() {
+        Moshi.Builder builder = new Moshi.Builder();
+        if ("streaming".equals(adapterType)) {
+            builder.add(GeoLocation.class, new GeoLocationJsonAdapter());
+        } else {
+            builder.add(new SplitGeoLocationJsonAdapter());
+        }
+        adapter = builder.build()
+                .adapter(Types.newParameterizedType(List.class, GeoLocation.class));
+        geotags = ByteString.encodeUtf8(Fixtures.geotagArrayJson(Fixtures.SEARCH_PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<GeoLocation> parseGeotags() throws IOException {
+        return adapter.fromJson(new Buffer().write(geotags));
+    }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api.model.mapping;
+
+import com.squareup.moshi.FromJson;
+import com.squareup.moshi.JsonDataException;
+import com.squareup.moshi.adapters.Rfc3339DateJsonAdapter;
+
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * The previous Freesound date adapter, kept as the baseline for
+ * {@link FreesoundDateJsonAdapterBenchmark}.
+ *
+ * Appends the missing "Z" suffix and then delegates to {@link Rfc3339DateJsonAdapter}.
+ */
+public final class Rfc3339FreesoundDateAdapter {
+
+    private final Rfc3339DateJsonAdapter delegate = new Rfc3339DateJsonAdapter();
+
+    @FromJson
+    public Date fromJson(String json) throws IOException {
+        String parsableDate = json.endsWith("Z") ? json : json + "Z";
+        Date date = delegate.fromJson("\"" + parsableDate + "\"");
+        if (date == null) {
+            throw new JsonDataException("Unable to deserialize Date from: " + json);
+        }
+        return date;
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.network.api.model.mapping;
+
+import com.futurice.freesound.network.api.model.GeoLocation;
+import com.squareup.moshi.FromJson;
+import com.squareup.moshi.JsonDataException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The previous geotag adapter, kept as the baseline for {@link GeoLocationJsonAdapterBenchmark}.
+ *
+ * Splits the geotag and converts each part, as Kotlin's split and mapNotNull did.
+ */
+public final class SplitGeoLocationJsonAdapter {
+
+    @FromJson
+    public GeoLocation fromJson(String json) {
+        List<Double> values = new ArrayList<>();
+        for (String part : json.trim().split(" ")) {
+            try {
+                values.add(Double.valueOf(part));
+            } catch (NumberFormatException e) {
+                // Dropped, as with toDoubleOrNull
+            }
+        }
+        if (values.size() != 2) {
+            throw new JsonDataException("Unable to deserialize latitude/long values from: " + json);
+        }
+        return new GeoLocation(values.get(0), values.get(1));
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 Futurice GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.futurice.freesound.store;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Measures the {@link Cache} operations on the hot paths of the repositories.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CacheBenchmark {
+
+    private static final int CAPACITY = 1_000;
+
+    // Twice the capacity, so that half of the puts evict.
+    private static final int KEY_SPACE = CAPACITY * 2;
+
+    private Cache<Integer, String> cache;
+    private Disposable observer;
+    private int nextKey;
+
+    @Setup
+    public void setUp() {
+        cache = new Cache<>(CAPACITY);
+        for (int key = 0; key < CAPACITY; key++) {
+            cache.put(key, "value " + key).blockingAwait();
+        }
+        // An observer of key 0, as a screen showing that item would have.
+        observer = cache.getStream(0).subscribe();
+    }
+
+    @TearDown
+    public void tearDown() {
+        observer.dispose();
+    }
+
+    @Benchmark
+    public void put() {
+        int key = nextKey++ % KEY_SPACE;
+        cache.put(key, "value").blockingAwait();
+    }
+
+    @Benchmark
+    public void putObservedKey() {
+        cache.put(0, "value").blockingAwait();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void putContended() {
+        int key = ThreadLocalRandom.current().nextInt(KEY_SPACE);
+        cache.put(key, "value").blockingAwait();
+    }
+
+    @Benchmark
+    public String get() {
+        // Nothing is put during this benchmark, so key 0 is always a hit.
+        return cache.get(0).blockingGet();
+    }
+
+    @Benchmark
+    public void getStreamSubscribeAndDispose(Blackhole blackhole) {
+        Disposable disposable = cache.getStream(0).subscribe(blackhole::consume);
+        disposable.dispose();
+    }
+
+}